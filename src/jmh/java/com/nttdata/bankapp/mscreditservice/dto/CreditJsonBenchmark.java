@@ -0,0 +1,97 @@
+package com.nttdata.bankapp.mscreditservice.dto;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.nttdata.bankapp.mscreditservice.model.Money;
+import com.nttdata.bankapp.mscreditservice.model.enums.CreditType;
+import com.nttdata.bankapp.mscreditservice.model.enums.CustomerType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serialización y deserialización JSON de los DTO expuestos por la API,
+ * con un ObjectMapper configurado como el de Spring Boot.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CreditJsonBenchmark {
+
+    private ObjectWriter creditWriter;
+    private ObjectReader creditReader;
+    private ObjectWriter balanceWriter;
+    private ObjectReader balanceReader;
+    private CreditDto credit;
+    private CreditBalanceDto balance;
+    private byte[] creditJson;
+    private byte[] balanceJson;
+
+    @Setup
+    public void setUp() throws Exception {
+        ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        creditWriter = objectMapper.writerFor(CreditDto.class);
+        creditReader = objectMapper.readerFor(CreditDto.class);
+        balanceWriter = objectMapper.writerFor(CreditBalanceDto.class);
+        balanceReader = objectMapper.readerFor(CreditBalanceDto.class);
+
+        credit = CreditDto.builder()
+                .id("64b7f0c2e4b0a1a2b3c4d5e6")
+                .creditNumber("CR-1A2B3C4D")
+                .customerId("64b7f0c2e4b0a1a2b3c4d5e7")
+                .customerType(CustomerType.PERSONAL)
+                .type(CreditType.PERSONAL)
+                .amount(new BigDecimal("15000.00"))
+                .remainingAmount(new BigDecimal("9876.54"))
+                .interestRate(new BigDecimal("12.50"))
+                .term(24)
+                .startDate(LocalDate.of(2024, 1, 15))
+                .dueDate(LocalDate.of(2026, 1, 15))
+                .build();
+        balance = CreditBalanceDto.builder()
+                .creditId("64b7f0c2e4b0a1a2b3c4d5e6")
+                .creditNumber("CR-1A2B3C4D")
+                .totalAmount(Money.ofMinor(1_500_000))
+                .remainingAmount(Money.ofMinor(987_654))
+                .paidAmount(Money.ofMinor(512_346))
+                .build();
+        creditJson = creditWriter.writeValueAsBytes(credit);
+        balanceJson = balanceWriter.writeValueAsBytes(balance);
+    }
+
+    @Benchmark
+    public byte[] serializeCredit() throws Exception {
+        return creditWriter.writeValueAsBytes(credit);
+    }
+
+    @Benchmark
+    public CreditDto deserializeCredit() throws Exception {
+        return creditReader.readValue(creditJson);
+    }
+
+    @Benchmark
+    public byte[] serializeBalance() throws Exception {
+        return balanceWriter.writeValueAsBytes(balance);
+    }
+
+    @Benchmark
+    public CreditBalanceDto deserializeBalance() throws Exception {
+        return balanceReader.readValue(balanceJson);
+    }
+}
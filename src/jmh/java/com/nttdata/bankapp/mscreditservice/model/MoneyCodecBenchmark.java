@@ -0,0 +1,79 @@
+package com.nttdata.bankapp.mscreditservice.model;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.bson.types.Decimal128;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Conversión de montos hacia y desde MongoDB (Decimal128) y JSON,
+ * como la hacen los converters de Spring Data y Jackson para cada crédito leído o escrito.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MoneyCodecBenchmark {
+
+    private BigDecimal decimal;
+    private Money money;
+    private Decimal128 stored;
+    private ObjectWriter decimalWriter;
+    private ObjectWriter moneyWriter;
+
+    @Setup
+    public void setUp() {
+        decimal = new BigDecimal("9876.54");
+        money = Money.of(decimal);
+        stored = new Decimal128(decimal);
+        ObjectMapper objectMapper = new ObjectMapper();
+        decimalWriter = objectMapper.writerFor(BigDecimal.class);
+        moneyWriter = objectMapper.writerFor(Money.class);
+    }
+
+    @Benchmark
+    public Decimal128 writeDecimal128FromBigDecimal() {
+        return new Decimal128(decimal);
+    }
+
+    @Benchmark
+    public Decimal128 writeDecimal128FromMoney() {
+        return money.toDecimal128();
+    }
+
+    @Benchmark
+    public BigDecimal readBigDecimalFromDecimal128() {
+        return stored.bigDecimalValue();
+    }
+
+    @Benchmark
+    public Money readMoneyFromDecimal128() {
+        return Money.of(stored);
+    }
+
+    // Lectura desde MongoDB y escritura en la respuesta: BigDecimal guarda en caché su toString,
+    // por lo que serializar siempre la misma instancia no refleja el costo real
+    @Benchmark
+    public byte[] decimal128ToJsonBigDecimal() throws Exception {
+        return decimalWriter.writeValueAsBytes(stored.bigDecimalValue());
+    }
+
+    @Benchmark
+    public byte[] decimal128ToJsonMoney() throws Exception {
+        return moneyWriter.writeValueAsBytes(Money.of(stored));
+    }
+}
@@ -0,0 +1,189 @@
+package com.nttdata.bankapp.mscreditservice.service.impl;
+
+import com.nttdata.bankapp.mscreditservice.client.CustomerService;
+import com.nttdata.bankapp.mscreditservice.dto.CreditDto;
+import com.nttdata.bankapp.mscreditservice.model.Credit;
+import com.nttdata.bankapp.mscreditservice.model.Money;
+import com.nttdata.bankapp.mscreditservice.model.enums.CreditStatus;
+import com.nttdata.bankapp.mscreditservice.model.enums.CreditType;
+import com.nttdata.bankapp.mscreditservice.model.enums.CustomerType;
+import com.nttdata.bankapp.mscreditservice.repository.CreditLedgerSnapshotRepository;
+import com.nttdata.bankapp.mscreditservice.repository.CreditPaymentRepository;
+import com.nttdata.bankapp.mscreditservice.repository.CreditRepository;
+import com.nttdata.bankapp.mscreditservice.repository.CreditStatsRepository;
+import com.nttdata.bankapp.mscreditservice.service.support.AmortizationCalculator;
+import com.nttdata.bankapp.mscreditservice.service.support.CreditLedger;
+import com.nttdata.bankapp.mscreditservice.service.support.CreditReadModel;
+import com.nttdata.bankapp.mscreditservice.service.support.CreditStatsRecorder;
+import com.nttdata.bankapp.mscreditservice.service.support.OptimisticLockRetry;
+import com.nttdata.bankapp.mscreditservice.service.support.SequentialCreditNumberGenerator;
+import com.nttdata.bankapp.mscreditservice.service.support.ServiceMetrics;
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import javax.validation.Validation;
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Datos de prueba y dobles en memoria para los benchmarks: ninguna operación sale del proceso.
+ */
+public final class BenchmarkFixtures {
+
+    private BenchmarkFixtures() {
+    }
+
+    /**
+     * Crea el servicio de créditos con repositorio y cliente de clientes en memoria.
+     * @param personalCredits créditos personales que reporta el repositorio para cualquier cliente
+     * @return CreditServiceImpl listo para invocar sus métodos internos
+     */
+    public static CreditServiceImpl creditService(long personalCredits) {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        CreditStatsRepository creditStatsRepository = creditStatsRepository();
+        CreditPaymentRepository creditPaymentRepository = inMemory(CreditPaymentRepository.class);
+        CreditRepository creditRepository = creditRepository(personalCredits);
+        return new CreditServiceImpl(
+                creditRepository,
+                // Desactivado: no abre el change stream y delega en el repositorio
+                new CreditReadModel(creditRepository, null, meterRegistry, false, 1000),
+                creditStatsRepository,
+                new CreditStatsRecorder(creditStatsRepository, meterRegistry),
+                creditPaymentRepository,
+                new CreditLedger(creditPaymentRepository, inMemory(CreditLedgerSnapshotRepository.class), meterRegistry, 100),
+                new InMemoryCustomerService(meterRegistry),
+                new OptimisticLockRetry(meterRegistry, 5, Duration.ofMillis(10), Duration.ofMillis(500)),
+                new SequentialCreditNumberGenerator(1),
+                new ServiceMetrics(meterRegistry),
+                new AmortizationCalculator(1000, meterRegistry),
+                Validation.buildDefaultValidatorFactory().getValidator());
+    }
+
+    /**
+     * Repositorio en memoria: responde con valores fijos sin tocar MongoDB.
+     * @param personalCredits valor devuelto por countByCustomerIdAndType
+     * @return CreditRepository
+     */
+    public static CreditRepository creditRepository(long personalCredits) {
+        Credit credit = credit();
+        return (CreditRepository) Proxy.newProxyInstance(
+                CreditRepository.class.getClassLoader(),
+                new Class<?>[] {CreditRepository.class},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "countByCustomerIdAndType":
+                            return Mono.just(personalCredits);
+                        case "save":
+                        case "insert":
+                            return Mono.just(args[0]);
+                        case "findById":
+                        case "findByCreditNumber":
+                            return Mono.just(credit);
+                        case "existsById":
+                            return Mono.just(true);
+                        case "toString":
+                            return "InMemoryCreditRepository";
+                        case "hashCode":
+                            return System.identityHashCode(proxy);
+                        case "equals":
+                            return proxy == args[0];
+                        default:
+                            return Flux.class.isAssignableFrom(method.getReturnType()) ? Flux.empty() : Mono.empty();
+                    }
+                });
+    }
+
+    /**
+     * Repositorio de estadísticas en memoria: todas las operaciones completan vacías.
+     * @return CreditStatsRepository
+     */
+    public static CreditStatsRepository creditStatsRepository() {
+        return inMemory(CreditStatsRepository.class);
+    }
+
+    /**
+     * Repositorio en memoria genérico: save e insert devuelven la entidad recibida y el resto completa vacío.
+     * @param type Interfaz del repositorio
+     * @return Repositorio que no sale del proceso
+     */
+    public static <R> R inMemory(Class<R> type) {
+        return type.cast(Proxy.newProxyInstance(
+                type.getClassLoader(),
+                new Class<?>[] {type},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "save":
+                        case "insert":
+                            return Mono.just(args[0]);
+                        case "toString":
+                            return "InMemory" + type.getSimpleName();
+                        case "hashCode":
+                            return System.identityHashCode(proxy);
+                        case "equals":
+                            return proxy == args[0];
+                        default:
+                            return Flux.class.isAssignableFrom(method.getReturnType()) ? Flux.empty() : Mono.empty();
+                    }
+                }));
+    }
+
+    public static Credit credit() {
+        return Credit.builder()
+                .id("64b7f0c2e4b0a1a2b3c4d5e6")
+                .creditNumber("CR-1A2B3C4D")
+                .customerId("64b7f0c2e4b0a1a2b3c4d5e7")
+                .customerType(CustomerType.PERSONAL)
+                .type(CreditType.PERSONAL)
+                .amount(Money.ofMinor(1_500_000))
+                .remainingAmount(Money.ofMinor(987_654))
+                .interestRate(new BigDecimal("12.50"))
+                .term(24)
+                .startDate(LocalDate.of(2024, 1, 15))
+                .dueDate(LocalDate.of(2026, 1, 15))
+                .status(CreditStatus.ACTIVE)
+                .createdAt(LocalDateTime.of(2024, 1, 15, 10, 30))
+                .updatedAt(LocalDateTime.of(2024, 6, 1, 8, 0))
+                .version(3L)
+                .build();
+    }
+
+    public static CreditDto creditDto(CustomerType customerType, CreditType type) {
+        return CreditDto.builder()
+                .customerId("64b7f0c2e4b0a1a2b3c4d5e7")
+                .customerType(customerType)
+                .type(type)
+                .amount(new BigDecimal("15000.00"))
+                .interestRate(new BigDecimal("12.50"))
+                .term(24)
+                .build();
+    }
+
+    /**
+     * Cliente de clientes que responde desde memoria; el WebClient nunca se invoca.
+     */
+    static final class InMemoryCustomerService extends CustomerService {
+
+        InMemoryCustomerService(SimpleMeterRegistry meterRegistry) {
+            super(WebClient.create("http://localhost:0"), CircuitBreaker.ofDefaults("customer-service"),
+                    Bulkhead.ofDefaults("customer-service"), Duration.ofSeconds(3), "", 8,
+                    1000, Duration.ofMinutes(10), Duration.ofSeconds(30), meterRegistry);
+        }
+
+        @Override
+        public Mono<Boolean> customerExists(String customerId) {
+            return Mono.just(true);
+        }
+
+        @Override
+        public Mono<String> getCustomerType(String customerId) {
+            return Mono.just(CustomerType.PERSONAL.name());
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.nttdata.bankapp.mscreditservice.service.impl;
+
+import com.nttdata.bankapp.mscreditservice.dto.CreditDto;
+import com.nttdata.bankapp.mscreditservice.model.Credit;
+import com.nttdata.bankapp.mscreditservice.model.enums.CreditType;
+import com.nttdata.bankapp.mscreditservice.model.enums.CustomerType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks de los métodos internos de CreditServiceImpl que se ejecutan en cada request.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CreditServiceBenchmark {
+
+    private CreditServiceImpl creditService;
+    private Credit credit;
+    private CreditDto personalRequest;
+    private CreditDto businessRequest;
+
+    @Setup
+    public void setUp() {
+        creditService = BenchmarkFixtures.creditService(0);
+        credit = BenchmarkFixtures.credit();
+        personalRequest = BenchmarkFixtures.creditDto(CustomerType.PERSONAL, CreditType.PERSONAL);
+        businessRequest = BenchmarkFixtures.creditDto(CustomerType.BUSINESS, CreditType.BUSINESS);
+    }
+
+    @Benchmark
+    public CreditDto mapToDto() {
+        return creditService.mapToDto(credit);
+    }
+
+    @Benchmark
+    public Credit mapToEntity() {
+        return creditService.mapToEntity(personalRequest);
+    }
+
+    @Benchmark
+    public String generateCreditNumber() {
+        return creditService.generateCreditNumber();
+    }
+
+    // Crédito personal: incluye el conteo en el repositorio (en memoria)
+    @Benchmark
+    public Boolean validatePersonalCreditRules() {
+        return creditService.validateCreditRules(personalRequest).block();
+    }
+
+    // Crédito empresarial: solo evalúa las reglas, sin consultar el repositorio
+    @Benchmark
+    public void validateBusinessCreditRules(Blackhole blackhole) {
+        blackhole.consume(creditService.validateCreditRules(businessRequest).block());
+    }
+}
@@ -0,0 +1,97 @@
+package com.nttdata.bankapp.mscreditservice.service.impl;
+
+import com.nttdata.bankapp.mscreditservice.model.Money;
+import com.nttdata.bankapp.mscreditservice.model.enums.CreditStatus;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Aritmética de pagos tal como la hacen makePayment y getBalance:
+ * validación del monto, comparación con el saldo, resta y cálculo del monto pagado.
+ * Cada operación se mide con BigDecimal y con Money para comparar tiempo y asignaciones (-prof gc).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PaymentArithmeticBenchmark {
+
+    // Montos con la misma escala que el saldo y con escalas distintas (requieren reescalar)
+    @Param({"250.00", "250", "9876.54"})
+    private String payment;
+
+    private BigDecimal amount;
+    private BigDecimal totalAmount;
+    private BigDecimal remainingAmount;
+
+    private Money moneyAmount;
+    private Money moneyTotalAmount;
+    private Money moneyRemainingAmount;
+
+    @Setup
+    public void setUp() {
+        amount = new BigDecimal(payment);
+        totalAmount = new BigDecimal("15000.00");
+        remainingAmount = new BigDecimal("9876.54");
+        moneyAmount = Money.of(amount);
+        moneyTotalAmount = Money.of(totalAmount);
+        moneyRemainingAmount = Money.of(remainingAmount);
+    }
+
+    @Benchmark
+    public void applyPayment(Blackhole blackhole) {
+        if (amount.signum() <= 0 || remainingAmount.compareTo(amount) < 0) {
+            blackhole.consume(false);
+            return;
+        }
+        BigDecimal newRemaining = remainingAmount.subtract(amount);
+        blackhole.consume(newRemaining);
+        blackhole.consume(newRemaining.signum() == 0 ? CreditStatus.PAID : CreditStatus.ACTIVE);
+    }
+
+    @Benchmark
+    public BigDecimal paidAmount() {
+        return totalAmount.subtract(remainingAmount);
+    }
+
+    @Benchmark
+    public void applyPaymentMoney(Blackhole blackhole) {
+        if (moneyAmount.signum() <= 0 || moneyRemainingAmount.isLessThan(moneyAmount)) {
+            blackhole.consume(false);
+            return;
+        }
+        Money newRemaining = moneyRemainingAmount.minus(moneyAmount);
+        blackhole.consume(newRemaining);
+        blackhole.consume(newRemaining.isZero() ? CreditStatus.PAID : CreditStatus.ACTIVE);
+    }
+
+    @Benchmark
+    public Money paidAmountMoney() {
+        return moneyTotalAmount.minus(moneyRemainingAmount);
+    }
+
+    @Benchmark
+    public int compare() {
+        return remainingAmount.compareTo(amount);
+    }
+
+    @Benchmark
+    public int compareMoney() {
+        return moneyRemainingAmount.compareTo(moneyAmount);
+    }
+}
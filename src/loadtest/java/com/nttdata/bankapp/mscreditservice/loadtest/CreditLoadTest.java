@@ -0,0 +1,226 @@
+package com.nttdata.bankapp.mscreditservice.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nttdata.bankapp.mscreditservice.MsCreditServiceApplication;
+import com.nttdata.bankapp.mscreditservice.model.Credit;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpHeaderValues;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.testcontainers.containers.MongoDBContainer;
+import org.testcontainers.utility.DockerImageName;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.netty.ByteBufFlux;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Load test de punta a punta del servicio de créditos.
+ * Levanta la aplicación contra un MongoDB local (o un contenedor efímero) y un doble del
+ * servicio de clientes, genera una mezcla de creaciones, consultas de saldo, pagos y listados
+ * con un número fijo de usuarios concurrentes (modelo cerrado) y reporta throughput y
+ * percentiles p50/p99/p999 por endpoint en target/loadtest.
+ * Uso: mvn -Ploadtest test-compile exec:exec -Dloadtest.args="-Dloadtest.duration=5m"
+ */
+public final class CreditLoadTest {
+
+    // Tamaño del anillo de IDs de créditos creados, usados por saldo y pagos
+    private static final int CREDIT_ID_CAPACITY = 100_000;
+
+    private final LoadTestSettings settings;
+    private final HttpClient httpClient;
+    private final LoadTestReport report = new LoadTestReport();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final AtomicReferenceArray<String> creditIds = new AtomicReferenceArray<>(CREDIT_ID_CAPACITY);
+    private final AtomicLong createdCredits = new AtomicLong();
+    private final Endpoint[] mixTable;
+
+    private CreditLoadTest(LoadTestSettings settings, int port) {
+        this.settings = settings;
+        this.httpClient = HttpClient.create(ConnectionProvider.builder("loadtest")
+                        .maxConnections(settings.concurrency)
+                        .build())
+                .baseUrl("http://localhost:" + port);
+        this.mixTable = buildMixTable(settings.mix);
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadTestSettings settings = LoadTestSettings.fromSystemProperties();
+        System.out.println("Load test settings: " + settings);
+
+        MongoDBContainer mongo = null;
+        String mongoHost;
+        int mongoPort;
+        if (settings.mongoAddress.isEmpty()) {
+            mongo = new MongoDBContainer(DockerImageName.parse("mongo:6.0"));
+            mongo.start();
+            mongoHost = mongo.getHost();
+            mongoPort = mongo.getFirstMappedPort();
+        } else {
+            String[] address = settings.mongoAddress.split(":");
+            mongoHost = address[0];
+            mongoPort = address.length > 1 ? Integer.parseInt(address[1]) : 27017;
+        }
+
+        try (CustomerServiceStub customerService = new CustomerServiceStub(settings.customerLatency);
+             ConfigurableApplicationContext context = startService(settings, mongoHost, mongoPort,
+                     customerService.baseUrl())) {
+            // Base de datos dedicada al load test: se parte siempre de una colección vacía
+            context.getBean(ReactiveMongoTemplate.class).remove(new Query(), Credit.class).block();
+
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+            String summary = new CreditLoadTest(settings, port).run();
+            System.out.println(summary);
+            System.out.println("Report written to " + settings.outputDir.toAbsolutePath());
+        } finally {
+            if (mongo != null) {
+                mongo.stop();
+            }
+        }
+    }
+
+    private static ConfigurableApplicationContext startService(LoadTestSettings settings, String mongoHost,
+                                                               int mongoPort, String customerServiceUrl) {
+        return new SpringApplicationBuilder(MsCreditServiceApplication.class)
+                .run("--server.port=0",
+                        "--spring.cloud.config.enabled=false",
+                        "--eureka.client.enabled=false",
+                        "--spring.data.mongodb.host=" + mongoHost,
+                        "--spring.data.mongodb.port=" + mongoPort,
+                        "--spring.data.mongodb.database=" + settings.mongoDatabase,
+                        "--app.customer-service-url=" + customerServiceUrl,
+                        // Sin logs de depuración: medirían el logging y no el servicio
+                        "--logging.level.root=WARN",
+                        "--logging.level.org.springframework.data.mongodb=WARN",
+                        "--logging.level.com.nttdata.bankapp=WARN");
+    }
+
+    private String run() throws Exception {
+        // Créditos iniciales para que saldo y pagos tengan IDs desde el primer request
+        Flux.range(0, settings.seedCredits)
+                .flatMap(i -> create(), settings.concurrency)
+                .blockLast();
+        if (createdCredits.get() == 0) {
+            throw new IllegalStateException("Could not create seed credits; is the service healthy?");
+        }
+
+        long warmupEnd = System.nanoTime() + settings.warmup.toNanos();
+        long end = warmupEnd + settings.duration.toNanos();
+        Mono.delay(settings.warmup).doOnNext(tick -> report.start()).subscribe();
+
+        Flux.range(0, settings.concurrency)
+                .flatMap(user -> Mono.defer(this::nextRequest).repeat(() -> System.nanoTime() < end),
+                        settings.concurrency)
+                .blockLast();
+        report.stop();
+
+        return report.write(settings.outputDir, settings);
+    }
+
+    private Mono<Void> nextRequest() {
+        Endpoint endpoint = mixTable[ThreadLocalRandom.current().nextInt(mixTable.length)];
+        switch (endpoint) {
+            case CREATE:
+                return create();
+            case BALANCE:
+                return timed(Endpoint.BALANCE, httpClient.get().uri("/credits/" + randomCreditId() + "/balance"));
+            case PAYMENT:
+                return timed(Endpoint.PAYMENT, httpClient.put()
+                        .uri("/credits/" + randomCreditId() + "/payment?amount=1.00"));
+            default:
+                return timed(Endpoint.LIST, httpClient.get().uri("/credits/customer/" + randomCustomerId()));
+        }
+    }
+
+    private Mono<Void> create() {
+        String body = String.format(Locale.ROOT,
+                "{\"customerId\":\"%s\",\"customerType\":\"BUSINESS\",\"type\":\"BUSINESS\","
+                        + "\"amount\":1000000.00,\"interestRate\":12.5,\"term\":24}", randomCustomerId());
+        HttpClient.ResponseReceiver<?> request = httpClient
+                .headers(headers -> headers.set(HttpHeaderNames.CONTENT_TYPE, HttpHeaderValues.APPLICATION_JSON))
+                .post()
+                .uri("/credits")
+                .send(ByteBufFlux.fromString(Mono.just(body)));
+        return exchange(Endpoint.CREATE, request)
+                .doOnNext(response -> {
+                    if (response.status == 201 || response.status == 200) {
+                        rememberCreditId(response.body);
+                    }
+                })
+                .then();
+    }
+
+    private Mono<Void> timed(Endpoint endpoint, HttpClient.ResponseReceiver<?> request) {
+        return exchange(endpoint, request).then();
+    }
+
+    // Mide desde el envío hasta leer el cuerpo completo de la respuesta
+    private Mono<Response> exchange(Endpoint endpoint, HttpClient.ResponseReceiver<?> request) {
+        return Mono.defer(() -> {
+            long start = System.nanoTime();
+            return request
+                    .responseSingle((response, body) -> body.asString()
+                            .defaultIfEmpty("")
+                            .map(content -> new Response(response.status().code(), content)))
+                    .onErrorResume(e -> Mono.just(new Response(0, "")))
+                    .doOnNext(response -> report.record(endpoint, System.nanoTime() - start, response.status));
+        });
+    }
+
+    private void rememberCreditId(String body) {
+        try {
+            JsonNode id = objectMapper.readTree(body).get("id");
+            if (id != null) {
+                long slot = createdCredits.getAndIncrement();
+                creditIds.set((int) (slot % CREDIT_ID_CAPACITY), id.asText());
+            }
+        } catch (Exception e) {
+            // Una respuesta ilegible ya cuenta como creación; solo no se reutiliza su ID
+        }
+    }
+
+    private String randomCreditId() {
+        long created = Math.min(createdCredits.get(), CREDIT_ID_CAPACITY);
+        String id = creditIds.get(ThreadLocalRandom.current().nextInt((int) created));
+        // Un slot reservado pero aún sin ID se resuelve con el primero, que siempre existe
+        return id != null ? id : creditIds.get(0);
+    }
+
+    private String randomCustomerId() {
+        return "loadtest-customer-" + ThreadLocalRandom.current().nextInt(settings.customers);
+    }
+
+    // Una entrada por unidad de peso: se elige el endpoint con un solo número aleatorio
+    private static Endpoint[] buildMixTable(Map<Endpoint, Integer> mix) {
+        int total = mix.values().stream().mapToInt(Integer::intValue).sum();
+        Endpoint[] table = new Endpoint[total];
+        int position = 0;
+        for (Map.Entry<Endpoint, Integer> entry : mix.entrySet()) {
+            for (int i = 0; i < entry.getValue(); i++) {
+                table[position++] = entry.getKey();
+            }
+        }
+        return table;
+    }
+
+    private static final class Response {
+        private final int status;
+        private final String body;
+
+        private Response(int status, String body) {
+            this.status = status;
+            this.body = body;
+        }
+    }
+}
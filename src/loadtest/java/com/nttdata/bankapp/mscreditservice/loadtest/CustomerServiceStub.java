@@ -0,0 +1,40 @@
+package com.nttdata.bankapp.mscreditservice.loadtest;
+
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpHeaderValues;
+import reactor.core.publisher.Mono;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+
+import java.time.Duration;
+
+/**
+ * Doble del microservicio de clientes: responde GET /customers/{id} con un cliente empresarial
+ * después de una latencia fija, para que las creaciones no dependan de un servicio real.
+ */
+final class CustomerServiceStub implements AutoCloseable {
+
+    private final DisposableServer server;
+
+    CustomerServiceStub(Duration latency) {
+        this.server = HttpServer.create()
+                .host("localhost")
+                .port(0)
+                .route(routes -> routes.get("/customers/{id}", (request, response) -> {
+                    String json = "{\"id\":\"" + request.param("id") + "\",\"type\":\"BUSINESS\"}";
+                    return response
+                            .header(HttpHeaderNames.CONTENT_TYPE, HttpHeaderValues.APPLICATION_JSON)
+                            .sendString(Mono.delay(latency).thenReturn(json));
+                }))
+                .bindNow();
+    }
+
+    String baseUrl() {
+        return "http://localhost:" + server.port();
+    }
+
+    @Override
+    public void close() {
+        server.disposeNow();
+    }
+}
@@ -0,0 +1,17 @@
+package com.nttdata.bankapp.mscreditservice.loadtest;
+
+/**
+ * Operaciones de la mezcla de tráfico del load test.
+ */
+enum Endpoint {
+    CREATE("POST /credits"),
+    BALANCE("GET /credits/{id}/balance"),
+    PAYMENT("PUT /credits/{id}/payment"),
+    LIST("GET /credits/customer/{customerId}");
+
+    final String route;
+
+    Endpoint(String route) {
+        this.route = route;
+    }
+}
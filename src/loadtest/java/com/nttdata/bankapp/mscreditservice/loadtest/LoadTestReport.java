@@ -0,0 +1,120 @@
+package com.nttdata.bankapp.mscreditservice.loadtest;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latencias y resultados por endpoint durante la ventana de medición.
+ * Las latencias se registran en microsegundos y se reportan en milisegundos.
+ */
+final class LoadTestReport {
+
+    private static final long MAX_LATENCY_MICROS = TimeUnit.MINUTES.toMicros(1);
+
+    private final Map<Endpoint, EndpointStats> stats = new EnumMap<>(Endpoint.class);
+    private volatile boolean recording;
+    private long startNanos;
+    private long endNanos;
+
+    LoadTestReport() {
+        for (Endpoint endpoint : Endpoint.values()) {
+            stats.put(endpoint, new EndpointStats());
+        }
+    }
+
+    void start() {
+        startNanos = System.nanoTime();
+        recording = true;
+    }
+
+    void stop() {
+        recording = false;
+        endNanos = System.nanoTime();
+    }
+
+    /**
+     * Registra una respuesta; se ignora fuera de la ventana de medición (calentamiento).
+     * @param status código HTTP, o 0 si la petición falló sin respuesta
+     */
+    void record(Endpoint endpoint, long latencyNanos, int status) {
+        if (!recording) {
+            return;
+        }
+        EndpointStats endpointStats = stats.get(endpoint);
+        endpointStats.histogram.recordValue(Math.min(TimeUnit.NANOSECONDS.toMicros(latencyNanos), MAX_LATENCY_MICROS));
+        endpointStats.statuses.computeIfAbsent(status, code -> new LongAdder()).increment();
+        if (status < 200 || status >= 300) {
+            endpointStats.errors.increment();
+        }
+    }
+
+    /**
+     * Escribe el resumen (texto y CSV) y la distribución completa de percentiles por endpoint.
+     * @return resumen en texto
+     */
+    String write(Path outputDir, LoadTestSettings settings) throws IOException {
+        Files.createDirectories(outputDir);
+        double seconds = Math.max(endNanos - startNanos, 1) / 1e9;
+
+        StringBuilder text = new StringBuilder();
+        StringBuilder csv = new StringBuilder("endpoint,requests,errors,throughput_rps,p50_ms,p90_ms,p99_ms,p999_ms,max_ms\n");
+        text.append("Settings: ").append(settings).append('\n')
+                .append(String.format(Locale.ROOT, "Measured window: %.1f s%n%n", seconds))
+                .append(String.format(Locale.ROOT, "%-36s %9s %7s %10s %9s %9s %9s %9s %9s%n",
+                        "endpoint", "requests", "errors", "req/s", "p50 ms", "p90 ms", "p99 ms", "p999 ms", "max ms"));
+
+        long totalRequests = 0;
+        for (Map.Entry<Endpoint, EndpointStats> entry : stats.entrySet()) {
+            Endpoint endpoint = entry.getKey();
+            Histogram histogram = entry.getValue().histogram;
+            long requests = histogram.getTotalCount();
+            long errors = entry.getValue().errors.sum();
+            totalRequests += requests;
+            double throughput = requests / seconds;
+
+            text.append(String.format(Locale.ROOT, "%-36s %9d %7d %10.1f %9.2f %9.2f %9.2f %9.2f %9.2f%n",
+                    endpoint.route, requests, errors, throughput,
+                    millis(histogram, 50.0), millis(histogram, 90.0), millis(histogram, 99.0),
+                    millis(histogram, 99.9), histogram.getMaxValue() / 1000.0));
+            csv.append(String.format(Locale.ROOT, "%s,%d,%d,%.1f,%.3f,%.3f,%.3f,%.3f,%.3f%n",
+                    endpoint.name().toLowerCase(Locale.ROOT), requests, errors, throughput,
+                    millis(histogram, 50.0), millis(histogram, 90.0), millis(histogram, 99.0),
+                    millis(histogram, 99.9), histogram.getMaxValue() / 1000.0));
+
+            Path distribution = outputDir.resolve(endpoint.name().toLowerCase(Locale.ROOT) + ".hgrm");
+            try (PrintStream out = new PrintStream(Files.newOutputStream(distribution), true, StandardCharsets.UTF_8)) {
+                histogram.outputPercentileDistribution(out, 1000.0);
+            }
+        }
+        text.append(String.format(Locale.ROOT, "%nTotal: %d requests, %.1f req/s%n", totalRequests, totalRequests / seconds));
+        text.append("Status codes: ");
+        stats.forEach((endpoint, endpointStats) -> text.append(endpoint.name()).append(endpointStats.statuses).append(' '));
+        text.append('\n');
+
+        Files.writeString(outputDir.resolve("summary.txt"), text);
+        Files.writeString(outputDir.resolve("summary.csv"), csv);
+        return text.toString();
+    }
+
+    private static double millis(Histogram histogram, double percentile) {
+        return histogram.getValueAtPercentile(percentile) / 1000.0;
+    }
+
+    private static final class EndpointStats {
+        private final Histogram histogram = new ConcurrentHistogram(MAX_LATENCY_MICROS, 3);
+        private final LongAdder errors = new LongAdder();
+        private final Map<Integer, LongAdder> statuses = new ConcurrentHashMap<>();
+    }
+}
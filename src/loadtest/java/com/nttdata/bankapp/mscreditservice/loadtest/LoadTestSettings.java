@@ -0,0 +1,72 @@
+package com.nttdata.bankapp.mscreditservice.loadtest;
+
+import org.springframework.boot.convert.DurationStyle;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Parámetros del load test, leídos de propiedades del sistema (-Dloadtest.*).
+ */
+final class LoadTestSettings {
+
+    final Duration warmup;
+    final Duration duration;
+    final int concurrency;
+    final int customers;
+    final int seedCredits;
+    final Duration customerLatency;
+    // host:port de un MongoDB existente; vacío = contenedor efímero con Testcontainers
+    final String mongoAddress;
+    final String mongoDatabase;
+    final Path outputDir;
+    final Map<Endpoint, Integer> mix;
+
+    private LoadTestSettings() {
+        warmup = duration("loadtest.warmup", "15s");
+        duration = duration("loadtest.duration", "60s");
+        concurrency = Integer.getInteger("loadtest.concurrency", 64);
+        customers = Integer.getInteger("loadtest.customers", 200);
+        seedCredits = Integer.getInteger("loadtest.seed-credits", 1000);
+        customerLatency = duration("loadtest.customer-latency", "5ms");
+        mongoAddress = System.getProperty("loadtest.mongodb.address", "");
+        mongoDatabase = System.getProperty("loadtest.mongodb.database", "credits_loadtest");
+        outputDir = Paths.get(System.getProperty("loadtest.output", "target/loadtest"));
+        mix = parseMix(System.getProperty("loadtest.mix", "create:10,balance:55,payment:20,list:15"));
+    }
+
+    static LoadTestSettings fromSystemProperties() {
+        return new LoadTestSettings();
+    }
+
+    private static Duration duration(String key, String defaultValue) {
+        return DurationStyle.detectAndParse(System.getProperty(key, defaultValue));
+    }
+
+    // Formato endpoint:peso separado por comas, p. ej. "create:10,balance:90"
+    private static Map<Endpoint, Integer> parseMix(String mix) {
+        Map<Endpoint, Integer> weights = new EnumMap<>(Endpoint.class);
+        for (String entry : mix.split(",")) {
+            String[] parts = entry.trim().split(":");
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Invalid loadtest.mix entry: " + entry);
+            }
+            weights.put(Endpoint.valueOf(parts[0].trim().toUpperCase()), Integer.parseInt(parts[1].trim()));
+        }
+        if (weights.values().stream().mapToInt(Integer::intValue).sum() <= 0) {
+            throw new IllegalArgumentException("loadtest.mix must have a positive total weight");
+        }
+        return weights;
+    }
+
+    @Override
+    public String toString() {
+        return "warmup=" + warmup + ", duration=" + duration + ", concurrency=" + concurrency
+                + ", customers=" + customers + ", seedCredits=" + seedCredits
+                + ", customerLatency=" + customerLatency + ", mix=" + mix
+                + ", mongo=" + (mongoAddress.isEmpty() ? "testcontainers" : mongoAddress);
+    }
+}
@@ -1,5 +1,6 @@
 package com.example.mscreditservice.Exception;
 
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ExceptionHandler;
@@ -15,6 +16,24 @@ public class GlobalErrorHandler {
         return Mono.just(ResponseEntity.status(HttpStatus.BAD_REQUEST).body(response));
     }
 
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    public Mono<ResponseEntity<ErrorResponse>> handleOptimisticLockingFailure(OptimisticLockingFailureException ex) {
+        ErrorResponse response = new ErrorResponse("El crédito fue modificado concurrentemente. Intente nuevamente.", "CONCURRENT_MODIFICATION");
+        return Mono.just(ResponseEntity.status(HttpStatus.CONFLICT).body(response));
+    }
+
+    @ExceptionHandler(IdempotencyKeyInProgressException.class)
+    public Mono<ResponseEntity<ErrorResponse>> handleIdempotencyKeyInProgress(IdempotencyKeyInProgressException ex) {
+        ErrorResponse response = new ErrorResponse(ex.getMessage(), "IDEMPOTENCY_KEY_IN_PROGRESS");
+        return Mono.just(ResponseEntity.status(HttpStatus.CONFLICT).body(response));
+    }
+
+    @ExceptionHandler(IdempotencyKeyMismatchException.class)
+    public Mono<ResponseEntity<ErrorResponse>> handleIdempotencyKeyMismatch(IdempotencyKeyMismatchException ex) {
+        ErrorResponse response = new ErrorResponse(ex.getMessage(), "IDEMPOTENCY_KEY_MISMATCH");
+        return Mono.just(ResponseEntity.status(HttpStatus.UNPROCESSABLE_ENTITY).body(response));
+    }
+
     @ExceptionHandler(Exception.class)
     public Mono<ResponseEntity<ErrorResponse>> handleGenericException(Exception ex) {
         ErrorResponse response = new ErrorResponse("An unexpected error occurred", "INTERNAL_ERROR");
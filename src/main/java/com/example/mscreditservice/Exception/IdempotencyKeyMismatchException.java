@@ -0,0 +1,7 @@
+package com.example.mscreditservice.Exception;
+
+public class IdempotencyKeyMismatchException extends RuntimeException {
+    public IdempotencyKeyMismatchException(String message) {
+        super(message);
+    }
+}
@@ -2,9 +2,10 @@ package com.example.mscreditservice;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
-
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
 public class MsCreditServiceApplication {
 
 	public static void main(String[] args) {
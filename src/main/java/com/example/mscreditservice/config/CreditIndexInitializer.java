@@ -0,0 +1,41 @@
+package com.example.mscreditservice.config;
+
+import com.example.mscreditservice.model.Credit;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.index.PartialIndexFilter;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class CreditIndexInitializer {
+    public static final String OVERDUE_INDEX = "customerId_overdue_partial";
+
+    private final ReactiveMongoTemplate mongoTemplate;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        ensureIndexes().subscribe(
+                name -> log.info("Index {} ready on credits collection", name),
+                e -> log.error("Could not create credit indexes: {}", e.getMessage(), e));
+    }
+
+    // Las anotaciones no permiten índices parciales: solo se indexan los créditos vencidos,
+    // que son pocos, y sirve a hasOverdueDebt (findByCustomerIdAndOverdue con overdue = true)
+    public Mono<String> ensureIndexes() {
+        Index overdueIndex = new Index()
+                .on("customerId", Sort.Direction.ASC)
+                .on("overdue", Sort.Direction.ASC)
+                .named(OVERDUE_INDEX)
+                .partial(PartialIndexFilter.of(Criteria.where("overdue").is(true)));
+        return mongoTemplate.indexOps(Credit.class).ensureIndex(overdueIndex);
+    }
+}
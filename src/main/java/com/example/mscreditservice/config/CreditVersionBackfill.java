@@ -0,0 +1,36 @@
+package com.example.mscreditservice.config;
+
+import com.example.mscreditservice.model.Credit;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class CreditVersionBackfill implements ApplicationRunner {
+    private final ReactiveMongoTemplate mongoTemplate;
+
+    // Se ejecuta al iniciar y bloquea hasta terminar: sin versión, save() trata el crédito como nuevo
+    // e intenta un insert que falla por _id duplicado (payCredit, payThirdPartyCredit)
+    @Override
+    public void run(ApplicationArguments args) {
+        Long backfilled = backfill().block();
+        if (backfilled != null && backfilled > 0) {
+            log.info("Initialized version of {} credits", backfilled);
+        }
+    }
+
+    public Mono<Long> backfill() {
+        Query query = Query.query(Criteria.where("version").exists(false));
+        return mongoTemplate.updateMulti(query, new Update().set("version", 0L), Credit.class)
+                .map(result -> result.getModifiedCount());
+    }
+}
@@ -1,22 +1,32 @@
 package com.example.mscreditservice.controller;
 
 import com.example.mscreditservice.model.Credit;
+import com.example.mscreditservice.model.CreditPayment;
 import com.example.mscreditservice.model.CreditRequest;
+import com.example.mscreditservice.model.OverdueDebtQuery;
+import com.example.mscreditservice.model.OverdueDebtStatus;
 import com.example.mscreditservice.model.PaymentRequest;
 import com.example.mscreditservice.model.ThirdPartyPaymentRequest;
 import com.example.mscreditservice.service.CreditService;
+import com.example.mscreditservice.service.support.IdempotencyStore;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
-import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.web.bind.annotation.*;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.math.BigDecimal;
+import java.util.Objects;
+
 @RestController
 @RequestMapping("/api/credits")
 @RequiredArgsConstructor
 public class CreditController {
+    private static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+
     private final CreditService creditService;
+    private final IdempotencyStore idempotencyStore;
 
     @GetMapping("/customer/{customerId}")
     public Flux<Credit> getCreditsByCustomerId(@PathVariable String customerId) {
@@ -29,6 +39,25 @@ public class CreditController {
                 .map(hasOverdue -> ResponseEntity.ok(hasOverdue));
     }
 
+    // Consulta masiva: recibe un arreglo JSON (o NDJSON) de ids de cliente y responde, en el mismo orden,
+    // si cada uno tiene deuda vencida
+    @PostMapping(value = "/overdue-debt/query",
+            consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE},
+            produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public Flux<OverdueDebtStatus> queryOverdueDebt(@RequestBody Flux<OverdueDebtQuery> customerIds) {
+        // Un id nulo llega vacío y se informa como inválido en su elemento de la respuesta
+        return creditService.hasOverdueDebt(customerIds.map(query -> Objects.requireNonNullElse(query.getCustomerId(), "")));
+    }
+
+    // Historial de pagos en orden, paginado por la secuencia del último pago recibido
+    @GetMapping(value = "/{creditId}/payments", produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public Flux<CreditPayment> getPayments(
+            @PathVariable String creditId,
+            @RequestParam(required = false) Long after,
+            @RequestParam(required = false) Integer limit) {
+        return creditService.getPayments(creditId, after, limit);
+    }
+
     @PostMapping("/personal")
     public Mono<Credit> createPersonalCredit(@RequestBody CreditRequest request) {
         return creditService.createPersonalCredit(request);
@@ -39,27 +68,35 @@ public class CreditController {
         return creditService.createBusinessCredit(request);
     }
 
+    // Con Idempotency-Key, los reintentos de la misma petición devuelven el crédito del primer pago sin repetirlo
     @PostMapping("/{creditId}/pay")
-    public Mono<Credit> payCredit(@PathVariable String creditId, @RequestBody PaymentRequest paymentRequest) {
-        return creditService.payCredit(creditId, paymentRequest.getPaymentAmount());
+    public Mono<Credit> payCredit(
+            @PathVariable String creditId,
+            @RequestBody PaymentRequest paymentRequest,
+            @RequestHeader(value = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey) {
+        String fingerprint = creditId + ":" + amountKey(paymentRequest.getPaymentAmount());
+        return idempotencyStore.execute("payCredit", idempotencyKey, fingerprint, Credit.class,
+                () -> creditService.payCredit(creditId, paymentRequest.getPaymentAmount()));
     }
 
     @PostMapping("/{creditId}/pay-third-party")
     public Mono<ResponseEntity<Credit>> payThirdPartyCredit(
             @PathVariable String creditId,
-            @RequestBody ThirdPartyPaymentRequest paymentRequest) {
-        return creditService.payThirdPartyCredit(
-                        creditId,
-                        paymentRequest.getPayerCustomerId(),
-                        paymentRequest.getPaymentAmount())
+            @RequestBody ThirdPartyPaymentRequest paymentRequest,
+            @RequestHeader(value = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey) {
+        String fingerprint = creditId + ":" + paymentRequest.getPayerCustomerId()
+                + ":" + amountKey(paymentRequest.getPaymentAmount());
+        return idempotencyStore.execute("payThirdPartyCredit", idempotencyKey, fingerprint, Credit.class,
+                        () -> creditService.payThirdPartyCredit(
+                                creditId,
+                                paymentRequest.getPayerCustomerId(),
+                                paymentRequest.getPaymentAmount()))
                 .map(ResponseEntity::ok)
                 .defaultIfEmpty(ResponseEntity.notFound().build());
     }
 
-    // Actualizar estados vencidos diariamente a la medianoche
-    @Scheduled(cron = "0 0 0 * * *")
-    public void updateOverdueCredits() {
-        creditService.updateOverdueStatus().subscribe();
+    // 100, 100.0 y 100.00 son la misma petición
+    private static String amountKey(BigDecimal amount) {
+        return amount == null ? "-" : amount.stripTrailingZeros().toPlainString();
     }
 }
-
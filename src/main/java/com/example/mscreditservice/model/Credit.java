@@ -3,6 +3,9 @@ import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Version;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.math.BigDecimal;
@@ -12,6 +15,13 @@ import java.time.LocalDate;
 @AllArgsConstructor
 @NoArgsConstructor
 @Document(collection = "credits")
+@CompoundIndexes({
+        // findByCustomerId y findByCustomerIdAndCreditTypeAndStatus (conteo de créditos activos por tipo)
+        @CompoundIndex(name = "customerId_creditType_status", def = "{'customerId': 1, 'creditType': 1, 'status': 1}"),
+        // findByStatusAndDueDateBefore y el barrido de vencidos
+        @CompoundIndex(name = "status_dueDate", def = "{'status': 1, 'dueDate': 1}")
+})
+// El índice parcial de créditos vencidos (customerId + overdue) se crea en CreditIndexInitializer
 public class Credit {
     @Id
     private String id;
@@ -24,6 +34,8 @@ public class Credit {
     private boolean overdue;
     private String lastPaymentBy; // ID del cliente que hizo el último pago (para pagos de terceros)
     private LocalDate lastPaymentDate;
+    @Version
+    private Long version; // Control de concurrencia optimista
 
     public Credit(String id, String creditType, String customerId, BigDecimal amount,
                   BigDecimal outstandingBalance, String status) {
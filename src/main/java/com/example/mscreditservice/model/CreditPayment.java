@@ -0,0 +1,31 @@
+package com.example.mscreditservice.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Document(collection = "credit_payments")
+// Libro de pagos de solo inserción. La versión del crédito tras el pago identifica la entrada (un reintento
+// no la duplica) y ordena el historial paginado por clave
+@CompoundIndex(name = "creditId_sequence", def = "{'creditId': 1, 'sequence': 1}", unique = true)
+public class CreditPayment {
+    @Id
+    private String id;
+    private String creditId;
+    private long sequence; // Versión del crédito después del pago
+    private String payerCustomerId; // Cliente que pagó: el titular o un tercero
+    private BigDecimal amount;
+    private BigDecimal outstandingBalance; // Saldo del crédito después del pago
+    private LocalDateTime paidAt;
+}
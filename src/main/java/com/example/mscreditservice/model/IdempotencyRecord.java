@@ -0,0 +1,27 @@
+package com.example.mscreditservice.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Document(collection = "idempotency_keys")
+// Reserva de una Idempotency-Key y, al terminar, la respuesta guardada; MongoDB lo elimina al llegar a expireAt
+public class IdempotencyRecord {
+    @Id
+    private String id; // operación:clave
+    private String fingerprint; // Identifica la petición original
+    private String status; // IN_PROGRESS o COMPLETED
+    private String response; // JSON de la respuesta, solo si status es COMPLETED
+    @Indexed(name = "expireAt_ttl", expireAfterSeconds = 0)
+    private Instant expireAt;
+}
@@ -0,0 +1,15 @@
+package com.example.mscreditservice.model;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import lombok.Value;
+
+// Elemento de la consulta masiva de deuda vencida: se recibe como un string JSON con el id del cliente
+@Value
+public class OverdueDebtQuery {
+    String customerId;
+
+    @JsonCreator(mode = JsonCreator.Mode.DELEGATING)
+    public OverdueDebtQuery(String customerId) {
+        this.customerId = customerId;
+    }
+}
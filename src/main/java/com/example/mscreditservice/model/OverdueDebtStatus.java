@@ -0,0 +1,25 @@
+package com.example.mscreditservice.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class OverdueDebtStatus {
+    private String customerId;
+    // Vacío cuando el elemento de la consulta no es válido
+    private Boolean hasOverdueDebt;
+    private String error;
+
+    public OverdueDebtStatus(String customerId, boolean hasOverdueDebt) {
+        this(customerId, hasOverdueDebt, null);
+    }
+
+    public static OverdueDebtStatus invalid(String customerId, String error) {
+        return new OverdueDebtStatus(customerId, null, error);
+    }
+}
@@ -0,0 +1,12 @@
+package com.example.mscreditservice.repository;
+
+import com.example.mscreditservice.model.CreditPayment;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+import reactor.core.publisher.Flux;
+
+public interface CreditPaymentRepository extends ReactiveMongoRepository<CreditPayment, String> {
+    // Paginación por clave sobre (creditId, sequence), sin skip
+    Flux<CreditPayment> findByCreditIdOrderBySequenceAsc(String creditId, Pageable pageable);
+    Flux<CreditPayment> findByCreditIdAndSequenceGreaterThanOrderBySequenceAsc(String creditId, long sequence, Pageable pageable);
+}
@@ -7,7 +7,7 @@ import reactor.core.publisher.Flux;
 
 import java.time.LocalDate;
 
-public interface CreditRepository extends ReactiveMongoRepository<Credit, String> {
+public interface CreditRepository extends ReactiveMongoRepository<Credit, String>, CreditRepositoryCustom {
     Flux<Credit> findByCustomerId(String customerId);
     Flux<Credit> findByCustomerIdAndCreditTypeAndStatus(String customerId, String creditType, String status);
     Flux<Credit> findByCustomerIdAndOverdue(String customerId, boolean overdue);
@@ -0,0 +1,27 @@
+package com.example.mscreditservice.repository;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import com.example.mscreditservice.model.Credit;
+
+import java.time.LocalDate;
+import java.util.Collection;
+
+public interface CreditRepositoryCustom {
+    // IDs de créditos activos con fecha de vencimiento pasada que aún no están marcados como vencidos
+    Flux<String> findOverdueCandidateIds(LocalDate today, int limit);
+
+    // Marca como vencidos los créditos indicados en una sola operación updateMany
+    Mono<Long> markOverdue(Collection<String> ids, LocalDate today);
+
+    // Clientes con al menos un crédito vencido (distinct sobre el índice parcial de vencidos)
+    Flux<String> findOverdueCustomerIds();
+
+    // De los clientes indicados, los que tienen al menos un crédito vencido
+    Flux<String> findOverdueCustomerIdsIn(Collection<String> customerIds);
+
+    // Guarda el estado de pago de un lote de pagos en una sola actualización condicionada a la versión leída;
+    // la versión avanza una vez por pago para que cada uno conserve su propia secuencia en el libro
+    Mono<Void> applyPayments(Credit credit, long expectedVersion, int payments);
+}
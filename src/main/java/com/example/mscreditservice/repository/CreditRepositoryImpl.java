@@ -0,0 +1,81 @@
+package com.example.mscreditservice.repository;
+
+import com.example.mscreditservice.model.Credit;
+import com.mongodb.client.result.UpdateResult;
+import lombok.RequiredArgsConstructor;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDate;
+import java.util.Collection;
+
+@RequiredArgsConstructor
+public class CreditRepositoryImpl implements CreditRepositoryCustom {
+    private final ReactiveMongoTemplate mongoTemplate;
+
+    @Override
+    public Flux<String> findOverdueCandidateIds(LocalDate today, int limit) {
+        Query query = Query.query(overdueCandidates(today)).limit(limit);
+        query.fields().include("id");
+        return mongoTemplate.find(query, Credit.class)
+                .map(Credit::getId);
+    }
+
+    @Override
+    public Mono<Long> markOverdue(Collection<String> ids, LocalDate today) {
+        // Se repiten las condiciones para no marcar créditos pagados entre la lectura y la actualización
+        Query query = Query.query(overdueCandidates(today).and("id").in(ids));
+        Update update = new Update()
+                .set("overdue", true)
+                .inc("version", 1);
+        return mongoTemplate.updateMulti(query, update, Credit.class)
+                .map(UpdateResult::getModifiedCount);
+    }
+
+    @Override
+    public Flux<String> findOverdueCustomerIds() {
+        return mongoTemplate.findDistinct(Query.query(Criteria.where("overdue").is(true)),
+                "customerId", Credit.class, String.class);
+    }
+
+    @Override
+    public Flux<String> findOverdueCustomerIdsIn(Collection<String> customerIds) {
+        // overdue = true primero para que la consulta use el índice parcial customerId_overdue_partial
+        return mongoTemplate.findDistinct(Query.query(Criteria.where("overdue").is(true).and("customerId").in(customerIds)),
+                "customerId", Credit.class, String.class);
+    }
+
+    @Override
+    public Mono<Void> applyPayments(Credit credit, long expectedVersion, int payments) {
+        // La versión 0 también coincide con un documento sin el campo (créditos anteriores a @Version)
+        Criteria version = expectedVersion == 0
+                ? Criteria.where("version").in(0L, null)
+                : Criteria.where("version").is(expectedVersion);
+        Query query = Query.query(Criteria.where("id").is(credit.getId()).andOperator(version));
+        Update update = new Update()
+                .set("outstandingBalance", credit.getOutstandingBalance())
+                .set("status", credit.getStatus())
+                .set("overdue", credit.isOverdue())
+                .set("dueDate", credit.getDueDate())
+                .set("lastPaymentBy", credit.getLastPaymentBy())
+                .set("lastPaymentDate", credit.getLastPaymentDate())
+                .inc("version", payments);
+        // Sin coincidencia otra escritura cambió la versión: se reporta igual que un save() versionado
+        return mongoTemplate.updateFirst(query, update, Credit.class)
+                .flatMap(result -> result.getMatchedCount() == 0
+                        ? Mono.error(new OptimisticLockingFailureException(
+                                "Credit " + credit.getId() + " was modified after version " + expectedVersion))
+                        : Mono.empty());
+    }
+
+    private Criteria overdueCandidates(LocalDate today) {
+        return Criteria.where("status").is("ACTIVE")
+                .and("dueDate").lt(today)
+                .and("overdue").is(false);
+    }
+}
@@ -0,0 +1,7 @@
+package com.example.mscreditservice.repository;
+
+import com.example.mscreditservice.model.IdempotencyRecord;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+
+public interface IdempotencyRecordRepository extends ReactiveMongoRepository<IdempotencyRecord, String> {
+}
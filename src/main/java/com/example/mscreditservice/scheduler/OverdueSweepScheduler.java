@@ -0,0 +1,56 @@
+package com.example.mscreditservice.scheduler;
+
+import com.example.mscreditservice.service.CreditService;
+import com.example.mscreditservice.service.support.OverdueCustomerIndex;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class OverdueSweepScheduler {
+    private final CreditService creditService;
+    private final OverdueCustomerIndex overdueCustomerIndex;
+    private final MeterRegistry meterRegistry;
+    private final AtomicBoolean running = new AtomicBoolean(false);
+    private final AtomicBoolean refreshing = new AtomicBoolean(false);
+
+    // Actualizar estados vencidos diariamente a la medianoche
+    @Scheduled(cron = "${app.overdue-sweep.cron:0 0 0 * * *}")
+    public void sweepOverdueCredits() {
+        // Evita que dos barridos se solapen si uno tarda más que el intervalo
+        if (!running.compareAndSet(false, true)) {
+            log.warn("Overdue sweep still running, skipping this execution");
+            return;
+        }
+
+        Timer.Sample sample = Timer.start(meterRegistry);
+        creditService.updateOverdueStatus()
+                .doFinally(signal -> {
+                    sample.stop(meterRegistry.timer("credit.overdue-sweep.duration", "outcome", signal.name()));
+                    running.set(false);
+                })
+                .subscribe(
+                        updated -> log.info("Overdue sweep finished, {} credits marked as overdue", updated),
+                        e -> log.error("Overdue sweep failed: {}", e.getMessage(), e));
+    }
+
+    // Carga el índice de clientes vencidos al iniciar y lo refresca para ver lo que marcó otra réplica
+    @Scheduled(fixedDelayString = "${app.overdue-index.refresh-interval:PT5M}")
+    public void refreshOverdueIndex() {
+        if (!refreshing.compareAndSet(false, true)) {
+            return;
+        }
+        overdueCustomerIndex.rebuild()
+                .doFinally(signal -> refreshing.set(false))
+                .subscribe(
+                        customers -> log.debug("Overdue index refreshed, {} customers with overdue credits", customers),
+                        e -> log.warn("Could not refresh overdue index: {}", e.getMessage()));
+    }
+}
@@ -1,7 +1,9 @@
 package com.example.mscreditservice.service;
 
 import com.example.mscreditservice.model.Credit;
+import com.example.mscreditservice.model.CreditPayment;
 import com.example.mscreditservice.model.CreditRequest;
+import com.example.mscreditservice.model.OverdueDebtStatus;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
@@ -13,6 +15,8 @@ public interface CreditService {
     Mono<Credit> createBusinessCredit(CreditRequest request);
     Mono<Credit> payCredit(String creditId, BigDecimal paymentAmount);
     Mono<Credit> payThirdPartyCredit(String creditId, String payerCustomerId, BigDecimal paymentAmount);
+    Flux<CreditPayment> getPayments(String creditId, Long after, Integer limit);
     Mono<Boolean> hasOverdueDebt(String customerId);
-    Mono<Void> updateOverdueStatus();
+    Flux<OverdueDebtStatus> hasOverdueDebt(Flux<String> customerIds);
+    Mono<Long> updateOverdueStatus();
 }
\ No newline at end of file
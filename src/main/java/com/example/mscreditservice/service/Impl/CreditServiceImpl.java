@@ -2,24 +2,57 @@ package com.example.mscreditservice.service.Impl;
 
 import com.example.mscreditservice.Exception.BusinessException;
 import com.example.mscreditservice.model.Credit;
+import com.example.mscreditservice.model.CreditPayment;
 import com.example.mscreditservice.model.CreditRequest;
+import com.example.mscreditservice.model.OverdueDebtStatus;
+import com.example.mscreditservice.repository.CreditPaymentRepository;
 import com.example.mscreditservice.repository.CreditRepository;
 import com.example.mscreditservice.service.CreditService;
+import com.example.mscreditservice.service.support.OptimisticLockRetry;
+import com.example.mscreditservice.service.support.OverdueCustomerIndex;
+import com.example.mscreditservice.service.support.PaymentCoalescer;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.util.function.Tuple2;
+import reactor.util.function.Tuples;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
 import java.util.UUID;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
+@Slf4j
 public class CreditServiceImpl implements CreditService {
     private final CreditRepository creditRepository;
+    private final CreditPaymentRepository creditPaymentRepository;
+    private final OptimisticLockRetry optimisticLockRetry;
+    private final PaymentCoalescer paymentCoalescer;
+    private final OverdueCustomerIndex overdueCustomerIndex;
+    private final MeterRegistry meterRegistry;
     private static final int MAX_PERSONAL_CREDITS = 1;
 
+    private static final int OVERDUE_QUERY_CONCURRENCY = 4;
+
+    @Value("${app.overdue-sweep.batch-size:1000}")
+    private int overdueBatchSize;
+
+    @Value("${app.overdue-debt-query.chunk-size:500}")
+    private int overdueQueryChunkSize;
+
     @Override
     public Flux<Credit> getCreditsByCustomerId(String customerId) {
         return creditRepository.findByCustomerId(customerId);
@@ -103,88 +136,223 @@ public class CreditServiceImpl implements CreditService {
 
     @Override
     public Mono<Credit> payCredit(String creditId, BigDecimal paymentAmount) {
-        return creditRepository.findById(creditId)
+        if (paymentCoalescer.isEnabled()) {
+            return Mono.defer(() -> paymentCoalescer.submit(creditId, null, paymentAmount, this::applyPaymentBatch));
+        }
+        return optimisticLockRetry.apply("payCredit", creditRepository.findById(creditId)
                 .flatMap(credit -> {
-                    BigDecimal outstandingBalance = credit.getOutstandingBalance();
-
                     // Validación: Pago excede la deuda
-                    if (paymentAmount.compareTo(outstandingBalance) > 0) {
+                    if (!applyPayment(credit, null, paymentAmount)) {
                         return Mono.error(new IllegalStateException("El pago excede el saldo pendiente."));
                     }
-
-                    // Actualizar saldo
-                    BigDecimal newBalance = outstandingBalance.subtract(paymentAmount);
-                    credit.setOutstandingBalance(newBalance);
-
-                    // Si hay pago y estaba vencido, actualizar estado
-                    if (credit.isOverdue()) {
-                        credit.setOverdue(false);
-                        // Establecer nueva fecha de vencimiento un mes después
-                        credit.setDueDate(LocalDate.now().plusMonths(1));
-                    }
-
-                    // Si el saldo llega a 0, cambiar estado a PAID
-                    if (newBalance.compareTo(BigDecimal.ZERO) == 0) {
-                        credit.setStatus("PAID");
-                    }
-
                     return creditRepository.save(credit);
                 })
-                .switchIfEmpty(Mono.error(new IllegalArgumentException("Crédito no encontrado con id: " + creditId)));
+                .switchIfEmpty(Mono.error(new IllegalArgumentException("Crédito no encontrado con id: " + creditId))))
+                // Fuera del reintento: la entrada se agrega una sola vez, con la versión que quedó guardada
+                .flatMap(saved -> appendPayment(saved, saved.getCustomerId(), paymentAmount))
+                .flatMap(this::refreshOverdue);
     }
 
     @Override
     public Mono<Credit> payThirdPartyCredit(String creditId, String payerCustomerId, BigDecimal paymentAmount) {
-        return creditRepository.findById(creditId)
+        if (paymentCoalescer.isEnabled()) {
+            return Mono.defer(() -> paymentCoalescer.submit(creditId, payerCustomerId, paymentAmount, this::applyPaymentBatch));
+        }
+        return optimisticLockRetry.apply("payThirdPartyCredit", creditRepository.findById(creditId)
                 .flatMap(credit -> {
-                    BigDecimal outstandingBalance = credit.getOutstandingBalance();
-
                     // Validación: Pago excede la deuda
-                    if (paymentAmount.compareTo(outstandingBalance) > 0) {
+                    if (!applyPayment(credit, payerCustomerId, paymentAmount)) {
                         return Mono.error(new IllegalStateException("El pago excede el saldo pendiente."));
                     }
+                    return creditRepository.save(credit);
+                })
+                .switchIfEmpty(Mono.error(new IllegalArgumentException("Crédito no encontrado con id: " + creditId))))
+                .flatMap(saved -> appendPayment(saved, payerCustomerId, paymentAmount))
+                .flatMap(this::refreshOverdue);
+    }
+
+    // Aplica en memoria los pagos de un lote, en orden de llegada, y los guarda con una sola actualización.
+    // Un pago que excede el saldo falla solo para su llamador; los demás reciben el crédito después de su pago
+    private Mono<Void> applyPaymentBatch(String creditId, List<PaymentCoalescer.PendingPayment> payments) {
+        return optimisticLockRetry.apply("payCreditBatch", creditRepository.findById(creditId)
+                .switchIfEmpty(Mono.error(new IllegalArgumentException("Crédito no encontrado con id: " + creditId)))
+                .flatMap(credit -> {
+                    // Un crédito guardado antes de @Version no tiene versión: se trata como la versión 0
+                    long version = credit.getVersion() == null ? 0L : credit.getVersion();
+                    // Estado del crédito después de cada pago, null si el pago fue rechazado
+                    List<Credit> results = new ArrayList<>(payments.size());
+                    int accepted = 0;
+                    for (PaymentCoalescer.PendingPayment payment : payments) {
+                        if (applyPayment(credit, payment.getPayerCustomerId(), payment.getAmount())) {
+                            accepted++;
+                            Credit result = copyOf(credit);
+                            result.setVersion(version + accepted);
+                            results.add(result);
+                        } else {
+                            results.add(null);
+                        }
+                    }
+                    if (accepted == 0) {
+                        return Mono.just(results);
+                    }
+                    return creditRepository.applyPayments(credit, version, accepted).thenReturn(results);
+                }))
+                // Fuera del reintento, igual que en un pago individual
+                .flatMapMany(results -> Flux.range(0, payments.size())
+                        .flatMap(i -> {
+                            PaymentCoalescer.PendingPayment payment = payments.get(i);
+                            Credit result = results.get(i);
+                            if (result == null) {
+                                payment.fail(new IllegalStateException("El pago excede el saldo pendiente."));
+                                return Mono.empty();
+                            }
+                            String payer = payment.getPayerCustomerId() != null
+                                    ? payment.getPayerCustomerId()
+                                    : result.getCustomerId();
+                            return appendPayment(result, payer, payment.getAmount())
+                                    .doOnNext(payment::succeed);
+                        })
+                        // Todos los pagos son del mismo crédito: basta con revisar al titular una vez
+                        .takeLast(1)
+                        .flatMap(this::refreshOverdue))
+                .then();
+    }
 
-                    // Registrar información de pagador de terceros
-                    credit.setLastPaymentBy(payerCustomerId);
-                    credit.setLastPaymentDate(LocalDate.now());
+    // Un pago puede dejar al titular sin créditos vencidos
+    private Mono<Credit> refreshOverdue(Credit saved) {
+        return overdueCustomerIndex.onPayment(saved.getCustomerId()).thenReturn(saved);
+    }
 
-                    // Actualizar saldo
-                    BigDecimal newBalance = outstandingBalance.subtract(paymentAmount);
-                    credit.setOutstandingBalance(newBalance);
+    // Aplica un pago sobre el crédito en memoria; retorna false si el pago excede el saldo pendiente
+    private static boolean applyPayment(Credit credit, String thirdPartyPayerId, BigDecimal paymentAmount) {
+        BigDecimal outstandingBalance = credit.getOutstandingBalance();
+        if (paymentAmount.compareTo(outstandingBalance) > 0) {
+            return false;
+        }
 
-                    // Si hay pago y estaba vencido, actualizar estado
-                    if (credit.isOverdue()) {
-                        credit.setOverdue(false);
-                        // Establecer nueva fecha de vencimiento un mes después
-                        credit.setDueDate(LocalDate.now().plusMonths(1));
-                    }
+        // Registrar información de pagador de terceros
+        if (thirdPartyPayerId != null) {
+            credit.setLastPaymentBy(thirdPartyPayerId);
+            credit.setLastPaymentDate(LocalDate.now());
+        }
 
-                    // Si el saldo llega a 0, cambiar estado a PAID
-                    if (newBalance.compareTo(BigDecimal.ZERO) == 0) {
-                        credit.setStatus("PAID");
-                    }
+        // Actualizar saldo
+        BigDecimal newBalance = outstandingBalance.subtract(paymentAmount);
+        credit.setOutstandingBalance(newBalance);
 
-                    return creditRepository.save(credit);
+        // Si hay pago y estaba vencido, actualizar estado
+        if (credit.isOverdue()) {
+            credit.setOverdue(false);
+            // Establecer nueva fecha de vencimiento un mes después
+            credit.setDueDate(LocalDate.now().plusMonths(1));
+        }
+
+        // Si el saldo llega a 0, cambiar estado a PAID
+        if (newBalance.compareTo(BigDecimal.ZERO) == 0) {
+            credit.setStatus("PAID");
+        }
+        return true;
+    }
+
+    private static Credit copyOf(Credit credit) {
+        return new Credit(credit.getId(), credit.getCreditType(), credit.getCustomerId(), credit.getAmount(),
+                credit.getOutstandingBalance(), credit.getStatus(), credit.getDueDate(), credit.isOverdue(),
+                credit.getLastPaymentBy(), credit.getLastPaymentDate(), credit.getVersion());
+    }
+
+    @Override
+    public Flux<CreditPayment> getPayments(String creditId, Long after, Integer limit) {
+        if (limit != null && limit <= 0) {
+            return Flux.error(new BusinessException("El límite debe ser mayor a 0."));
+        }
+        Pageable pageable = limit == null ? Pageable.unpaged() : PageRequest.of(0, limit);
+        return after == null
+                ? creditPaymentRepository.findByCreditIdOrderBySequenceAsc(creditId, pageable)
+                : creditPaymentRepository.findByCreditIdAndSequenceGreaterThanOrderBySequenceAsc(creditId, after, pageable);
+    }
+
+    // El pago ya quedó aplicado: si la entrada no se puede insertar se registra y se responde igual
+    private Mono<Credit> appendPayment(Credit saved, String payerCustomerId, BigDecimal paymentAmount) {
+        CreditPayment payment = CreditPayment.builder()
+                .creditId(saved.getId())
+                .sequence(saved.getVersion())
+                .payerCustomerId(payerCustomerId)
+                .amount(paymentAmount)
+                .outstandingBalance(saved.getOutstandingBalance())
+                .paidAt(LocalDateTime.now())
+                .build();
+        return creditPaymentRepository.insert(payment)
+                .doOnError(e -> {
+                    log.warn("Could not append payment {} of credit {} to the ledger: {}",
+                            payment.getSequence(), payment.getCreditId(), e.getMessage());
+                    meterRegistry.counter("credit.ledger.append.failures").increment();
                 })
-                .switchIfEmpty(Mono.error(new IllegalArgumentException("Crédito no encontrado con id: " + creditId)));
+                .onErrorResume(e -> Mono.empty())
+                .thenReturn(saved);
     }
 
     @Override
     public Mono<Boolean> hasOverdueDebt(String customerId) {
-        // Buscar todos los créditos activos del cliente que estén marcados como vencidos
-        return creditRepository.findByCustomerIdAndOverdue(customerId, true)
-                .hasElements();
+        // Índice en memoria; los clientes que figuran como vencidos se confirman en MongoDB
+        return overdueCustomerIndex.hasOverdueDebt(customerId);
     }
 
     @Override
-    public Mono<Void> updateOverdueStatus() {
+    public Flux<OverdueDebtStatus> hasOverdueDebt(Flux<String> customerIds) {
+        // Por bloques: una consulta $in por bloque, solo con los clientes que el índice en memoria no descarta.
+        // Se responde un resultado por id recibido, en el mismo orden
+        return customerIds
+                .buffer(overdueQueryChunkSize)
+                .flatMapSequential(this::overdueDebtChunk, OVERDUE_QUERY_CONCURRENCY);
+    }
+
+    private Flux<OverdueDebtStatus> overdueDebtChunk(List<String> chunk) {
+        Set<String> candidates = new HashSet<>();
+        for (String customerId : chunk) {
+            // El índice solo descarta clientes mientras su lectura es posterior al último barrido
+            if (isCustomerId(customerId) && overdueCustomerIndex.mightBeOverdue(customerId)) {
+                candidates.add(customerId);
+            }
+        }
+        Mono<Set<String>> overdue = candidates.isEmpty()
+                ? Mono.just(Set.of())
+                : creditRepository.findOverdueCustomerIdsIn(candidates).collect(Collectors.toSet());
+        // La respuesta ya empezó a enviarse: un id inválido se informa en su elemento sin cortar el resto
+        return overdue.flatMapIterable(overdueIds -> chunk.stream()
+                .map(customerId -> isCustomerId(customerId)
+                        ? new OverdueDebtStatus(customerId, overdueIds.contains(customerId))
+                        : OverdueDebtStatus.invalid(customerId, "El elemento de la consulta debe ser un id de cliente."))
+                .collect(Collectors.toList()));
+    }
+
+    private static boolean isCustomerId(String customerId) {
+        return customerId != null && !customerId.isBlank();
+    }
+
+    @Override
+    public Mono<Long> updateOverdueStatus() {
         LocalDate today = LocalDate.now();
 
-        return creditRepository.findByStatusAndDueDateBefore("ACTIVE", today)
-                .flatMap(credit -> {
-                    credit.setOverdue(true);
-                    return creditRepository.save(credit);
-                })
-                .then();
+        // Barrido por lotes: cada lote es un updateMany en el servidor; termina cuando un lote viene incompleto
+        return markOverdueBatch(today)
+                .expand(batch -> batch.getT1() < overdueBatchSize ? Mono.empty() : markOverdueBatch(today))
+                .map(Tuple2::getT2)
+                .reduce(0L, Long::sum)
+                // El índice en memoria se reconstruye con los vencidos recién marcados
+                .flatMap(updated -> overdueCustomerIndex.rebuild().thenReturn(updated));
+    }
+
+    // Retorna la cantidad de candidatos del lote y la cantidad de créditos realmente actualizados
+    private Mono<Tuple2<Integer, Long>> markOverdueBatch(LocalDate today) {
+        return creditRepository.findOverdueCandidateIds(today, overdueBatchSize)
+                .collectList()
+                .flatMap(ids -> {
+                    if (ids.isEmpty()) {
+                        return Mono.just(Tuples.of(0, 0L));
+                    }
+                    return creditRepository.markOverdue(ids, today)
+                            .doOnNext(updated -> meterRegistry.counter("credit.overdue-sweep.updated").increment(updated))
+                            .map(updated -> Tuples.of(ids.size(), updated));
+                });
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,188 @@
+package com.example.mscreditservice.service.support;
+
+import com.example.mscreditservice.Exception.BusinessException;
+import com.example.mscreditservice.Exception.IdempotencyKeyInProgressException;
+import com.example.mscreditservice.Exception.IdempotencyKeyMismatchException;
+import com.example.mscreditservice.model.IdempotencyRecord;
+import com.example.mscreditservice.repository.IdempotencyRecordRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.function.Supplier;
+
+/**
+ * Ejecuta cada operación una sola vez por Idempotency-Key: la clave se reserva con un insert
+ * en MongoDB y la respuesta se guarda al terminar, con una caché local para los reintentos recientes.
+ * Solo se guardan respuestas exitosas; si la operación falla la clave se libera.
+ * La aplicación de /credits tiene su propia versión: cada una usa su IdempotencyRecord, sus excepciones y
+ * sus mensajes, y ninguna de las dos aplicaciones depende de la otra.
+ */
+@Component
+@Slf4j
+public class IdempotencyStore {
+
+    private static final String REQUESTS_METRIC = "idempotency.requests";
+    private static final String IN_PROGRESS = "IN_PROGRESS";
+    private static final String COMPLETED = "COMPLETED";
+    private static final int MAX_KEY_LENGTH = 255;
+
+    private final IdempotencyRecordRepository repository;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+    private final Duration ttl;
+    private final Duration lease;
+    private final Cache<String, CompletedResponse> recent;
+
+    public IdempotencyStore(IdempotencyRecordRepository repository,
+                            ObjectMapper objectMapper,
+                            MeterRegistry meterRegistry,
+                            @Value("${app.idempotency.ttl:24h}") Duration ttl,
+                            @Value("${app.idempotency.lease:2m}") Duration lease,
+                            @Value("${app.idempotency.cache.max-size:10000}") long cacheMaxSize) {
+        this.repository = repository;
+        this.objectMapper = objectMapper;
+        this.meterRegistry = meterRegistry;
+        this.ttl = ttl;
+        this.lease = lease;
+        this.recent = Caffeine.newBuilder()
+                .maximumSize(cacheMaxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, recent, "idempotency-keys");
+    }
+
+    public <T> Mono<T> execute(String operation, String key, String fingerprint,
+                               Class<T> responseType, Supplier<Mono<T>> action) {
+        // Sin clave se ejecuta como siempre
+        if (key == null) {
+            return Mono.defer(action);
+        }
+        if (key.isBlank() || key.length() > MAX_KEY_LENGTH) {
+            return Mono.error(new BusinessException(
+                    "El header Idempotency-Key debe tener entre 1 y " + MAX_KEY_LENGTH + " caracteres."));
+        }
+
+        String id = operation + ":" + key;
+        CompletedResponse cached = recent.getIfPresent(id);
+        if (cached != null) {
+            if (!fingerprint.equals(cached.fingerprint)) {
+                return mismatch(operation);
+            }
+            count(operation, "replayed_cache");
+            return Mono.just(responseType.cast(cached.response));
+        }
+
+        // La reserva dura lo que puede tardar un pago: si la instancia cae a mitad del pago, MongoDB la borra
+        // al vencer y el cliente puede reintentar con la misma clave. Al guardar la respuesta se extiende al ttl
+        IdempotencyRecord claim = IdempotencyRecord.builder()
+                .id(id)
+                .fingerprint(fingerprint)
+                .status(IN_PROGRESS)
+                .expireAt(Instant.now().plus(lease))
+                .build();
+
+        // El _id único resuelve la carrera entre réplicas: solo un insert gana
+        return repository.insert(claim)
+                .map(saved -> true)
+                .onErrorResume(DuplicateKeyException.class, e -> Mono.just(false))
+                .flatMap(claimed -> claimed
+                        ? run(operation, claim, action)
+                        : fromStore(operation, id, fingerprint, responseType));
+    }
+
+    private <T> Mono<T> run(String operation, IdempotencyRecord claim, Supplier<Mono<T>> action) {
+        // La operación y el registro de su resultado no dependen de quien espera la respuesta: si el cliente
+        // se desconecta, la cancelación no interrumpe el pago y el reintento encuentra el resultado guardado
+        Mono<T> outcome = Mono.defer(action)
+                .onErrorResume(e -> release(claim).then(Mono.error(e)))
+                .flatMap(response -> complete(claim, response).thenReturn(response))
+                .switchIfEmpty(Mono.defer(() -> release(claim).then(Mono.empty())))
+                .doOnSuccess(response -> count(operation, "executed"))
+                .cache();
+        outcome.subscribe(response -> { }, e -> { });
+        return outcome;
+    }
+
+    private Mono<Void> complete(IdempotencyRecord claim, Object response) {
+        // La caché local se actualiza aunque falle MongoDB: al menos esta instancia no repite el pago
+        recent.put(claim.getId(), new CompletedResponse(claim.getFingerprint(), response));
+        try {
+            claim.setResponse(objectMapper.writeValueAsString(response));
+        } catch (JsonProcessingException e) {
+            log.warn("Could not serialize idempotent response for {}: {}", claim.getId(), e.getMessage());
+            return Mono.empty();
+        }
+        claim.setStatus(COMPLETED);
+        claim.setExpireAt(Instant.now().plus(ttl));
+        return repository.save(claim)
+                .doOnError(e -> log.warn("Could not store idempotent response for {}: {}", claim.getId(), e.getMessage()))
+                .onErrorResume(e -> Mono.empty())
+                .then();
+    }
+
+    private Mono<Void> release(IdempotencyRecord claim) {
+        return repository.deleteById(claim.getId())
+                .onErrorResume(e -> {
+                    log.warn("Could not release idempotency key {}: {}", claim.getId(), e.getMessage());
+                    return Mono.empty();
+                });
+    }
+
+    private <T> Mono<T> fromStore(String operation, String id, String fingerprint, Class<T> responseType) {
+        return repository.findById(id)
+                // La operación falló y liberó la clave entre el insert y la lectura: se trata como en curso
+                .switchIfEmpty(Mono.defer(() -> inProgress(operation)))
+                .flatMap(existing -> {
+                    if (!fingerprint.equals(existing.getFingerprint())) {
+                        return mismatch(operation);
+                    }
+                    if (!COMPLETED.equals(existing.getStatus())) {
+                        return inProgress(operation);
+                    }
+                    count(operation, "replayed_store");
+                    return Mono.fromCallable(() -> {
+                        T response = objectMapper.readValue(existing.getResponse(), responseType);
+                        recent.put(id, new CompletedResponse(existing.getFingerprint(), response));
+                        return response;
+                    });
+                });
+    }
+
+    private <T> Mono<T> mismatch(String operation) {
+        count(operation, "mismatch");
+        return Mono.error(new IdempotencyKeyMismatchException(
+                "La Idempotency-Key ya fue usada con una petición distinta."));
+    }
+
+    private <T> Mono<T> inProgress(String operation) {
+        count(operation, "in_progress");
+        return Mono.error(new IdempotencyKeyInProgressException(
+                "Una petición con esta Idempotency-Key todavía se está procesando. Intente nuevamente."));
+    }
+
+    private void count(String operation, String outcome) {
+        meterRegistry.counter(REQUESTS_METRIC, "operation", operation, "outcome", outcome).increment();
+    }
+
+    private static final class CompletedResponse {
+        private final String fingerprint;
+        private final Object response;
+
+        private CompletedResponse(String fingerprint, Object response) {
+            this.fingerprint = fingerprint;
+            this.response = response;
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.example.mscreditservice.service.support;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+import java.time.Duration;
+
+/**
+ * Política de reintentos con jitter para operaciones lectura-modificación-escritura
+ * sobre documentos versionados.
+ * Esta aplicación (API /api/credits) se despliega por separado de la de /credits y solo escanea su propio
+ * paquete, por eso tiene su propia copia; un cambio de comportamiento debe aplicarse en ambas.
+ */
+@Component
+@Slf4j
+public class OptimisticLockRetry {
+
+    private static final String CONFLICTS_METRIC = "credit.optimistic-lock.conflicts";
+    private static final String RETRIES_METRIC = "credit.optimistic-lock.retries";
+    private static final String EXHAUSTED_METRIC = "credit.optimistic-lock.exhausted";
+
+    private final MeterRegistry meterRegistry;
+    private final int maxAttempts;
+    private final Duration minBackoff;
+    private final Duration maxBackoff;
+
+    public OptimisticLockRetry(MeterRegistry meterRegistry,
+                               @Value("${app.optimistic-retry.max-attempts:5}") int maxAttempts,
+                               @Value("${app.optimistic-retry.min-backoff:10ms}") Duration minBackoff,
+                               @Value("${app.optimistic-retry.max-backoff:500ms}") Duration maxBackoff) {
+        if (maxAttempts < 1) {
+            throw new IllegalArgumentException("app.optimistic-retry.max-attempts must be at least 1");
+        }
+        this.meterRegistry = meterRegistry;
+        this.maxAttempts = maxAttempts;
+        this.minBackoff = minBackoff;
+        this.maxBackoff = maxBackoff;
+    }
+
+    /**
+     * Reintenta la operación cuando otra escritura modificó el documento entre la lectura y el guardado.
+     * La operación debe ser un Mono "frío" que vuelva a leer el documento en cada suscripción.
+     * @param operation Nombre de la operación, usado como tag de las métricas
+     * @param readModifyWrite Operación a proteger
+     * @return Mono con el resultado de la operación
+     */
+    public <T> Mono<T> apply(String operation, Mono<T> readModifyWrite) {
+        // maxAttempts cuenta también el primer intento; Retry.backoff recibe solo los reintentos
+        Retry retry = Retry.backoff(maxAttempts - 1, minBackoff)
+                .maxBackoff(maxBackoff)
+                .jitter(0.5)
+                .filter(OptimisticLockingFailureException.class::isInstance)
+                .doBeforeRetry(signal -> {
+                    meterRegistry.counter(RETRIES_METRIC, "operation", operation).increment();
+                    log.debug("Retrying {} after optimistic lock conflict (attempt {})",
+                            operation, signal.totalRetries() + 1);
+                })
+                .onRetryExhaustedThrow((spec, signal) -> {
+                    meterRegistry.counter(EXHAUSTED_METRIC, "operation", operation).increment();
+                    return signal.failure();
+                });
+
+        return readModifyWrite
+                .doOnError(OptimisticLockingFailureException.class,
+                        e -> meterRegistry.counter(CONFLICTS_METRIC, "operation", operation).increment())
+                .retryWhen(retry);
+    }
+}
@@ -0,0 +1,241 @@
+package com.example.mscreditservice.service.support;
+
+import com.example.mscreditservice.repository.CreditRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.support.CronExpression;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Índice en memoria de los clientes con créditos vencidos, para responder hasOverdueDebt sin ir a MongoDB.
+ * Guarda una huella de 64 bits por cliente en una tabla de direccionamiento abierto inmutable, que se
+ * reemplaza completa en cada reconstrucción (después del barrido de vencidos y periódicamente).
+ * Un cliente ausente no tiene deuda vencida; uno presente se confirma en MongoDB, porque un pago
+ * en otra réplica o una colisión de huellas pueden dejarlo marcado sin deuda.
+ * Solo el barrido marca créditos como vencidos, y el de otra réplica recién se ve en la siguiente
+ * reconstrucción: desde que empieza un barrido programado hasta que el índice se vuelve a leer pasado
+ * el margen app.overdue-index.sweep-grace, todas las consultas van a MongoDB.
+ * Hasta la primera reconstrucción todas las consultas van a MongoDB.
+ */
+@Component
+@Slf4j
+public class OverdueCustomerIndex {
+
+    private static final String LOOKUPS_METRIC = "credit.overdue-index.lookups";
+    private static final String REBUILD_METRIC = "credit.overdue-index.rebuild.duration";
+
+    private final CreditRepository creditRepository;
+    private final MeterRegistry meterRegistry;
+    private final CronExpression sweepCron;
+    private final Duration sweepGrace;
+    private final Clock clock;
+
+    private volatile Snapshot snapshot;
+
+    @Autowired
+    public OverdueCustomerIndex(CreditRepository creditRepository,
+                                MeterRegistry meterRegistry,
+                                @Value("${app.overdue-sweep.cron:0 0 0 * * *}") String sweepCron,
+                                @Value("${app.overdue-index.sweep-grace:PT15M}") Duration sweepGrace) {
+        this(creditRepository, meterRegistry, sweepCron, sweepGrace, Clock.systemDefaultZone());
+    }
+
+    OverdueCustomerIndex(CreditRepository creditRepository, MeterRegistry meterRegistry,
+                         String sweepCron, Duration sweepGrace, Clock clock) {
+        this.creditRepository = creditRepository;
+        this.meterRegistry = meterRegistry;
+        this.sweepCron = Scheduled.CRON_DISABLED.equals(sweepCron) ? null : CronExpression.parse(sweepCron);
+        this.sweepGrace = sweepGrace;
+        this.clock = clock;
+        Gauge.builder("credit.overdue-index.size", this, index -> {
+            Snapshot current = index.snapshot;
+            return current == null ? 0 : current.overdueCustomers.size();
+        }).register(meterRegistry);
+    }
+
+    public Mono<Boolean> hasOverdueDebt(String customerId) {
+        Snapshot current = snapshot;
+        if (current == null || !current.isCurrent(now())) {
+            count("fallback");
+            return findOverdue(customerId);
+        }
+        if (!current.mightBeOverdue(customerId)) {
+            count("memory");
+            return Mono.just(false);
+        }
+        count("confirmed");
+        return findOverdue(customerId)
+                .doOnNext(overdue -> current.onChecked(customerId, overdue));
+    }
+
+    /**
+     * Indica si un cliente puede tener deuda vencida y hay que consultarlo en MongoDB.
+     * Con el índice cargado y sin un barrido posterior a su lectura, false es definitivo.
+     * @param customerId ID del cliente
+     * @return false si el cliente seguro no tiene créditos vencidos
+     */
+    public boolean mightBeOverdue(String customerId) {
+        Snapshot current = snapshot;
+        return current == null || !current.isCurrent(now()) || current.mightBeOverdue(customerId);
+    }
+
+    /**
+     * Después de un pago: si el cliente figura como vencido, se verifica si todavía le quedan créditos vencidos.
+     * @param customerId Titular del crédito pagado
+     * @return Mono que completa cuando se actualizó el índice
+     */
+    public Mono<Void> onPayment(String customerId) {
+        Snapshot current = snapshot;
+        if (current == null || !current.mightBeOverdue(customerId)) {
+            return Mono.empty();
+        }
+        // Se anota en el índice que estaba vigente al consultar: si mientras tanto se reconstruyó, el nuevo no cambia
+        return findOverdue(customerId)
+                .doOnNext(overdue -> current.onChecked(customerId, overdue))
+                .onErrorResume(e -> {
+                    log.warn("Could not refresh overdue status of customer {}: {}", customerId, e.getMessage());
+                    return Mono.empty();
+                })
+                .then();
+    }
+
+    /**
+     * Vuelve a leer de MongoDB los clientes con créditos vencidos y reemplaza el índice.
+     * @return Mono con la cantidad de clientes vencidos
+     */
+    public Mono<Integer> rebuild() {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        return Mono.defer(() -> {
+                    // Un barrido que empezó hasta sweepGrace antes de la lectura puede no estar completo en ella
+                    LocalDateTime validUntil = sweepCron == null ? null : sweepCron.next(now().minus(sweepGrace));
+                    return creditRepository.findOverdueCustomerIds()
+                            .collectList()
+                            .map(customerIds -> {
+                                // Lo confirmado como pagado antes de esta lectura ya está reflejado en ella
+                                snapshot = new Snapshot(FingerprintSet.of(customerIds), validUntil);
+                                return customerIds.size();
+                            });
+                })
+                .doFinally(signal -> sample.stop(meterRegistry.timer(REBUILD_METRIC, "outcome", signal.name())));
+    }
+
+    private Mono<Boolean> findOverdue(String customerId) {
+        return creditRepository.findByCustomerIdAndOverdue(customerId, true).hasElements();
+    }
+
+    private void count(String source) {
+        meterRegistry.counter(LOOKUPS_METRIC, "source", source).increment();
+    }
+
+    private LocalDateTime now() {
+        return LocalDateTime.now(clock);
+    }
+
+    /**
+     * Una lectura del índice con los clientes confirmados sin deuda desde entonces.
+     */
+    private static final class Snapshot {
+        private final FingerprintSet overdueCustomers;
+        // Clientes del índice que ya no tienen créditos vencidos
+        private final Set<String> cleared = ConcurrentHashMap.newKeySet();
+        // Inicio del siguiente barrido programado, que esta lectura no refleja; null si no hay barridos
+        private final LocalDateTime validUntil;
+
+        private Snapshot(FingerprintSet overdueCustomers, LocalDateTime validUntil) {
+            this.overdueCustomers = overdueCustomers;
+            this.validUntil = validUntil;
+        }
+
+        boolean isCurrent(LocalDateTime now) {
+            return validUntil == null || now.isBefore(validUntil);
+        }
+
+        boolean mightBeOverdue(String customerId) {
+            return overdueCustomers.contains(customerId) && !cleared.contains(customerId);
+        }
+
+        void onChecked(String customerId, boolean overdue) {
+            if (!overdue) {
+                cleared.add(customerId);
+            }
+        }
+    }
+
+    /**
+     * Conjunto inmutable de huellas de 64 bits con sondeo lineal; 0 marca una celda vacía.
+     */
+    static final class FingerprintSet {
+        private final long[] slots;
+        private final int mask;
+        private final int size;
+
+        private FingerprintSet(long[] slots, int size) {
+            this.slots = slots;
+            this.mask = slots.length - 1;
+            this.size = size;
+        }
+
+        static FingerprintSet of(List<String> values) {
+            // Capacidad potencia de 2 con ocupación de a lo sumo 50%
+            int capacity = Integer.highestOneBit(Math.max(2, values.size()) * 2 - 1) << 1;
+            long[] slots = new long[capacity];
+            int size = 0;
+            for (String value : values) {
+                long fingerprint = fingerprint(value);
+                int slot = (int) fingerprint & (capacity - 1);
+                while (slots[slot] != 0 && slots[slot] != fingerprint) {
+                    slot = (slot + 1) & (capacity - 1);
+                }
+                if (slots[slot] == 0) {
+                    slots[slot] = fingerprint;
+                    size++;
+                }
+            }
+            return new FingerprintSet(slots, size);
+        }
+
+        boolean contains(String value) {
+            long fingerprint = fingerprint(value);
+            int slot = (int) fingerprint & mask;
+            while (slots[slot] != 0) {
+                if (slots[slot] == fingerprint) {
+                    return true;
+                }
+                slot = (slot + 1) & mask;
+            }
+            return false;
+        }
+
+        int size() {
+            return size;
+        }
+
+        // FNV-1a de 64 bits sobre los caracteres (sin copiar el String) con el mezclado final de MurmurHash3
+        static long fingerprint(String value) {
+            long hash = 0xcbf29ce484222325L;
+            for (int i = 0; i < value.length(); i++) {
+                hash ^= value.charAt(i);
+                hash *= 0x100000001b3L;
+            }
+            hash ^= hash >>> 33;
+            hash *= 0xff51afd7ed558ccdL;
+            hash ^= hash >>> 33;
+            hash *= 0xc4ceb9fe1a85ec53L;
+            hash ^= hash >>> 33;
+            return hash == 0 ? 1 : hash;
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package com.example.mscreditservice.service.support;
+
+import com.example.mscreditservice.model.Credit;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiFunction;
+
+/**
+ * Agrupa los pagos al mismo crédito que llegan dentro de una ventana corta para aplicarlos
+ * con una sola escritura. Cada llamador recibe su propio resultado (el crédito después de su pago
+ * o el error de su pago). Desactivado por defecto (app.payment-coalescing.enabled).
+ */
+@Component
+@Slf4j
+public class PaymentCoalescer {
+
+    private static final String BATCH_SIZE_METRIC = "credit.payment-coalescing.batch-size";
+
+    private final boolean enabled;
+    private final Duration window;
+    private final int maxBatchSize;
+    private final DistributionSummary batchSizes;
+    // Lote abierto por crédito; se quita del mapa al cerrarse, así cada lote se aplica una sola vez
+    private final Map<String, Batch> openBatches = new ConcurrentHashMap<>();
+
+    public PaymentCoalescer(MeterRegistry meterRegistry,
+                            @Value("${app.payment-coalescing.enabled:false}") boolean enabled,
+                            @Value("${app.payment-coalescing.window:5ms}") Duration window,
+                            @Value("${app.payment-coalescing.max-batch-size:50}") int maxBatchSize) {
+        this.enabled = enabled;
+        this.window = window;
+        this.maxBatchSize = maxBatchSize;
+        this.batchSizes = DistributionSummary.builder(BATCH_SIZE_METRIC)
+                .description("Payments applied per coalesced write")
+                .register(meterRegistry);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Encola un pago en el lote abierto del crédito, o abre uno nuevo que se aplica al vencer la ventana
+     * o al llenarse. Un pago encolado se aplica aunque el llamador cancele.
+     * @param creditId ID del crédito
+     * @param payerCustomerId Cliente que paga a un crédito de terceros, null si paga el titular
+     * @param paymentAmount Monto del pago
+     * @param applyBatch Aplica los pagos del lote en orden y completa cada uno con su resultado
+     * @return Mono con el crédito después de este pago
+     */
+    public Mono<Credit> submit(String creditId, String payerCustomerId, BigDecimal paymentAmount,
+                               BiFunction<String, List<PendingPayment>, Mono<Void>> applyBatch) {
+        PendingPayment payment = new PendingPayment(payerCustomerId, paymentAmount);
+        Batch[] full = new Batch[1];
+        openBatches.compute(creditId, (id, open) -> {
+            Batch batch = open != null ? open : openBatch(id, applyBatch);
+            batch.payments.add(payment);
+            if (batch.payments.size() >= maxBatchSize) {
+                full[0] = batch;
+                return null;
+            }
+            return batch;
+        });
+        if (full[0] != null) {
+            flush(full[0]);
+        }
+        return payment.result.asMono();
+    }
+
+    private Batch openBatch(String creditId, BiFunction<String, List<PendingPayment>, Mono<Void>> applyBatch) {
+        Batch batch = new Batch(creditId, applyBatch);
+        Mono.delay(window).subscribe(tick -> {
+            // Si el lote ya se cerró por tamaño, el mapa tiene otro lote (o ninguno) y no se hace nada
+            if (openBatches.remove(creditId, batch)) {
+                flush(batch);
+            }
+        });
+        return batch;
+    }
+
+    private void flush(Batch batch) {
+        List<PendingPayment> payments = batch.payments;
+        batchSizes.record(payments.size());
+        Mono.defer(() -> batch.applyBatch.apply(batch.creditId, payments))
+                .subscribe(null, e -> {
+                    log.debug("Coalesced payments to credit {} failed: {}", batch.creditId, e.getMessage());
+                    // Los pagos que ya tienen resultado ignoran el error
+                    payments.forEach(payment -> payment.fail(e));
+                });
+    }
+
+    /**
+     * Pago en espera de un lote; applyBatch lo completa con el crédito resultante o con su error.
+     */
+    public static final class PendingPayment {
+        private final String payerCustomerId;
+        private final BigDecimal amount;
+        private final Sinks.One<Credit> result = Sinks.one();
+
+        private PendingPayment(String payerCustomerId, BigDecimal amount) {
+            this.payerCustomerId = payerCustomerId;
+            this.amount = amount;
+        }
+
+        public String getPayerCustomerId() {
+            return payerCustomerId;
+        }
+
+        public BigDecimal getAmount() {
+            return amount;
+        }
+
+        public void succeed(Credit credit) {
+            result.tryEmitValue(credit);
+        }
+
+        public void fail(Throwable error) {
+            result.tryEmitError(error);
+        }
+    }
+
+    private static final class Batch {
+        private final String creditId;
+        private final BiFunction<String, List<PendingPayment>, Mono<Void>> applyBatch;
+        // Solo se modifica dentro de compute mientras el lote está en el mapa
+        private final List<PendingPayment> payments = new ArrayList<>();
+
+        private Batch(String creditId, BiFunction<String, List<PendingPayment>, Mono<Void>> applyBatch) {
+            this.creditId = creditId;
+            this.applyBatch = applyBatch;
+        }
+    }
+}
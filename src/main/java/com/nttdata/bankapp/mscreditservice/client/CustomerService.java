@@ -1,36 +1,90 @@
 package com.nttdata.bankapp.mscreditservice.client;
 
+import com.github.benmanes.caffeine.cache.AsyncCacheLoader;
+import com.github.benmanes.caffeine.cache.AsyncLoadingCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.nttdata.bankapp.mscreditservice.exception.CustomerNotFoundException;
+import com.nttdata.bankapp.mscreditservice.exception.CustomerServiceUnavailableException;
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.reactor.bulkhead.operator.BulkheadOperator;
+import io.github.resilience4j.reactor.circuitbreaker.operator.CircuitBreakerOperator;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeoutException;
+
 /**
  * Cliente para comunicarse con el microservicio de clientes.
+ * Las consultas se guardan en una caché asíncrona en memoria: las lecturas concurrentes
+ * de un mismo ID comparten una sola llamada remota. Las llamadas remotas pasan por
+ * un timeout, un circuit breaker y un bulkhead para fallar rápido si el servicio se degrada.
  */
 @Service
 public class CustomerService {
 
     private final WebClient webClient;
+    private final CircuitBreaker circuitBreaker;
+    private final Bulkhead bulkhead;
+    private final Duration callTimeout;
+    private final String bulkLookupPath;
+    private final int bulkFallbackConcurrency;
+
+    // ID del cliente -> tipo de cliente; vacío si el cliente no existe (caché negativa)
+    private final AsyncLoadingCache<String, Optional<String>> customerCache;
 
-    public CustomerService(@Value("${app.customer-service-url}") String customerServiceUrl) {
-        this.webClient = WebClient.builder()
-                .baseUrl(customerServiceUrl)
-                .build();
+    public CustomerService(WebClient customerWebClient,
+                           CircuitBreaker customerServiceCircuitBreaker,
+                           Bulkhead customerServiceBulkhead,
+                           @Value("${app.customer-client.call-timeout:3s}") Duration callTimeout,
+                           @Value("${app.customer-client.bulk-lookup-path:}") String bulkLookupPath,
+                           @Value("${app.customer-client.bulk-fallback-concurrency:8}") int bulkFallbackConcurrency,
+                           @Value("${app.customer-cache.max-size:10000}") long maxSize,
+                           @Value("${app.customer-cache.ttl:10m}") Duration ttl,
+                           @Value("${app.customer-cache.negative-ttl:30s}") Duration negativeTtl,
+                           MeterRegistry meterRegistry) {
+        this.webClient = customerWebClient;
+        this.circuitBreaker = customerServiceCircuitBreaker;
+        this.bulkhead = customerServiceBulkhead;
+        this.callTimeout = callTimeout;
+        this.bulkLookupPath = bulkLookupPath;
+        this.bulkFallbackConcurrency = bulkFallbackConcurrency;
+        this.customerCache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfter(new CustomerExpiry(ttl, negativeTtl))
+                .recordStats()
+                .buildAsync(new CustomerLoader());
+        CaffeineCacheMetrics.monitor(meterRegistry, customerCache, "customers");
     }
 
     /**
      * Verifica si un cliente existe por su ID.
      * @param customerId ID del cliente
-     * @return Mono<Boolean> true si existe, false en caso contrario
+     * @return Mono<Boolean> true si existe, false en caso contrario;
+     *         error CustomerServiceUnavailableException si el servicio no responde
      */
     public Mono<Boolean> customerExists(String customerId) {
-        return webClient.get()
-                .uri("/customers/{id}", customerId)
-                .retrieve()
-                .bodyToMono(Object.class)
-                .map(response -> true)
-                .onErrorResume(e -> Mono.just(false));
+        return getCachedCustomer(customerId)
+                .map(Optional::isPresent);
     }
 
     /**
@@ -39,11 +93,142 @@ public class CustomerService {
      * @return Mono<String> tipo de cliente
      */
     public Mono<String> getCustomerType(String customerId) {
+        return getCachedCustomer(customerId)
+                .flatMap(type -> type.map(Mono::just)
+                        .orElseGet(() -> Mono.error(new CustomerNotFoundException("Customer not found with id: " + customerId))));
+    }
+
+    /**
+     * Verifica la existencia de varios clientes a la vez.
+     * Los IDs repetidos se consultan una sola vez y los que no están en caché se resuelven
+     * con una sola llamada al endpoint masivo (o en paralelo acotado si no está configurado).
+     * @param customerIds IDs de los clientes
+     * @return Mono con el mapa ID -> existe
+     */
+    public Mono<Map<String, Boolean>> customersExist(Collection<String> customerIds) {
+        Set<String> distinctIds = new LinkedHashSet<>(customerIds);
+        if (distinctIds.isEmpty()) {
+            return Mono.just(Map.of());
+        }
+
+        return Mono.fromFuture(() -> customerCache.getAll(distinctIds), true)
+                .map(customers -> {
+                    Map<String, Boolean> exists = new HashMap<>(customers.size() * 2);
+                    customers.forEach((id, type) -> exists.put(id, type.isPresent()));
+                    return exists;
+                });
+    }
+
+    private Mono<Optional<String>> getCachedCustomer(String customerId) {
+        // La cancelación de un suscriptor no debe cancelar la carga compartida con otros
+        return Mono.fromFuture(() -> customerCache.get(customerId), true);
+    }
+
+    private Mono<Optional<String>> fetchCustomerType(String customerId) {
         return webClient.get()
                 .uri("/customers/{id}", customerId)
                 .retrieve()
                 .bodyToMono(CustomerDto.class)
-                .map(customer -> customer.getType().toString());
+                .map(customer -> Optional.of(customer.getType().toString()))
+                // Solo un 404 se guarda como resultado negativo; no cuenta como fallo para el circuit breaker
+                .onErrorResume(WebClientResponseException.NotFound.class, e -> Mono.just(Optional.empty()))
+                .transform(this::protect);
+    }
+
+    private Mono<Map<String, Optional<String>>> fetchCustomerTypes(Set<String> customerIds) {
+        if (bulkLookupPath.isEmpty()) {
+            // Sin endpoint masivo: llamadas individuales con concurrencia acotada
+            return Flux.fromIterable(customerIds)
+                    .flatMap(id -> fetchCustomerType(id).map(type -> Map.entry(id, type)), bulkFallbackConcurrency)
+                    .collectMap(Map.Entry::getKey, Map.Entry::getValue);
+        }
+
+        return webClient.post()
+                .uri(bulkLookupPath)
+                .bodyValue(customerIds)
+                .retrieve()
+                .bodyToFlux(CustomerDto.class)
+                .collectList()
+                .map(customers -> toCustomerTypes(customerIds, customers))
+                .transform(this::protect);
+    }
+
+    // Los IDs ausentes en la respuesta masiva se consideran clientes inexistentes
+    private Map<String, Optional<String>> toCustomerTypes(Set<String> customerIds, List<CustomerDto> customers) {
+        Map<String, Optional<String>> types = new HashMap<>(customerIds.size() * 2);
+        customerIds.forEach(id -> types.put(id, Optional.empty()));
+        customers.forEach(customer -> types.put(customer.getId(), Optional.of(customer.getType().toString())));
+        return types;
+    }
+
+    private <T> Mono<T> protect(Mono<T> call) {
+        return call
+                .timeout(callTimeout)
+                .transformDeferred(CircuitBreakerOperator.of(circuitBreaker))
+                .transformDeferred(BulkheadOperator.of(bulkhead))
+                // Solo las fallas del servicio se reportan como no disponible; un 4xx o un error propio se propaga
+                .onErrorMap(CustomerServiceFailures::isUnavailable,
+                        e -> new CustomerServiceUnavailableException(describeFailure(e), e));
+    }
+
+    private String describeFailure(Throwable e) {
+        if (e instanceof TimeoutException) {
+            return "Customer service did not respond within " + callTimeout.toMillis() + " ms";
+        }
+        if (e instanceof CallNotPermittedException) {
+            return "Customer service circuit breaker is open";
+        }
+        if (e instanceof BulkheadFullException) {
+            return "Too many concurrent requests to customer service";
+        }
+        return "Customer service unavailable: " + e.getMessage();
+    }
+
+    /**
+     * Carga individual y masiva de clientes para la caché.
+     */
+    private class CustomerLoader implements AsyncCacheLoader<String, Optional<String>> {
+
+        @Override
+        public CompletableFuture<Optional<String>> asyncLoad(String customerId, Executor executor) {
+            return fetchCustomerType(customerId).toFuture();
+        }
+
+        @Override
+        public CompletableFuture<Map<String, Optional<String>>> asyncLoadAll(Iterable<? extends String> customerIds,
+                                                                            Executor executor) {
+            Set<String> ids = new LinkedHashSet<>();
+            customerIds.forEach(ids::add);
+            return fetchCustomerTypes(ids).toFuture();
+        }
+    }
+
+    /**
+     * Expiración variable: los clientes inexistentes se recuerdan por menos tiempo.
+     */
+    private static class CustomerExpiry implements Expiry<String, Optional<String>> {
+        private final long ttlNanos;
+        private final long negativeTtlNanos;
+
+        CustomerExpiry(Duration ttl, Duration negativeTtl) {
+            this.ttlNanos = ttl.toNanos();
+            this.negativeTtlNanos = negativeTtl.toNanos();
+        }
+
+        @Override
+        public long expireAfterCreate(String key, Optional<String> value, long currentTime) {
+            return value.isPresent() ? ttlNanos : negativeTtlNanos;
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, Optional<String> value, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, value, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String key, Optional<String> value, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
     }
 
     // DTO interno para mapear la respuesta del servicio de clientes
@@ -56,4 +241,4 @@ public class CustomerService {
     private enum CustomerTypeEnum {
         PERSONAL, BUSINESS
     }
-}
\ No newline at end of file
+}
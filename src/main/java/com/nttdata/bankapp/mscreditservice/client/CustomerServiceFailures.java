@@ -0,0 +1,37 @@
+package com.nttdata.bankapp.mscreditservice.client;
+
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Clasificación de los errores de las llamadas al microservicio de clientes.
+ */
+public final class CustomerServiceFailures {
+
+    private CustomerServiceFailures() {
+    }
+
+    /**
+     * Indica si el error significa que el servicio de clientes no está disponible: timeouts,
+     * circuit breaker abierto, bulkhead lleno, errores de conexión (incluido el timeout de respuesta
+     * y de adquisición del pool) y respuestas 5xx. Solo estos se reportan como 503 y cuentan como
+     * fallo para el circuit breaker; otras respuestas 4xx, errores de decodificación o de programación
+     * se propagan sin cambios.
+     * @param e Error de la llamada
+     * @return true si el servicio no está disponible
+     */
+    public static boolean isUnavailable(Throwable e) {
+        if (e instanceof TimeoutException
+                || e instanceof CallNotPermittedException
+                || e instanceof BulkheadFullException
+                || e instanceof WebClientRequestException) {
+            return true;
+        }
+        return e instanceof WebClientResponseException
+                && ((WebClientResponseException) e).getStatusCode().is5xxServerError();
+    }
+}
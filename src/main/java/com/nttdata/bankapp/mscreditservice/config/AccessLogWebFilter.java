@@ -0,0 +1,58 @@
+package com.nttdata.bankapp.mscreditservice.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Access log muestreado: reemplaza los logs INFO por request de los controladores.
+ * Registra una fracción de las peticiones (app.access-log.sample-rate) y siempre
+ * las que terminan con error 5xx o superan app.access-log.slow-threshold.
+ */
+@Component
+public class AccessLogWebFilter implements WebFilter {
+
+    private static final Logger ACCESS_LOG = LoggerFactory.getLogger("access-log");
+
+    private final double sampleRate;
+    private final long slowThresholdNanos;
+
+    public AccessLogWebFilter(@Value("${app.access-log.sample-rate:0.01}") double sampleRate,
+                              @Value("${app.access-log.slow-threshold:1s}") Duration slowThreshold) {
+        this.sampleRate = sampleRate;
+        this.slowThresholdNanos = slowThreshold.toNanos();
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        if (!ACCESS_LOG.isInfoEnabled()) {
+            return chain.filter(exchange);
+        }
+
+        boolean sampled = sampleRate >= 1.0 || ThreadLocalRandom.current().nextDouble() < sampleRate;
+        long start = System.nanoTime();
+        return chain.filter(exchange)
+                .doFinally(signal -> {
+                    long elapsed = System.nanoTime() - start;
+                    HttpStatus status = exchange.getResponse().getStatusCode();
+                    boolean serverError = status != null && status.is5xxServerError();
+                    if (sampled || serverError || elapsed >= slowThresholdNanos) {
+                        ServerHttpRequest request = exchange.getRequest();
+                        ACCESS_LOG.info("{} {} {} {}ms", request.getMethod(), request.getPath().value(),
+                                status == null ? HttpStatus.OK.value() : status.value(),
+                                TimeUnit.NANOSECONDS.toMillis(elapsed));
+                    }
+                });
+    }
+}
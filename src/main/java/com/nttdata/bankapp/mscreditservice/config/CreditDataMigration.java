@@ -0,0 +1,95 @@
+package com.nttdata.bankapp.mscreditservice.config;
+
+import com.nttdata.bankapp.mscreditservice.model.Credit;
+import com.nttdata.bankapp.mscreditservice.repository.CreditStatsRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Migraciones de datos de la colección credits que se ejecutan al iniciar, antes de atender pagos.
+ * Son idempotentes: solo tocan documentos que todavía tienen el formato anterior.
+ * Si una falla, la aplicación no inicia.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class CreditDataMigration implements ApplicationRunner {
+
+    // Montos que antes se guardaban como texto (BigDecimal sin targetType)
+    static final List<String> DECIMAL_FIELDS = List.of("amount", "remainingAmount", "interestRate");
+
+    private final ReactiveMongoTemplate mongoTemplate;
+    private final CreditStatsRepository creditStatsRepository;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        migrate().block();
+    }
+
+    /**
+     * Ejecuta todas las migraciones en orden.
+     * @return Mono que completa cuando terminaron
+     */
+    public Mono<Void> migrate() {
+        return backfillVersion()
+                .doOnNext(backfilled -> {
+                    if (backfilled > 0) {
+                        log.info("Initialized version of {} credits", backfilled);
+                    }
+                })
+                .then(convertStringAmounts())
+                .flatMap(converted -> {
+                    if (converted == 0) {
+                        return Mono.empty();
+                    }
+                    log.info("Converted string amounts to Decimal128 in {} credits", converted);
+                    // El agregado de la cartera se calculó con $sum, que ignora los textos
+                    return creditStatsRepository.rebuild();
+                });
+    }
+
+    /**
+     * Inicializa la versión de los créditos guardados antes de usar @Version. Con version nula,
+     * Spring Data trata el documento como nuevo y save() intenta un insert que falla por _id duplicado.
+     * @return Mono con la cantidad de créditos modificados
+     */
+    Mono<Long> backfillVersion() {
+        return mongoTemplate.getCollection(mongoTemplate.getCollectionName(Credit.class))
+                .flatMap(collection -> Mono.from(collection.updateMany(
+                        new Document("version", new Document("$exists", false)),
+                        new Document("$set", new Document("version", 0L)))))
+                .map(result -> result.getModifiedCount());
+    }
+
+    /**
+     * Convierte a Decimal128 los montos guardados como texto. Sin esto la condición
+     * remainingAmount >= pago de applyPayment nunca coincide y las sumas los ignoran.
+     * @return Mono con la cantidad de créditos modificados
+     */
+    Mono<Long> convertStringAmounts() {
+        List<Document> anyString = new ArrayList<>();
+        Document set = new Document();
+        for (String field : DECIMAL_FIELDS) {
+            String path = "$" + field;
+            anyString.add(new Document(field, new Document("$type", "string")));
+            set.append(field, new Document("$cond", List.of(
+                    new Document("$eq", List.of(new Document("$type", path), "string")),
+                    new Document("$toDecimal", path),
+                    path)));
+        }
+
+        return mongoTemplate.getCollection(mongoTemplate.getCollectionName(Credit.class))
+                .flatMap(collection -> Mono.from(collection.updateMany(
+                        new Document("$or", anyString), List.of(new Document("$set", set)))))
+                .map(result -> result.getModifiedCount());
+    }
+}
@@ -0,0 +1,99 @@
+package com.nttdata.bankapp.mscreditservice.config;
+
+import com.nttdata.bankapp.mscreditservice.client.CustomerServiceFailures;
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadConfig;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.micrometer.tagged.TaggedBulkheadMetrics;
+import io.github.resilience4j.micrometer.tagged.TaggedCircuitBreakerMetrics;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.netty.channel.ChannelOption;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.time.Duration;
+
+/**
+ * Configuración del cliente HTTP hacia el microservicio de clientes:
+ * pool de conexiones acotado, timeouts, circuit breaker y bulkhead, todos con métricas.
+ */
+@Configuration
+public class CustomerClientConfig {
+
+    private static final String CUSTOMER_SERVICE = "customer-service";
+
+    @Bean
+    public WebClient customerWebClient(
+            WebClient.Builder webClientBuilder,
+            @Value("${app.customer-service-url}") String customerServiceUrl,
+            @Value("${app.customer-client.pool.max-connections:50}") int maxConnections,
+            @Value("${app.customer-client.pool.pending-acquire-max-count:100}") int pendingAcquireMaxCount,
+            @Value("${app.customer-client.pool.pending-acquire-timeout:500ms}") Duration pendingAcquireTimeout,
+            @Value("${app.customer-client.pool.max-idle-time:30s}") Duration maxIdleTime,
+            @Value("${app.customer-client.pool.evict-interval:60s}") Duration evictInterval,
+            @Value("${app.customer-client.connect-timeout:1s}") Duration connectTimeout,
+            @Value("${app.customer-client.response-timeout:2s}") Duration responseTimeout) {
+        ConnectionProvider connectionProvider = ConnectionProvider.builder(CUSTOMER_SERVICE)
+                .maxConnections(maxConnections)
+                .pendingAcquireMaxCount(pendingAcquireMaxCount)
+                .pendingAcquireTimeout(pendingAcquireTimeout)
+                .maxIdleTime(maxIdleTime)
+                .evictInBackground(evictInterval)
+                // Gauges del pool: conexiones activas, ociosas y adquisiciones pendientes
+                .metrics(true)
+                .build();
+
+        HttpClient httpClient = HttpClient.create(connectionProvider)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, (int) connectTimeout.toMillis())
+                .responseTimeout(responseTimeout);
+
+        // El builder de Spring Boot registra las métricas http.client.requests de cada llamada
+        return webClientBuilder
+                .baseUrl(customerServiceUrl)
+                .clientConnector(new ReactorClientHttpConnector(httpClient))
+                .build();
+    }
+
+    @Bean
+    public CircuitBreaker customerServiceCircuitBreaker(
+            @Value("${app.customer-client.circuit-breaker.failure-rate-threshold:50}") float failureRateThreshold,
+            @Value("${app.customer-client.circuit-breaker.sliding-window-size:20}") int slidingWindowSize,
+            @Value("${app.customer-client.circuit-breaker.minimum-number-of-calls:10}") int minimumNumberOfCalls,
+            @Value("${app.customer-client.circuit-breaker.wait-duration-in-open-state:10s}") Duration waitDurationInOpenState,
+            MeterRegistry meterRegistry) {
+        CircuitBreakerConfig config = CircuitBreakerConfig.custom()
+                .failureRateThreshold(failureRateThreshold)
+                .slidingWindowSize(slidingWindowSize)
+                .minimumNumberOfCalls(minimumNumberOfCalls)
+                .waitDurationInOpenState(waitDurationInOpenState)
+                .permittedNumberOfCallsInHalfOpenState(3)
+                // Un 4xx o un error de programación no indica que el servicio esté degradado
+                .ignoreException(e -> !CustomerServiceFailures.isUnavailable(e))
+                .build();
+        CircuitBreakerRegistry registry = CircuitBreakerRegistry.of(config);
+        TaggedCircuitBreakerMetrics.ofCircuitBreakerRegistry(registry).bindTo(meterRegistry);
+        return registry.circuitBreaker(CUSTOMER_SERVICE);
+    }
+
+    @Bean
+    public Bulkhead customerServiceBulkhead(
+            @Value("${app.customer-client.bulkhead.max-concurrent-calls:50}") int maxConcurrentCalls,
+            MeterRegistry meterRegistry) {
+        // Sin espera: si no hay permisos la llamada falla de inmediato en lugar de encolarse en el event loop
+        BulkheadConfig config = BulkheadConfig.custom()
+                .maxConcurrentCalls(maxConcurrentCalls)
+                .maxWaitDuration(Duration.ZERO)
+                .build();
+        BulkheadRegistry registry = BulkheadRegistry.of(config);
+        TaggedBulkheadMetrics.ofBulkheadRegistry(registry).bindTo(meterRegistry);
+        return registry.bulkhead(CUSTOMER_SERVICE);
+    }
+}
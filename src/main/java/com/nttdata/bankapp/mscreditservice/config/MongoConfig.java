@@ -0,0 +1,54 @@
+package com.nttdata.bankapp.mscreditservice.config;
+
+import com.nttdata.bankapp.mscreditservice.model.Money;
+import org.bson.types.Decimal128;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.convert.converter.Converter;
+import org.springframework.data.convert.ReadingConverter;
+import org.springframework.data.convert.WritingConverter;
+import org.springframework.data.mongodb.core.convert.MongoCustomConversions;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * Conversiones de MongoDB para {@link Money}: se guarda como Decimal128, igual que los montos
+ * BigDecimal anteriores, por lo que los documentos existentes, los pipelines y los índices no cambian.
+ */
+@Configuration
+public class MongoConfig {
+
+    @Bean
+    public MongoCustomConversions mongoCustomConversions() {
+        return new MongoCustomConversions(List.of(
+                new MoneyToDecimal128Converter(),
+                new Decimal128ToMoneyConverter(),
+                new StringToMoneyConverter()));
+    }
+
+    @WritingConverter
+    static class MoneyToDecimal128Converter implements Converter<Money, Decimal128> {
+        @Override
+        public Decimal128 convert(Money source) {
+            return source.toDecimal128();
+        }
+    }
+
+    @ReadingConverter
+    static class Decimal128ToMoneyConverter implements Converter<Decimal128, Money> {
+        @Override
+        public Money convert(Decimal128 source) {
+            return Money.of(source);
+        }
+    }
+
+    // Créditos guardados antes de usar Decimal128, cuando BigDecimal se persistía como texto
+    @ReadingConverter
+    static class StringToMoneyConverter implements Converter<String, Money> {
+        @Override
+        public Money convert(String source) {
+            return Money.ofStored(new BigDecimal(source));
+        }
+    }
+}
@@ -1,11 +1,18 @@
 package com.nttdata.bankapp.mscreditservice.controller;
 
 import com.nttdata.bankapp.mscreditservice.dto.CreditBalanceDto;
+import com.nttdata.bankapp.mscreditservice.dto.CreditBatchResultDto;
 import com.nttdata.bankapp.mscreditservice.dto.CreditDto;
+import com.nttdata.bankapp.mscreditservice.dto.CreditPaymentDto;
+import com.nttdata.bankapp.mscreditservice.dto.CreditStatsDto;
+import com.nttdata.bankapp.mscreditservice.dto.CreditSummaryDto;
+import com.nttdata.bankapp.mscreditservice.dto.InstallmentDto;
+import com.nttdata.bankapp.mscreditservice.model.enums.AmortizationScheme;
 import com.nttdata.bankapp.mscreditservice.service.CreditService;
+import com.nttdata.bankapp.mscreditservice.service.support.IdempotencyStore;
 import lombok.RequiredArgsConstructor;
-import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import reactor.core.publisher.Flux;
@@ -20,19 +27,35 @@ import java.math.BigDecimal;
 @RestController
 @RequestMapping("/credits")
 @RequiredArgsConstructor
-@Slf4j
 public class CreditController {
 
+    private static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+
     private final CreditService creditService;
+    private final IdempotencyStore idempotencyStore;
 
     /**
-     * Obtiene todos los créditos.
+     * Obtiene los créditos ordenados por ID, paginados por clave.
+     * Con Accept application/x-ndjson la respuesta se transmite un crédito por línea.
+     * @param after ID del último crédito recibido (opcional)
+     * @param limit Cantidad máxima de créditos (opcional, sin límite por defecto)
      * @return Flux de CreditDto
      */
-    @GetMapping
-    public Flux<CreditDto> getAll() {
-        log.info("GET /credits");
-        return creditService.findAll();
+    @GetMapping(produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public Flux<CreditDto> getAll(
+            @RequestParam(required = false) String after,
+            @RequestParam(required = false) Integer limit) {
+        return creditService.findAll(after, limit);
+    }
+
+    /**
+     * Obtiene los totales de la cartera por tipo de crédito, tipo y perfil de cliente y estado.
+     * Se leen del agregado materializado, sin recorrer la colección de créditos.
+     * @return Mono de CreditStatsDto
+     */
+    @GetMapping("/stats")
+    public Mono<CreditStatsDto> getStats() {
+        return creditService.getStats();
     }
 
     /**
@@ -42,7 +65,6 @@ public class CreditController {
      */
     @GetMapping("/{id}")
     public Mono<ResponseEntity<CreditDto>> getById(@PathVariable String id) {
-        log.info("GET /credits/{}", id);
         return creditService.findById(id)
                 .map(ResponseEntity::ok)
                 .defaultIfEmpty(ResponseEntity.notFound().build());
@@ -55,10 +77,19 @@ public class CreditController {
      */
     @GetMapping("/customer/{customerId}")
     public Flux<CreditDto> getByCustomerId(@PathVariable String customerId) {
-        log.info("GET /credits/customer/{}", customerId);
         return creditService.findByCustomerId(customerId);
     }
 
+    /**
+     * Obtiene el resumen de la cartera de créditos de un cliente en una sola consulta.
+     * @param customerId ID del cliente
+     * @return Mono de CreditSummaryDto
+     */
+    @GetMapping("/customer/{customerId}/summary")
+    public Mono<CreditSummaryDto> getCustomerSummary(@PathVariable String customerId) {
+        return creditService.getCustomerSummary(customerId);
+    }
+
     /**
      * Obtiene un crédito por su número.
      * @param creditNumber Número de crédito
@@ -66,7 +97,6 @@ public class CreditController {
      */
     @GetMapping("/number/{creditNumber}")
     public Mono<ResponseEntity<CreditDto>> getByCreditNumber(@PathVariable String creditNumber) {
-        log.info("GET /credits/number/{}", creditNumber);
         return creditService.findByCreditNumber(creditNumber)
                 .map(ResponseEntity::ok)
                 .defaultIfEmpty(ResponseEntity.notFound().build());
@@ -79,12 +109,25 @@ public class CreditController {
      */
     @GetMapping("/{id}/balance")
     public Mono<ResponseEntity<CreditBalanceDto>> getBalance(@PathVariable String id) {
-        log.info("GET /credits/{}/balance", id);
         return creditService.getBalance(id)
                 .map(ResponseEntity::ok)
                 .defaultIfEmpty(ResponseEntity.notFound().build());
     }
 
+    /**
+     * Obtiene el cronograma de cuotas de un crédito.
+     * Con Accept application/x-ndjson la respuesta se transmite una cuota por línea.
+     * @param id ID del crédito
+     * @param scheme Sistema de amortización (FRENCH por defecto)
+     * @return Flux de InstallmentDto
+     */
+    @GetMapping(value = "/{id}/schedule", produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public Flux<InstallmentDto> getSchedule(
+            @PathVariable String id,
+            @RequestParam(defaultValue = "FRENCH") AmortizationScheme scheme) {
+        return creditService.getSchedule(id, scheme);
+    }
+
     /**
      * Crea un nuevo crédito.
      * @param creditDto DTO con los datos del crédito
@@ -93,10 +136,22 @@ public class CreditController {
     @PostMapping
     @ResponseStatus(HttpStatus.CREATED)
     public Mono<CreditDto> create(@Valid @RequestBody CreditDto creditDto) {
-        log.info("POST /credits");
         return creditService.save(creditDto);
     }
 
+    /**
+     * Crea créditos de forma masiva a partir de un arreglo JSON o un flujo NDJSON.
+     * Cada elemento recibe su propio resultado, de modo que un crédito inválido no detiene al resto.
+     * @param creditDtos Flux de CreditDto
+     * @return Flux con el resultado de cada crédito
+     */
+    @PostMapping(value = "/batch",
+            consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE},
+            produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public Flux<CreditBatchResultDto> createBatch(@RequestBody Flux<CreditDto> creditDtos) {
+        return creditService.saveAll(creditDtos);
+    }
+
     /**
      * Actualiza un crédito existente.
      * @param id ID del crédito
@@ -105,7 +160,6 @@ public class CreditController {
      */
     @PutMapping("/{id}")
     public Mono<ResponseEntity<CreditDto>> update(@PathVariable String id, @Valid @RequestBody CreditDto creditDto) {
-        log.info("PUT /credits/{}", id);
         return creditService.update(id, creditDto)
                 .map(ResponseEntity::ok)
                 .defaultIfEmpty(ResponseEntity.notFound().build());
@@ -119,22 +173,42 @@ public class CreditController {
     @DeleteMapping("/{id}")
     @ResponseStatus(HttpStatus.NO_CONTENT)
     public Mono<Void> delete(@PathVariable String id) {
-        log.info("DELETE /credits/{}", id);
         return creditService.delete(id);
     }
 
+    /**
+     * Obtiene el historial de pagos de un crédito en orden, paginado por clave.
+     * Con Accept application/x-ndjson la respuesta se transmite un pago por línea.
+     * @param id ID del crédito
+     * @param after Secuencia del último pago recibido (opcional)
+     * @param limit Cantidad máxima de pagos (opcional, sin límite por defecto)
+     * @return Flux de CreditPaymentDto
+     */
+    @GetMapping(value = "/{id}/payments", produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public Flux<CreditPaymentDto> getPayments(
+            @PathVariable String id,
+            @RequestParam(required = false) Long after,
+            @RequestParam(required = false) Integer limit) {
+        return creditService.getPayments(id, after, limit);
+    }
+
     /**
      * Realiza un pago a un crédito.
+     * Con el header Idempotency-Key, los reintentos de la misma petición devuelven la respuesta
+     * del primer pago sin volver a aplicarlo.
      * @param id ID del crédito
      * @param amount Monto a pagar
+     * @param idempotencyKey Clave de idempotencia generada por el cliente (opcional)
      * @return Mono de CreditDto
      */
     @PutMapping("/{id}/payment")
     public Mono<ResponseEntity<CreditDto>> makePayment(
             @PathVariable String id,
-            @RequestParam BigDecimal amount) {
-        log.info("PUT /credits/{}/payment with amount: {}", id, amount);
-        return creditService.makePayment(id, amount)
+            @RequestParam BigDecimal amount,
+            @RequestHeader(value = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey) {
+        String fingerprint = id + ":" + amount.stripTrailingZeros().toPlainString();
+        return idempotencyStore.execute("makePayment", idempotencyKey, fingerprint, CreditDto.class,
+                        () -> creditService.makePayment(id, amount))
                 .map(ResponseEntity::ok)
                 .defaultIfEmpty(ResponseEntity.notFound().build());
     }
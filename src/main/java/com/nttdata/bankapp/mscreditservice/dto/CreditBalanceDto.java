@@ -5,7 +5,7 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
-import java.math.BigDecimal;
+import com.nttdata.bankapp.mscreditservice.model.Money;
 
 /**
  * DTO para la información de saldo de crédito.
@@ -17,7 +17,7 @@ import java.math.BigDecimal;
 public class CreditBalanceDto {
     private String creditId;
     private String creditNumber;
-    private BigDecimal totalAmount;
-    private BigDecimal remainingAmount;
-    private BigDecimal paidAmount;
+    private Money totalAmount;
+    private Money remainingAmount;
+    private Money paidAmount;
 }
@@ -0,0 +1,28 @@
+package com.nttdata.bankapp.mscreditservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * DTO con el resultado de cada crédito de una creación masiva.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class CreditBatchResultDto {
+    private long index; // Posición del crédito en el lote recibido
+    private Status status;
+    private CreditDto credit;
+    private String error;
+
+    /**
+     * Resultado posible de cada elemento del lote. UNKNOWN: el insert falló sin detalle por documento
+     * y el crédito puede haberse creado o no.
+     */
+    public enum Status {
+        CREATED, REJECTED, UNKNOWN
+    }
+}
@@ -0,0 +1,25 @@
+package com.nttdata.bankapp.mscreditservice.dto;
+
+import com.nttdata.bankapp.mscreditservice.model.CreditPayment;
+import com.nttdata.bankapp.mscreditservice.model.Money;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * DTO de un pago del historial de un crédito.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class CreditPaymentDto {
+    private long sequence;
+    private CreditPayment.Kind kind;
+    private Money amount;
+    private Money remainingAmount;
+    private LocalDateTime paidAt;
+}
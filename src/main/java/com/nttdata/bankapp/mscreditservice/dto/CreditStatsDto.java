@@ -0,0 +1,37 @@
+package com.nttdata.bankapp.mscreditservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.util.Map;
+
+/**
+ * DTO con los totales de la cartera de créditos por dimensión.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class CreditStatsDto {
+    private Totals total;
+    private Map<String, Totals> byCreditType;
+    private Map<String, Totals> byCustomerType;
+    private Map<String, Totals> byCustomerProfile;
+    private Map<String, Totals> byStatus;
+
+    /**
+     * Cantidad de créditos, monto otorgado y saldo pendiente.
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Builder
+    public static class Totals {
+        private long count;
+        private BigDecimal totalAmount;
+        private BigDecimal remainingAmount;
+    }
+}
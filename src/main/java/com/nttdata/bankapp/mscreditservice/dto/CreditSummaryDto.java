@@ -0,0 +1,43 @@
+package com.nttdata.bankapp.mscreditservice.dto;
+
+import com.nttdata.bankapp.mscreditservice.model.enums.CreditStatus;
+import com.nttdata.bankapp.mscreditservice.model.enums.CreditType;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * DTO con el resumen de la cartera de créditos de un cliente.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class CreditSummaryDto {
+    private String customerId;
+    private long totalCredits;
+    private long overdueCredits;
+    private BigDecimal totalAmount;
+    private BigDecimal remainingAmount;
+    private BigDecimal paidAmount;
+    private List<Group> groups;
+
+    /**
+     * Totales de los créditos de un mismo tipo y estado.
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Builder
+    public static class Group {
+        private CreditType type;
+        private CreditStatus status;
+        private long count;
+        private BigDecimal totalAmount;
+        private BigDecimal remainingAmount;
+    }
+}
@@ -0,0 +1,25 @@
+package com.nttdata.bankapp.mscreditservice.dto;
+
+import com.nttdata.bankapp.mscreditservice.model.Money;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+/**
+ * DTO de una cuota del cronograma de amortización.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class InstallmentDto {
+    private int number;
+    private LocalDate dueDate;
+    private Money payment;
+    private Money principal;
+    private Money interest;
+    private Money remainingBalance;
+}
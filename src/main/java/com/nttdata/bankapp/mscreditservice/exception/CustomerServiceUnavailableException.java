@@ -0,0 +1,10 @@
+package com.nttdata.bankapp.mscreditservice.exception;
+
+/**
+ * Excepción personalizada para cuando el servicio de clientes no responde a tiempo o no está disponible.
+ */
+public class CustomerServiceUnavailableException extends RuntimeException {
+    public CustomerServiceUnavailableException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
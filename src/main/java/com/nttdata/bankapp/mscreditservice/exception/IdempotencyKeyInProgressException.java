@@ -0,0 +1,10 @@
+package com.nttdata.bankapp.mscreditservice.exception;
+
+/**
+ * Excepción para una petición cuya Idempotency-Key todavía se está procesando.
+ */
+public class IdempotencyKeyInProgressException extends RuntimeException {
+    public IdempotencyKeyInProgressException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,10 @@
+package com.nttdata.bankapp.mscreditservice.exception;
+
+/**
+ * Excepción para una Idempotency-Key reutilizada con una petición distinta a la original.
+ */
+public class IdempotencyKeyMismatchException extends RuntimeException {
+    public IdempotencyKeyMismatchException(String message) {
+        super(message);
+    }
+}
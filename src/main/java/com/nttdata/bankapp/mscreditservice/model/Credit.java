@@ -8,8 +8,13 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Version;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
 import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.Field;
+import org.springframework.data.mongodb.core.mapping.FieldType;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
@@ -21,8 +26,14 @@ import java.time.LocalDateTime;
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
-@Builder
+@Builder(toBuilder = true)
 @Document(collection = "credits")
+@CompoundIndexes({
+        // findByCustomerId, findByCustomerIdAndType, countByCustomerIdAndType (prefijo customerId)
+        @CompoundIndex(name = "customerId_type", def = "{'customerId': 1, 'type': 1}"),
+        // findByCustomerIdAndCustomerType
+        @CompoundIndex(name = "customerId_customerType", def = "{'customerId': 1, 'customerType': 1}")
+})
 public class Credit {
     @Id
     private String id;
@@ -33,8 +44,9 @@ public class Credit {
     private CustomerType customerType; // PERSONAL, BUSINESS
     private CustomerProfile customerProfile; // REGULAR, VIP, PYME
     private CreditType type; // PERSONAL, BUSINESS
-    private BigDecimal amount;
-    private BigDecimal remainingAmount;
+    private Money amount; // Decimal128 en Mongo (ver MongoConfig)
+    private Money remainingAmount; // Decimal128 para permitir actualizaciones atómicas en Mongo
+    @Field(targetType = FieldType.DECIMAL128)
     private BigDecimal interestRate;
     private Integer term; // en meses
     private LocalDate startDate;
@@ -43,4 +55,7 @@ public class Credit {
     private CreditStatus status; // ACTIVE, PAID, OVERDUE
     private LocalDateTime createdAt;
     private LocalDateTime updatedAt;
+
+    @Version
+    private Long version; // Control de concurrencia optimista
 }
\ No newline at end of file
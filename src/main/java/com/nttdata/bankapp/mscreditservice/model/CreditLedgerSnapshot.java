@@ -0,0 +1,28 @@
+package com.nttdata.bankapp.mscreditservice.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+
+/**
+ * Saldo de un crédito calculado desde su libro de pagos hasta una entrada dada.
+ * Evita recorrer el libro completo: el saldo actual es el del snapshot menos los pagos posteriores.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Document(collection = "credit_ledger_snapshots")
+public class CreditLedgerSnapshot {
+    @Id
+    private String creditId;
+    private long sequence; // Última entrada incluida
+    private Money remainingAmount;
+    private long payments; // Cantidad de entradas incluidas
+    private LocalDateTime takenAt;
+}
@@ -0,0 +1,46 @@
+package com.nttdata.bankapp.mscreditservice.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+
+/**
+ * Entrada del libro de pagos de un crédito. La colección es de solo inserción:
+ * las entradas no se modifican ni se eliminan. Además de los pagos registra los ajustes,
+ * cambios de saldo hechos fuera de makePayment, para que el libro siga reproduciendo el saldo.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Document(collection = CreditPayment.COLLECTION)
+// Único: la versión del crédito tras el pago identifica la entrada, un reintento del insert no la duplica.
+// Sirve además al historial paginado y al recorrido de la cola desde el último snapshot.
+@CompoundIndex(name = "creditId_sequence", def = "{'creditId': 1, 'sequence': 1}", unique = true)
+public class CreditPayment {
+    public static final String COLLECTION = "credit_payments";
+
+    @Id
+    private String id;
+    private String creditId;
+    private long sequence; // Versión del crédito después del pago
+    private Kind kind; // Vacío en las entradas anteriores a los ajustes: son pagos
+    private Money amount; // En un ajuste, lo que bajó el saldo (negativo si subió)
+    private Money remainingAmount; // Saldo del crédito después del pago
+    @Indexed
+    private LocalDateTime paidAt;
+
+    /**
+     * Origen de la entrada.
+     */
+    public enum Kind {
+        PAYMENT, ADJUSTMENT
+    }
+}
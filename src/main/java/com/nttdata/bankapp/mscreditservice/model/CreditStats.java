@@ -0,0 +1,59 @@
+package com.nttdata.bankapp.mscreditservice.model;
+
+import com.nttdata.bankapp.mscreditservice.model.enums.CreditStatus;
+import com.nttdata.bankapp.mscreditservice.model.enums.CreditType;
+import com.nttdata.bankapp.mscreditservice.model.enums.CustomerProfile;
+import com.nttdata.bankapp.mscreditservice.model.enums.CustomerType;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.Field;
+import org.springframework.data.mongodb.core.mapping.FieldType;
+
+import java.math.BigDecimal;
+
+/**
+ * Agregado materializado de la cartera: totales de créditos por tipo de crédito,
+ * tipo y perfil de cliente y estado. Se mantiene con incrementos en cada escritura
+ * y se reconstruye periódicamente desde la colección de créditos.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Document(collection = CreditStats.COLLECTION)
+public class CreditStats {
+    public static final String COLLECTION = "credit_stats";
+
+    private static final String SEPARATOR = "|";
+    private static final String NONE = "-";
+
+    @Id
+    private String id; // tipo|tipo cliente|perfil|estado, "-" si el valor es nulo
+    private CreditType type;
+    private CustomerType customerType;
+    private CustomerProfile customerProfile;
+    private CreditStatus status;
+    private long count;
+    @Field(targetType = FieldType.DECIMAL128)
+    private BigDecimal totalAmount;
+    @Field(targetType = FieldType.DECIMAL128)
+    private BigDecimal remainingAmount;
+
+    /**
+     * Construye la clave del agregado a partir de sus dimensiones.
+     * @return String con la clave, usada como _id
+     */
+    public static String keyOf(CreditType type, CustomerType customerType,
+                               CustomerProfile customerProfile, CreditStatus status) {
+        return name(type) + SEPARATOR + name(customerType) + SEPARATOR
+                + name(customerProfile) + SEPARATOR + name(status);
+    }
+
+    private static String name(Enum<?> value) {
+        return value == null ? NONE : value.name();
+    }
+}
@@ -0,0 +1,38 @@
+package com.nttdata.bankapp.mscreditservice.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+
+/**
+ * Registro de una operación recibida con Idempotency-Key.
+ * Mientras se procesa, reserva la clave; al terminar guarda la respuesta para devolverla en los reintentos.
+ * MongoDB elimina el documento al llegar a expireAt (índice TTL).
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder(toBuilder = true)
+@Document(collection = IdempotencyRecord.COLLECTION)
+public class IdempotencyRecord {
+    public static final String COLLECTION = "idempotency_keys";
+
+    @Id
+    private String id; // operación:clave
+    private String fingerprint; // Identifica la petición original: la clave no puede reutilizarse con otra
+    private Status status;
+    private String response; // Respuesta serializada en JSON, solo cuando status es COMPLETED
+    @Indexed(name = "expireAt_ttl", expireAfterSeconds = 0)
+    private Instant expireAt;
+
+    public enum Status {
+        IN_PROGRESS,
+        COMPLETED
+    }
+}
@@ -0,0 +1,251 @@
+package com.nttdata.bankapp.mscreditservice.model;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import org.bson.types.Decimal128;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Currency;
+
+/**
+ * Monto inmutable en unidades menores (céntimos) de una moneda.
+ * Las operaciones del pago y del saldo trabajan sobre un long, sin crear BigDecimal intermedios.
+ * El servicio opera en una sola moneda: en MongoDB solo se guarda el importe como Decimal128
+ * y al leerlo se asume {@link #DEFAULT_CURRENCY}.
+ */
+@JsonSerialize(using = Money.Serializer.class)
+@JsonDeserialize(using = Money.Deserializer.class)
+public final class Money implements Comparable<Money> {
+
+    public static final Currency DEFAULT_CURRENCY = Currency.getInstance("PEN");
+
+    // Exponente con sesgo de Decimal128 para la escala de dos decimales (6176 - 2)
+    private static final long DECIMAL128_BIASED_EXPONENT_SCALE_2 = 6174L;
+    private static final int DECIMAL128_EXPONENT_SHIFT = 49;
+    private static final long DECIMAL128_SIGN_BIT = Long.MIN_VALUE;
+    private static final long DECIMAL128_COEFFICIENT_HIGH_MASK = (1L << DECIMAL128_EXPONENT_SHIFT) - 1;
+
+    private final long minorUnits;
+    private final Currency currency;
+
+    private Money(long minorUnits, Currency currency) {
+        this.minorUnits = minorUnits;
+        this.currency = currency;
+    }
+
+    public static Money ofMinor(long minorUnits) {
+        return new Money(minorUnits, DEFAULT_CURRENCY);
+    }
+
+    public static Money ofMinor(long minorUnits, Currency currency) {
+        return new Money(minorUnits, currency);
+    }
+
+    public static Money zero() {
+        return ofMinor(0);
+    }
+
+    /**
+     * Convierte un importe decimal a la moneda por defecto.
+     * @param amount Importe con a lo sumo tantos decimales como admite la moneda
+     * @return Money, o null si amount es null
+     * @throws IllegalArgumentException si el importe tiene más decimales de los permitidos o no cabe en un long
+     */
+    public static Money of(BigDecimal amount) {
+        return of(amount, DEFAULT_CURRENCY);
+    }
+
+    public static Money of(BigDecimal amount, Currency currency) {
+        if (amount == null) {
+            return null;
+        }
+        int scale = currency.getDefaultFractionDigits();
+        try {
+            return new Money(amount.setScale(scale, RoundingMode.UNNECESSARY).unscaledValue().longValueExact(), currency);
+        } catch (ArithmeticException e) {
+            throw new IllegalArgumentException(amount.scale() > scale
+                    ? "Amount cannot have more than " + scale + " decimal places"
+                    : "Amount is out of range");
+        }
+    }
+
+    /**
+     * Convierte un importe ya guardado a la moneda por defecto. A diferencia de {@link #of(BigDecimal)},
+     * que valida la entrada de las solicitudes, los decimales de más se redondean (HALF_EVEN):
+     * un saldo histórico con tres decimales no debe impedir leer el crédito.
+     * @param amount Importe leído de MongoDB
+     * @return Money, o null si amount es null
+     * @throws IllegalArgumentException si el importe no cabe en un long
+     */
+    public static Money ofStored(BigDecimal amount) {
+        if (amount == null) {
+            return null;
+        }
+        return of(amount.setScale(DEFAULT_CURRENCY.getDefaultFractionDigits(), RoundingMode.HALF_EVEN));
+    }
+
+    /**
+     * Lee un importe guardado como Decimal128. Los valores con dos decimales, que son los que escribe
+     * {@link #toDecimal128()}, se decodifican directamente; el resto pasa por BigDecimal y se redondea
+     * como en {@link #ofStored(BigDecimal)}.
+     * @param value Importe en MongoDB
+     * @return Money en la moneda por defecto
+     */
+    public static Money of(Decimal128 value) {
+        long high = value.getHigh();
+        long low = value.getLow();
+        long exponent = (high & ~DECIMAL128_SIGN_BIT) >>> DECIMAL128_EXPONENT_SHIFT;
+        if (exponent == DECIMAL128_BIASED_EXPONENT_SCALE_2
+                && (high & DECIMAL128_COEFFICIENT_HIGH_MASK) == 0 && low >= 0
+                && DEFAULT_CURRENCY.getDefaultFractionDigits() == 2) {
+            return ofMinor((high & DECIMAL128_SIGN_BIT) != 0 ? -low : low);
+        }
+        return ofStored(value.bigDecimalValue());
+    }
+
+    public long getMinorUnits() {
+        return minorUnits;
+    }
+
+    public Currency getCurrency() {
+        return currency;
+    }
+
+    public Money plus(Money other) {
+        checkCurrency(other);
+        return new Money(Math.addExact(minorUnits, other.minorUnits), currency);
+    }
+
+    public Money minus(Money other) {
+        checkCurrency(other);
+        return new Money(Math.subtractExact(minorUnits, other.minorUnits), currency);
+    }
+
+    public Money negate() {
+        return new Money(Math.negateExact(minorUnits), currency);
+    }
+
+    public int signum() {
+        return Long.signum(minorUnits);
+    }
+
+    public boolean isZero() {
+        return minorUnits == 0;
+    }
+
+    public boolean isLessThan(Money other) {
+        return compareTo(other) < 0;
+    }
+
+    @Override
+    public int compareTo(Money other) {
+        checkCurrency(other);
+        return Long.compare(minorUnits, other.minorUnits);
+    }
+
+    public BigDecimal toBigDecimal() {
+        return BigDecimal.valueOf(minorUnits, currency.getDefaultFractionDigits());
+    }
+
+    /**
+     * Codifica el importe como Decimal128 sin pasar por BigDecimal cuando la moneda usa dos decimales.
+     * @return Decimal128 con la misma escala que la moneda
+     */
+    public Decimal128 toDecimal128() {
+        if (currency.getDefaultFractionDigits() != 2 || minorUnits == Long.MIN_VALUE) {
+            return new Decimal128(toBigDecimal());
+        }
+        long high = DECIMAL128_BIASED_EXPONENT_SCALE_2 << DECIMAL128_EXPONENT_SHIFT;
+        if (minorUnits < 0) {
+            high |= DECIMAL128_SIGN_BIT;
+        }
+        return Decimal128.fromIEEE754BIDEncoding(high, Math.abs(minorUnits));
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof Money)) {
+            return false;
+        }
+        Money other = (Money) o;
+        return minorUnits == other.minorUnits && currency.equals(other.currency);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * Long.hashCode(minorUnits) + currency.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        char[] buffer = new char[24];
+        int length = format(buffer);
+        return new String(buffer, 0, length);
+    }
+
+    // Escribe el importe en notación decimal plana (p. ej. -12.05) y devuelve la cantidad de caracteres
+    int format(char[] buffer) {
+        int scale = currency.getDefaultFractionDigits();
+        long value = minorUnits;
+        boolean negative = value < 0;
+        int position = buffer.length;
+        int digits = 0;
+        do {
+            // El resto negativo evita el desborde de Long.MIN_VALUE
+            int digit = (int) (value % 10);
+            buffer[--position] = (char) ('0' + (negative ? -digit : digit));
+            value /= 10;
+            digits++;
+            if (digits == scale) {
+                buffer[--position] = '.';
+            }
+        } while (value != 0 || digits <= scale);
+        if (negative) {
+            buffer[--position] = '-';
+        }
+        int length = buffer.length - position;
+        System.arraycopy(buffer, position, buffer, 0, length);
+        return length;
+    }
+
+    private void checkCurrency(Money other) {
+        if (!currency.equals(other.currency)) {
+            throw new IllegalArgumentException("Currency mismatch: " + currency + " and " + other.currency);
+        }
+    }
+
+    /**
+     * Escribe el importe como número JSON (1234.50) sin crear un BigDecimal.
+     */
+    static final class Serializer extends JsonSerializer<Money> {
+        @Override
+        public void serialize(Money value, JsonGenerator generator, SerializerProvider provider) throws IOException {
+            generator.writeNumber(value.toString());
+        }
+    }
+
+    /**
+     * Lee un importe JSON numérico o de texto en la moneda por defecto.
+     */
+    static final class Deserializer extends JsonDeserializer<Money> {
+        @Override
+        public Money deserialize(JsonParser parser, DeserializationContext context) throws IOException {
+            BigDecimal amount = parser.currentToken() == JsonToken.VALUE_STRING
+                    ? new BigDecimal(parser.getText().trim())
+                    : parser.getDecimalValue();
+            return Money.of(amount);
+        }
+    }
+}
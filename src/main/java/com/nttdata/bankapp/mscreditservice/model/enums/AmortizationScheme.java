@@ -0,0 +1,9 @@
+package com.nttdata.bankapp.mscreditservice.model.enums;
+
+/**
+ * Sistemas de amortización disponibles para el cronograma de cuotas.
+ */
+public enum AmortizationScheme {
+    FRENCH, // Cuota constante: interés sobre el saldo, capital creciente
+    FLAT    // Interés fijo sobre el monto original y capital constante
+}
@@ -0,0 +1,14 @@
+package com.nttdata.bankapp.mscreditservice.repository;
+
+import com.nttdata.bankapp.mscreditservice.model.Money;
+
+/**
+ * Proyección cerrada con los campos necesarios para consultar el saldo de un crédito.
+ * Solo estos campos se leen de MongoDB, sin decodificar el documento completo.
+ */
+public interface CreditBalanceView {
+    String getId();
+    String getCreditNumber();
+    Money getAmount();
+    Money getRemainingAmount();
+}
@@ -0,0 +1,12 @@
+package com.nttdata.bankapp.mscreditservice.repository;
+
+import com.nttdata.bankapp.mscreditservice.model.CreditLedgerSnapshot;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Repositorio de los snapshots de saldo calculados desde el libro de pagos.
+ */
+@Repository
+public interface CreditLedgerSnapshotRepository extends ReactiveMongoRepository<CreditLedgerSnapshot, String> {
+}
@@ -0,0 +1,18 @@
+package com.nttdata.bankapp.mscreditservice.repository;
+
+import com.nttdata.bankapp.mscreditservice.model.CreditPayment;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+
+/**
+ * Repositorio del libro de pagos de los créditos.
+ */
+@Repository
+public interface CreditPaymentRepository extends ReactiveMongoRepository<CreditPayment, String>, CreditPaymentRepositoryCustom {
+
+    // Paginación por clave sobre (creditId, sequence): usa el índice único, sin skip
+    Flux<CreditPayment> findByCreditIdOrderBySequenceAsc(String creditId, Pageable pageable);
+    Flux<CreditPayment> findByCreditIdAndSequenceGreaterThanOrderBySequenceAsc(String creditId, long sequence, Pageable pageable);
+}
@@ -0,0 +1,18 @@
+package com.nttdata.bankapp.mscreditservice.repository;
+
+import reactor.core.publisher.Flux;
+
+import java.time.LocalDateTime;
+
+/**
+ * Operaciones del libro de pagos que requieren acceso directo a ReactiveMongoTemplate.
+ */
+public interface CreditPaymentRepositoryCustom {
+
+    /**
+     * Obtiene los créditos con pagos registrados desde una fecha, sin repetir.
+     * @param since Fecha desde la que se buscan pagos (exclusiva)
+     * @return Flux con los IDs de crédito
+     */
+    Flux<String> findCreditIdsPaidSince(LocalDateTime since);
+}
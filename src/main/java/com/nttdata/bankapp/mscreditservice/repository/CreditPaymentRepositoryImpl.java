@@ -0,0 +1,25 @@
+package com.nttdata.bankapp.mscreditservice.repository;
+
+import com.nttdata.bankapp.mscreditservice.model.CreditPayment;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import reactor.core.publisher.Flux;
+
+import java.time.LocalDateTime;
+
+/**
+ * Implementación de las operaciones personalizadas del libro de pagos.
+ */
+@RequiredArgsConstructor
+public class CreditPaymentRepositoryImpl implements CreditPaymentRepositoryCustom {
+
+    private final ReactiveMongoTemplate mongoTemplate;
+
+    @Override
+    public Flux<String> findCreditIdsPaidSince(LocalDateTime since) {
+        Query query = Query.query(Criteria.where("paidAt").gt(since));
+        return mongoTemplate.findDistinct(query, "creditId", CreditPayment.class, String.class);
+    }
+}
@@ -2,6 +2,7 @@ package com.nttdata.bankapp.mscreditservice.repository;
 import com.nttdata.bankapp.mscreditservice.model.Credit;
 import com.nttdata.bankapp.mscreditservice.model.enums.CreditType;
 import com.nttdata.bankapp.mscreditservice.model.enums.CustomerType;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
 import org.springframework.stereotype.Repository;
 import reactor.core.publisher.Flux;
@@ -11,10 +12,17 @@ import reactor.core.publisher.Mono;
  * Repositorio para operaciones CRUD en la colección de créditos.
  */
 @Repository
-public interface CreditRepository extends ReactiveMongoRepository<Credit, String> {
+public interface CreditRepository extends ReactiveMongoRepository<Credit, String>, CreditRepositoryCustom {
     Flux<Credit> findByCustomerId(String customerId);
     Mono<Credit> findByCreditNumber(String creditNumber);
     Flux<Credit> findByCustomerIdAndType(String customerId, CreditType type);
     Flux<Credit> findByCustomerIdAndCustomerType(String customerId, CustomerType customerType);
     Mono<Long> countByCustomerIdAndType(String customerId, CreditType type);
+
+    // Proyección para GET /credits/{id}/balance: solo creditNumber, amount y remainingAmount
+    Mono<CreditBalanceView> findBalanceById(String id);
+
+    // Paginación por clave (keyset) sobre _id: no usa skip, el costo no crece con la página
+    Flux<Credit> findAllByOrderByIdAsc(Pageable pageable);
+    Flux<Credit> findByIdGreaterThanOrderByIdAsc(String id, Pageable pageable);
 }
\ No newline at end of file
@@ -0,0 +1,50 @@
+package com.nttdata.bankapp.mscreditservice.repository;
+
+import com.nttdata.bankapp.mscreditservice.model.Credit;
+import com.nttdata.bankapp.mscreditservice.model.Money;
+import com.nttdata.bankapp.mscreditservice.model.enums.CreditType;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Operaciones de repositorio que requieren acceso directo a ReactiveMongoTemplate.
+ */
+public interface CreditRepositoryCustom {
+
+    /**
+     * Aplica un pago de forma atómica en una sola operación findAndModify.
+     * El descuento solo se aplica si el saldo pendiente cubre el monto.
+     * @param id ID del crédito
+     * @param amount Monto a pagar
+     * @return Mono con el crédito tal como estaba antes del pago, vacío si no existe o el saldo es insuficiente
+     */
+    Mono<Credit> applyPayment(String id, Money amount);
+
+    /**
+     * Obtiene, en una sola consulta, cuáles de los clientes indicados ya tienen un crédito del tipo dado.
+     * @param customerIds IDs de los clientes
+     * @param type Tipo de crédito
+     * @return Flux con los IDs de cliente (sin repetir) que tienen al menos un crédito del tipo
+     */
+    Flux<String> findCustomerIdsWithCreditType(Collection<String> customerIds, CreditType type);
+
+    /**
+     * Inserta los créditos con un insertMany no ordenado: un error en un elemento no detiene al resto.
+     * Los IDs se asignan antes del insert, por lo que quedan en cada crédito aunque alguno falle.
+     * @param credits Créditos a insertar
+     * @return Mono con los errores por posición en la lista; vacío si todos se insertaron
+     */
+    Mono<Map<Integer, String>> insertAllUnordered(List<Credit> credits);
+
+    /**
+     * Agrupa los créditos de un cliente por tipo y estado en una sola agregación:
+     * cantidad y sumas de monto y saldo pendiente calculadas en MongoDB.
+     * @param customerId ID del cliente
+     * @return Flux con una fila por combinación de tipo y estado presente
+     */
+    Flux<CreditSummaryRow> summarizeByCustomer(String customerId);
+}
@@ -0,0 +1,131 @@
+package com.nttdata.bankapp.mscreditservice.repository;
+
+import com.nttdata.bankapp.mscreditservice.model.Credit;
+import com.nttdata.bankapp.mscreditservice.model.Money;
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.client.model.InsertManyOptions;
+import com.nttdata.bankapp.mscreditservice.model.enums.CreditStatus;
+import com.nttdata.bankapp.mscreditservice.model.enums.CreditType;
+import lombok.RequiredArgsConstructor;
+import org.bson.Document;
+import org.bson.types.Decimal128;
+import org.bson.types.ObjectId;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOperation;
+import org.springframework.data.mongodb.core.aggregation.AggregationUpdate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Implementación de las operaciones personalizadas del repositorio de créditos.
+ */
+@RequiredArgsConstructor
+public class CreditRepositoryImpl implements CreditRepositoryCustom {
+
+    private final ReactiveMongoTemplate mongoTemplate;
+
+    @Override
+    public Mono<Credit> applyPayment(String id, Money amount) {
+        Decimal128 payment = amount.toDecimal128();
+
+        // La condición sobre el saldo evita pagos mayores a la deuda sin leer el documento antes
+        Query query = Query.query(Criteria.where("id").is(id)
+                .and("remainingAmount").gte(payment));
+
+        // Pipeline de actualización: descuenta el saldo, marca PAID cuando llega a cero e incrementa la versión.
+        // Las etapas se escriben en crudo porque el mapper intentaría convertir "$remainingAmount" a Decimal128.
+        AggregationUpdate update = AggregationUpdate.from(List.<AggregationOperation>of(
+                context -> new Document("$set", new Document("remainingAmount",
+                        new Document("$subtract", List.of("$remainingAmount", payment)))),
+                context -> new Document("$set", new Document("status",
+                        new Document("$cond", List.of(
+                                new Document("$eq", List.of("$remainingAmount", 0)),
+                                CreditStatus.PAID.name(),
+                                "$status")))
+                        .append("updatedAt", new Date())
+                        .append("version", new Document("$add", List.of(
+                                new Document("$ifNull", List.of("$version", 0L)), 1L))))));
+
+        return mongoTemplate.findAndModify(query, update,
+                FindAndModifyOptions.options().returnNew(false), Credit.class);
+    }
+
+    @Override
+    public Flux<String> findCustomerIdsWithCreditType(Collection<String> customerIds, CreditType type) {
+        Query query = Query.query(Criteria.where("customerId").in(customerIds)
+                .and("type").is(type));
+        return mongoTemplate.findDistinct(query, "customerId", Credit.class, String.class);
+    }
+
+    @Override
+    public Mono<Map<Integer, String>> insertAllUnordered(List<Credit> credits) {
+        if (credits.isEmpty()) {
+            return Mono.just(Map.of());
+        }
+
+        List<Document> documents = new ArrayList<>(credits.size());
+        for (Credit credit : credits) {
+            // El ID se asigna aquí para conocerlo incluso si el insert falla parcialmente
+            credit.setId(new ObjectId().toHexString());
+            credit.setVersion(0L);
+            Document document = new Document();
+            mongoTemplate.getConverter().write(credit, document);
+            documents.add(document);
+        }
+
+        return mongoTemplate.getCollection(mongoTemplate.getCollectionName(Credit.class))
+                .flatMap(collection -> Mono.from(collection.insertMany(documents, new InsertManyOptions().ordered(false))))
+                .map(result -> Map.<Integer, String>of())
+                .onErrorResume(MongoBulkWriteException.class, e -> Mono.just(e.getWriteErrors().stream()
+                        .collect(Collectors.toMap(BulkWriteError::getIndex, BulkWriteError::getMessage))));
+    }
+
+    @Override
+    public Flux<CreditSummaryRow> summarizeByCustomer(String customerId) {
+        // Usa el índice customerId_type; las sumas de Decimal128 se hacen en el servidor sin pérdida de precisión
+        Aggregation aggregation = Aggregation.newAggregation(
+                Aggregation.match(Criteria.where("customerId").is(customerId)),
+                Aggregation.group("type", "status")
+                        .count().as("count")
+                        .sum("amount").as("amount")
+                        .sum("remainingAmount").as("remainingAmount"));
+
+        return mongoTemplate.aggregate(aggregation, Credit.class, Document.class)
+                .map(this::toSummaryRow);
+    }
+
+    private CreditSummaryRow toSummaryRow(Document document) {
+        Document group = document.get("_id", Document.class);
+        String type = group.getString("type");
+        String status = group.getString("status");
+        return new CreditSummaryRow(
+                type == null ? null : CreditType.valueOf(type),
+                status == null ? null : CreditStatus.valueOf(status),
+                ((Number) document.get("count")).longValue(),
+                toBigDecimal(document.get("amount")),
+                toBigDecimal(document.get("remainingAmount")));
+    }
+
+    private static BigDecimal toBigDecimal(Object value) {
+        if (value instanceof Decimal128) {
+            return ((Decimal128) value).bigDecimalValue();
+        }
+        if (value instanceof Number) {
+            return new BigDecimal(value.toString());
+        }
+        return BigDecimal.ZERO;
+    }
+}
@@ -0,0 +1,12 @@
+package com.nttdata.bankapp.mscreditservice.repository;
+
+import com.nttdata.bankapp.mscreditservice.model.CreditStats;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Repositorio del agregado materializado de la cartera de créditos.
+ */
+@Repository
+public interface CreditStatsRepository extends ReactiveMongoRepository<CreditStats, String>, CreditStatsRepositoryCustom {
+}
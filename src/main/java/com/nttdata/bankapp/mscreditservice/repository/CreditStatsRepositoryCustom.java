@@ -0,0 +1,29 @@
+package com.nttdata.bankapp.mscreditservice.repository;
+
+import com.nttdata.bankapp.mscreditservice.model.CreditStats;
+import reactor.core.publisher.Mono;
+
+import java.util.Collection;
+
+/**
+ * Operaciones de mantenimiento del agregado materializado de la cartera.
+ */
+public interface CreditStatsRepositoryCustom {
+
+    /**
+     * Aplica variaciones a los agregados con $inc y upsert, en un solo bulkWrite no ordenado.
+     * @param deltas Variaciones de cantidad, monto y saldo por clave (pueden ser negativas)
+     * @return Mono que completa cuando se aplicaron las variaciones
+     */
+    Mono<Void> increment(Collection<CreditStats> deltas);
+
+    /**
+     * Recalcula todos los agregados desde la colección de créditos y aplica la diferencia con los actuales con $inc,
+     * sin reemplazar la colección, de modo que los incrementos concurrentes se conservan.
+     * Ambas lecturas usan una sesión snapshot (requiere replica set). Solo queda expuesto un crédito escrito antes del
+     * snapshot cuyo incremento llega después, que se cuenta dos veces hasta la siguiente reconstrucción.
+     * No debe ejecutarse en paralelo consigo misma: dos ejecuciones sobre el mismo snapshot aplicarían dos veces la corrección.
+     * @return Mono que completa cuando se aplicaron las correcciones
+     */
+    Mono<Void> rebuild();
+}
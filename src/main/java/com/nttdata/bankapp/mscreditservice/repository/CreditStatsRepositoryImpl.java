@@ -0,0 +1,158 @@
+package com.nttdata.bankapp.mscreditservice.repository;
+
+import com.mongodb.ClientSessionOptions;
+import com.mongodb.client.model.BulkWriteOptions;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.UpdateOneModel;
+import com.mongodb.client.model.UpdateOptions;
+import com.mongodb.client.model.Updates;
+import com.mongodb.client.model.WriteModel;
+import com.mongodb.reactivestreams.client.MongoCollection;
+import com.nttdata.bankapp.mscreditservice.model.Credit;
+import com.nttdata.bankapp.mscreditservice.model.CreditStats;
+import lombok.RequiredArgsConstructor;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.bson.types.Decimal128;
+import org.reactivestreams.Publisher;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Implementación del mantenimiento del agregado materializado de la cartera.
+ */
+@RequiredArgsConstructor
+public class CreditStatsRepositoryImpl implements CreditStatsRepositoryCustom {
+
+    private final ReactiveMongoTemplate mongoTemplate;
+
+    @Override
+    public Mono<Void> increment(Collection<CreditStats> deltas) {
+        List<WriteModel<Document>> updates = new ArrayList<>(deltas.size());
+        for (CreditStats delta : deltas) {
+            if (delta.getCount() == 0 && delta.getTotalAmount().signum() == 0
+                    && delta.getRemainingAmount().signum() == 0) {
+                continue;
+            }
+            Bson update = Updates.combine(
+                    Updates.setOnInsert("type", name(delta.getType())),
+                    Updates.setOnInsert("customerType", name(delta.getCustomerType())),
+                    Updates.setOnInsert("customerProfile", name(delta.getCustomerProfile())),
+                    Updates.setOnInsert("status", name(delta.getStatus())),
+                    Updates.inc("count", delta.getCount()),
+                    Updates.inc("totalAmount", new Decimal128(delta.getTotalAmount())),
+                    Updates.inc("remainingAmount", new Decimal128(delta.getRemainingAmount())));
+            updates.add(new UpdateOneModel<>(Filters.eq("_id", delta.getId()), update, new UpdateOptions().upsert(true)));
+        }
+        if (updates.isEmpty()) {
+            return Mono.empty();
+        }
+
+        return mongoTemplate.getCollection(CreditStats.COLLECTION)
+                .flatMap(collection -> Mono.from(collection.bulkWrite(updates, new BulkWriteOptions().ordered(false))))
+                .then();
+    }
+
+    @Override
+    public Mono<Void> rebuild() {
+        List<Document> pipeline = List.of(
+                new Document("$group", new Document("_id", new Document("type", "$type")
+                        .append("customerType", "$customerType")
+                        .append("customerProfile", "$customerProfile")
+                        .append("status", "$status"))
+                        .append("count", new Document("$sum", 1L))
+                        .append("totalAmount", new Document("$sum", "$amount"))
+                        .append("remainingAmount", new Document("$sum", "$remainingAmount"))),
+                new Document("$project", new Document("_id", new Document("$concat", List.of(
+                        keyPart("$_id.type"), "|", keyPart("$_id.customerType"), "|",
+                        keyPart("$_id.customerProfile"), "|", keyPart("$_id.status"))))
+                        .append("type", "$_id.type")
+                        .append("customerType", "$_id.customerType")
+                        .append("customerProfile", "$_id.customerProfile")
+                        .append("status", "$_id.status")
+                        .append("count", 1)
+                        .append("totalAmount", new Document("$toDecimal", "$totalAmount"))
+                        .append("remainingAmount", new Document("$toDecimal", "$remainingAmount"))));
+
+        // Agregados actuales y recalculados leídos en el mismo snapshot: la diferencia es exactamente el desvío
+        // a esa fecha, y aplicarla con $inc conserva los incrementos que llegan mientras corre la agregación
+        Mono<Map<String, CreditStats>> corrections = Mono.usingWhen(
+                mongoTemplate.getMongoDatabaseFactory().getSession(ClientSessionOptions.builder().snapshot(true).build()),
+                session -> read(mongoTemplate.getCollection(CreditStats.COLLECTION),
+                        collection -> collection.find(session))
+                        .flatMap(current -> read(
+                                mongoTemplate.getCollection(mongoTemplate.getCollectionName(Credit.class)),
+                                collection -> collection.aggregate(session, pipeline))
+                                .map(rebuilt -> corrections(current, rebuilt))),
+                session -> Mono.fromRunnable(session::close));
+
+        Bson empty = Filters.and(
+                Filters.eq("count", 0L),
+                Filters.eq("totalAmount", new Decimal128(BigDecimal.ZERO)),
+                Filters.eq("remainingAmount", new Decimal128(BigDecimal.ZERO)));
+        return corrections
+                .flatMap(deltas -> increment(deltas.values()))
+                // Las claves que quedaron en cero ya no tienen créditos; un incremento posterior las vuelve a crear
+                .then(mongoTemplate.getCollection(CreditStats.COLLECTION)
+                        .flatMap(collection -> Mono.from(collection.deleteMany(empty))))
+                .then();
+    }
+
+    private Mono<Map<String, CreditStats>> read(Mono<MongoCollection<Document>> collection,
+                                                Function<MongoCollection<Document>, Publisher<Document>> query) {
+        return collection
+                .flatMapMany(query)
+                .map(document -> mongoTemplate.getConverter().read(CreditStats.class, document))
+                .collectMap(CreditStats::getId);
+    }
+
+    private static Map<String, CreditStats> corrections(Map<String, CreditStats> current,
+                                                        Map<String, CreditStats> rebuilt) {
+        Map<String, CreditStats> deltas = new HashMap<>();
+        rebuilt.forEach((key, stats) -> deltas.put(key, difference(stats, current.get(key))));
+        current.forEach((key, stats) -> deltas.computeIfAbsent(key, k -> difference(null, stats)));
+        return deltas;
+    }
+
+    private static CreditStats difference(CreditStats rebuilt, CreditStats current) {
+        CreditStats dimensions = rebuilt != null ? rebuilt : current;
+        return CreditStats.builder()
+                .id(dimensions.getId())
+                .type(dimensions.getType())
+                .customerType(dimensions.getCustomerType())
+                .customerProfile(dimensions.getCustomerProfile())
+                .status(dimensions.getStatus())
+                .count(count(rebuilt) - count(current))
+                .totalAmount(amount(rebuilt, CreditStats::getTotalAmount)
+                        .subtract(amount(current, CreditStats::getTotalAmount)))
+                .remainingAmount(amount(rebuilt, CreditStats::getRemainingAmount)
+                        .subtract(amount(current, CreditStats::getRemainingAmount)))
+                .build();
+    }
+
+    private static long count(CreditStats stats) {
+        return stats == null ? 0 : stats.getCount();
+    }
+
+    private static BigDecimal amount(CreditStats stats, Function<CreditStats, BigDecimal> field) {
+        BigDecimal value = stats == null ? null : field.apply(stats);
+        return value == null ? BigDecimal.ZERO : value;
+    }
+
+    // Mismo formato que CreditStats.keyOf: "-" cuando la dimensión no existe
+    private static Document keyPart(String field) {
+        return new Document("$ifNull", List.of(field, "-"));
+    }
+
+    private static String name(Enum<?> value) {
+        return value == null ? null : value.name();
+    }
+}
@@ -0,0 +1,23 @@
+package com.nttdata.bankapp.mscreditservice.repository;
+
+import com.nttdata.bankapp.mscreditservice.model.enums.CreditStatus;
+import com.nttdata.bankapp.mscreditservice.model.enums.CreditType;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+/**
+ * Resultado de la agregación de créditos de un cliente para una combinación de tipo y estado.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CreditSummaryRow {
+    private CreditType type;
+    private CreditStatus status;
+    private long count;
+    private BigDecimal amount;
+    private BigDecimal remainingAmount;
+}
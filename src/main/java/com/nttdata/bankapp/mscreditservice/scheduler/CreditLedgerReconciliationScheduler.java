@@ -0,0 +1,106 @@
+package com.nttdata.bankapp.mscreditservice.scheduler;
+
+import com.nttdata.bankapp.mscreditservice.repository.CreditPaymentRepository;
+import com.nttdata.bankapp.mscreditservice.repository.CreditRepository;
+import com.nttdata.bankapp.mscreditservice.service.support.CreditLedger;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Compara el saldo de los créditos pagados recientemente con el saldo calculado desde su libro de pagos.
+ * Una diferencia indica una entrada que no se pudo insertar o un cambio de saldo fuera de makePayment.
+ */
+@Component
+@Slf4j
+public class CreditLedgerReconciliationScheduler {
+
+    private static final String MISMATCHES_METRIC = "credit.ledger.mismatches";
+
+    private final CreditRepository creditRepository;
+    private final CreditPaymentRepository creditPaymentRepository;
+    private final CreditLedger creditLedger;
+    private final MeterRegistry meterRegistry;
+    private final int concurrency;
+    private final Duration recheckDelay;
+    private final AtomicBoolean running = new AtomicBoolean(false);
+    private volatile LocalDateTime lastRun;
+
+    public CreditLedgerReconciliationScheduler(CreditRepository creditRepository,
+                                               CreditPaymentRepository creditPaymentRepository,
+                                               CreditLedger creditLedger,
+                                               MeterRegistry meterRegistry,
+                                               @Value("${app.ledger.reconcile.initial-window:24h}") Duration initialWindow,
+                                               @Value("${app.ledger.reconcile.concurrency:8}") int concurrency,
+                                               @Value("${app.ledger.reconcile.recheck-delay:5s}") Duration recheckDelay) {
+        this.creditRepository = creditRepository;
+        this.creditPaymentRepository = creditPaymentRepository;
+        this.creditLedger = creditLedger;
+        this.meterRegistry = meterRegistry;
+        this.concurrency = concurrency;
+        this.recheckDelay = recheckDelay;
+        this.lastRun = LocalDateTime.now().minus(initialWindow);
+    }
+
+    /**
+     * Reconciliación periódica de los créditos con pagos desde la ejecución anterior.
+     */
+    @Scheduled(cron = "${app.ledger.reconcile-cron:0 15 * * * *}")
+    public void reconcile() {
+        // Evita ejecuciones solapadas si una tarda más que el intervalo
+        if (!running.compareAndSet(false, true)) {
+            log.warn("Ledger reconciliation still running, skipping this execution");
+            return;
+        }
+
+        LocalDateTime since = lastRun;
+        LocalDateTime startedAt = LocalDateTime.now();
+        Timer.Sample sample = Timer.start(meterRegistry);
+        creditPaymentRepository.findCreditIdsPaidSince(since)
+                .flatMap(this::reconcile, concurrency)
+                .filter(matches -> !matches)
+                .count()
+                .doFinally(signal -> {
+                    sample.stop(meterRegistry.timer("credit.ledger.reconcile.duration", "outcome", signal.name()));
+                    running.set(false);
+                })
+                .subscribe(
+                        mismatches -> {
+                            // Solo avanza si terminó: si falla, la siguiente ejecución vuelve a cubrir la ventana
+                            lastRun = startedAt;
+                            log.info("Ledger reconciliation finished with {} mismatches", mismatches);
+                        },
+                        e -> log.error("Ledger reconciliation failed: {}", e.getMessage(), e));
+    }
+
+    private Mono<Boolean> reconcile(String creditId) {
+        // Un pago en curso puede haber actualizado el saldo sin haber insertado aún su entrada:
+        // la diferencia solo se reporta si persiste al volver a comparar
+        return compare(creditId, false)
+                .flatMap(matches -> matches
+                        ? Mono.just(true)
+                        : Mono.delay(recheckDelay).then(compare(creditId, true)));
+    }
+
+    private Mono<Boolean> compare(String creditId, boolean report) {
+        return Mono.zip(creditRepository.findBalanceById(creditId), creditLedger.remainingAmount(creditId))
+                .map(balances -> {
+                    boolean matches = balances.getT1().getRemainingAmount().equals(balances.getT2());
+                    if (!matches && report) {
+                        log.warn("Credit {} has remaining amount {} but its ledger gives {}",
+                                creditId, balances.getT1().getRemainingAmount(), balances.getT2());
+                        meterRegistry.counter(MISMATCHES_METRIC).increment();
+                    }
+                    return matches;
+                })
+                .defaultIfEmpty(true);
+    }
+}
@@ -0,0 +1,89 @@
+package com.nttdata.bankapp.mscreditservice.scheduler;
+
+import com.nttdata.bankapp.mscreditservice.repository.CreditStatsRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Reconstruye el agregado materializado de la cartera para corregir desvíos (incrementos fallidos).
+ * Corre en una sola réplica a la vez mediante SchedulerLock.
+ */
+@Component
+@Slf4j
+public class CreditStatsRebuildScheduler {
+
+    static final String LOCK_NAME = "credit-stats-rebuild";
+
+    private final CreditStatsRepository creditStatsRepository;
+    private final SchedulerLock schedulerLock;
+    private final MeterRegistry meterRegistry;
+    private final Duration lockLease;
+    private final AtomicBoolean running = new AtomicBoolean(false);
+
+    public CreditStatsRebuildScheduler(CreditStatsRepository creditStatsRepository,
+                                       SchedulerLock schedulerLock,
+                                       MeterRegistry meterRegistry,
+                                       @Value("${app.credit-stats.rebuild-lock-lease:10m}") Duration lockLease) {
+        this.creditStatsRepository = creditStatsRepository;
+        this.schedulerLock = schedulerLock;
+        this.meterRegistry = meterRegistry;
+        this.lockLease = lockLease;
+    }
+
+    /**
+     * Construye el agregado al iniciar si la colección todavía no existe o está vacía.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildIfEmpty() {
+        creditStatsRepository.count()
+                .filter(count -> count == 0)
+                .subscribe(
+                        empty -> rebuild(),
+                        e -> log.error("Could not check credit stats: {}", e.getMessage(), e));
+    }
+
+    /**
+     * Reconstrucción periódica, por defecto diaria en horario de baja carga.
+     */
+    @Scheduled(cron = "${app.credit-stats.rebuild-cron:0 30 3 * * *}")
+    public void rebuild() {
+        // Evita reconstrucciones solapadas si una tarda más que el intervalo
+        if (!running.compareAndSet(false, true)) {
+            log.warn("Credit stats rebuild still running, skipping this execution");
+            return;
+        }
+
+        // Entre réplicas: todas disparan el cron (y buildIfEmpty al iniciar), solo una reconstruye
+        Mono<Boolean> lock = Mono.defer(() -> schedulerLock.tryAcquire(LOCK_NAME, lockLease))
+                .doOnNext(acquired -> {
+                    if (!acquired) {
+                        log.info("Credit stats rebuild running on another instance, skipping this execution");
+                    }
+                })
+                .filter(Boolean::booleanValue);
+
+        Mono.usingWhen(lock, acquired -> timedRebuild(), acquired -> schedulerLock.release(LOCK_NAME))
+                .doFinally(signal -> running.set(false))
+                .subscribe(
+                        null,
+                        e -> log.error("Credit stats rebuild failed: {}", e.getMessage(), e));
+    }
+
+    private Mono<Void> timedRebuild() {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        return creditStatsRepository.rebuild()
+                .doFinally(signal -> sample.stop(
+                        meterRegistry.timer("credit.stats.rebuild.duration", "outcome", signal.name())))
+                .doOnSuccess(done -> log.info("Credit stats rebuilt"));
+    }
+}
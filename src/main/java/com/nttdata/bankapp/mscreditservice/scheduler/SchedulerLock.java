@@ -0,0 +1,62 @@
+package com.nttdata.bankapp.mscreditservice.scheduler;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Bloqueo entre réplicas para tareas programadas que deben correr en una sola instancia a la vez.
+ * Cada tarea tiene un documento en MongoDB; se toma con un upsert condicionado a que la reserva anterior
+ * haya vencido (el _id único resuelve la carrera) y vence solo si la instancia cae sin liberarlo.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class SchedulerLock {
+
+    static final String COLLECTION = "scheduler_locks";
+
+    private final ReactiveMongoTemplate mongoTemplate;
+    private final String owner = UUID.randomUUID().toString();
+
+    /**
+     * Intenta tomar el bloqueo de una tarea.
+     * @param name Nombre de la tarea, usado como _id
+     * @param lease Duración máxima de la reserva; debe superar lo que tarda la tarea
+     * @return Mono con true si esta instancia tomó el bloqueo, false si lo tiene otra
+     */
+    public Mono<Boolean> tryAcquire(String name, Duration lease) {
+        Instant now = Instant.now();
+        Query query = Query.query(Criteria.where("_id").is(name).and("lockedUntil").lte(now));
+        Update update = new Update()
+                .set("lockedUntil", now.plus(lease))
+                .set("lockedAt", now)
+                .set("lockedBy", owner);
+        return mongoTemplate.upsert(query, update, COLLECTION)
+                .thenReturn(true)
+                .onErrorResume(DuplicateKeyException.class, e -> Mono.just(false));
+    }
+
+    /**
+     * Libera el bloqueo si todavía pertenece a esta instancia.
+     * @param name Nombre de la tarea
+     * @return Mono que completa cuando se liberó el bloqueo
+     */
+    public Mono<Void> release(String name) {
+        Query query = Query.query(Criteria.where("_id").is(name).and("lockedBy").is(owner));
+        return mongoTemplate.updateFirst(query, Update.update("lockedUntil", Instant.now()), COLLECTION)
+                .doOnError(e -> log.warn("Could not release scheduler lock {}: {}", name, e.getMessage()))
+                .onErrorResume(e -> Mono.empty())
+                .then();
+    }
+}
@@ -1,7 +1,13 @@
 package com.nttdata.bankapp.mscreditservice.service;
 
 import com.nttdata.bankapp.mscreditservice.dto.CreditBalanceDto;
+import com.nttdata.bankapp.mscreditservice.dto.CreditBatchResultDto;
 import com.nttdata.bankapp.mscreditservice.dto.CreditDto;
+import com.nttdata.bankapp.mscreditservice.dto.CreditPaymentDto;
+import com.nttdata.bankapp.mscreditservice.dto.CreditStatsDto;
+import com.nttdata.bankapp.mscreditservice.dto.CreditSummaryDto;
+import com.nttdata.bankapp.mscreditservice.dto.InstallmentDto;
+import com.nttdata.bankapp.mscreditservice.model.enums.AmortizationScheme;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
@@ -11,13 +17,18 @@ import java.math.BigDecimal;
  * Interfaz que define los servicios para operaciones con créditos.
  */
 public interface CreditService {
-    Flux<CreditDto> findAll();
+    Flux<CreditDto> findAll(String after, Integer limit);
     Mono<CreditDto> findById(String id);
     Flux<CreditDto> findByCustomerId(String customerId);
     Mono<CreditDto> findByCreditNumber(String creditNumber);
+    Mono<CreditSummaryDto> getCustomerSummary(String customerId);
     Mono<CreditDto> save(CreditDto creditDto);
+    Flux<CreditBatchResultDto> saveAll(Flux<CreditDto> creditDtos);
     Mono<CreditDto> update(String id, CreditDto creditDto);
     Mono<Void> delete(String id);
     Mono<CreditBalanceDto> getBalance(String id);
     Mono<CreditDto> makePayment(String id, BigDecimal amount);
+    Flux<CreditPaymentDto> getPayments(String id, Long after, Integer limit);
+    Mono<CreditStatsDto> getStats();
+    Flux<InstallmentDto> getSchedule(String id, AmortizationScheme scheme);
 }
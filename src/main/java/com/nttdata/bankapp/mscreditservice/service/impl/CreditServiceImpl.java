@@ -2,27 +2,62 @@ package com.nttdata.bankapp.mscreditservice.service.impl;
 
 import com.nttdata.bankapp.mscreditservice.client.CustomerService;
 import com.nttdata.bankapp.mscreditservice.dto.CreditBalanceDto;
+import com.nttdata.bankapp.mscreditservice.dto.CreditBatchResultDto;
 import com.nttdata.bankapp.mscreditservice.dto.CreditDto;
+import com.nttdata.bankapp.mscreditservice.dto.CreditPaymentDto;
+import com.nttdata.bankapp.mscreditservice.dto.CreditStatsDto;
+import com.nttdata.bankapp.mscreditservice.dto.CreditSummaryDto;
+import com.nttdata.bankapp.mscreditservice.dto.InstallmentDto;
 
 
 import com.nttdata.bankapp.mscreditservice.exception.CreditNotFoundException;
 import com.nttdata.bankapp.mscreditservice.exception.CustomerNotFoundException;
 import com.nttdata.bankapp.mscreditservice.exception.InvalidCreditTypeException;
 import com.nttdata.bankapp.mscreditservice.model.Credit;
+import com.nttdata.bankapp.mscreditservice.model.CreditPayment;
+import com.nttdata.bankapp.mscreditservice.model.CreditStats;
+import com.nttdata.bankapp.mscreditservice.model.Money;
+import com.nttdata.bankapp.mscreditservice.model.enums.AmortizationScheme;
+import com.nttdata.bankapp.mscreditservice.model.enums.CreditStatus;
 import com.nttdata.bankapp.mscreditservice.model.enums.CreditType;
 import com.nttdata.bankapp.mscreditservice.model.enums.CustomerType;
+import com.nttdata.bankapp.mscreditservice.repository.CreditPaymentRepository;
 import com.nttdata.bankapp.mscreditservice.repository.CreditRepository;
+import com.nttdata.bankapp.mscreditservice.repository.CreditStatsRepository;
+import com.nttdata.bankapp.mscreditservice.repository.CreditSummaryRow;
 import com.nttdata.bankapp.mscreditservice.service.CreditService;
+import com.nttdata.bankapp.mscreditservice.service.support.AmortizationCalculator;
+import com.nttdata.bankapp.mscreditservice.service.support.AmortizationSchedule;
+import com.nttdata.bankapp.mscreditservice.service.support.CreditLedger;
+import com.nttdata.bankapp.mscreditservice.service.support.CreditNumberGenerator;
+import com.nttdata.bankapp.mscreditservice.service.support.CreditReadModel;
+import com.nttdata.bankapp.mscreditservice.service.support.CreditStatsRecorder;
+import com.nttdata.bankapp.mscreditservice.service.support.OptimisticLockRetry;
+import com.nttdata.bankapp.mscreditservice.service.support.ServiceMetrics;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.util.function.Tuple2;
 
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
-import java.util.UUID;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
 
 /**
  * Implementación de los servicios para operaciones con créditos.
@@ -33,75 +68,314 @@ import java.util.UUID;
 public class CreditServiceImpl implements CreditService {
 
     private final CreditRepository creditRepository;
+    private final CreditReadModel creditReadModel;
+    private final CreditStatsRepository creditStatsRepository;
+    private final CreditStatsRecorder creditStatsRecorder;
+    private final CreditPaymentRepository creditPaymentRepository;
+    private final CreditLedger creditLedger;
     private final CustomerService customerService;
+    private final OptimisticLockRetry optimisticLockRetry;
+    private final CreditNumberGenerator creditNumberGenerator;
+    private final ServiceMetrics serviceMetrics;
+    private final AmortizationCalculator amortizationCalculator;
+    private final Validator validator;
+
+    @Value("${app.credit-batch.chunk-size:500}")
+    private int batchChunkSize;
 
     @Override
-    public Flux<CreditDto> findAll() {
-        log.info("Finding all credits");
-        return creditRepository.findAll()
-                .map(this::mapToDto);
+    public Flux<CreditDto> findAll(String after, Integer limit) {
+        log.debug("Finding all credits after: {} with limit: {}", after, limit);
+        if (limit != null && limit <= 0) {
+            return serviceMetrics.timed("findAll", Flux.error(new IllegalArgumentException("Limit must be greater than 0")));
+        }
+        // Un cursor que no es un ObjectId se compararía como texto y devolvería una página vacía
+        if (after != null && !ObjectId.isValid(after)) {
+            return serviceMetrics.timed("findAll", Flux.error(new IllegalArgumentException("Invalid cursor: " + after)));
+        }
+
+        Pageable pageable = limit == null ? Pageable.unpaged() : PageRequest.of(0, limit);
+        Flux<Credit> credits = after == null
+                ? creditRepository.findAllByOrderByIdAsc(pageable)
+                : creditRepository.findByIdGreaterThanOrderByIdAsc(after, pageable);
+        return serviceMetrics.timed("findAll", credits.map(this::mapToDto));
     }
 
     @Override
     public Mono<CreditDto> findById(String id) {
-        log.info("Finding credit by id: {}", id);
-        return creditRepository.findById(id)
+        log.debug("Finding credit by id: {}", id);
+        return serviceMetrics.timed("findById", creditReadModel.findById(id)
                 .map(this::mapToDto)
-                .switchIfEmpty(Mono.error(new CreditNotFoundException("Credit not found with id: " + id)));
+                .switchIfEmpty(Mono.error(new CreditNotFoundException("Credit not found with id: " + id))));
     }
 
     @Override
     public Flux<CreditDto> findByCustomerId(String customerId) {
-        log.info("Finding credits by customer id: {}", customerId);
-        return creditRepository.findByCustomerId(customerId)
-                .map(this::mapToDto);
+        log.debug("Finding credits by customer id: {}", customerId);
+        return serviceMetrics.timed("findByCustomerId", creditReadModel.findByCustomerId(customerId)
+                .map(this::mapToDto));
     }
 
     @Override
     public Mono<CreditDto> findByCreditNumber(String creditNumber) {
-        log.info("Finding credit by credit number: {}", creditNumber);
-        return creditRepository.findByCreditNumber(creditNumber)
+        log.debug("Finding credit by credit number: {}", creditNumber);
+        return serviceMetrics.timed("findByCreditNumber", creditReadModel.findByCreditNumber(creditNumber)
                 .map(this::mapToDto)
-                .switchIfEmpty(Mono.error(new CreditNotFoundException("Credit not found with credit number: " + creditNumber)));
+                .switchIfEmpty(Mono.error(new CreditNotFoundException("Credit not found with credit number: " + creditNumber))));
+    }
+
+    @Override
+    public Mono<CreditSummaryDto> getCustomerSummary(String customerId) {
+        log.debug("Summarizing credits for customer id: {}", customerId);
+        return serviceMetrics.timed("getCustomerSummary", creditRepository.summarizeByCustomer(customerId)
+                .collectList()
+                .map(rows -> toSummary(customerId, rows)));
+    }
+
+    /**
+     * Arma el resumen a partir de las filas agregadas por tipo y estado (a lo sumo una por combinación).
+     * @param customerId ID del cliente
+     * @param rows Filas de la agregación
+     * @return CreditSummaryDto con los totales del cliente
+     */
+    private CreditSummaryDto toSummary(String customerId, List<CreditSummaryRow> rows) {
+        long totalCredits = 0;
+        long overdueCredits = 0;
+        BigDecimal totalAmount = BigDecimal.ZERO;
+        BigDecimal remainingAmount = BigDecimal.ZERO;
+        List<CreditSummaryDto.Group> groups = new ArrayList<>(rows.size());
+        for (CreditSummaryRow row : rows) {
+            totalCredits += row.getCount();
+            if (row.getStatus() == CreditStatus.OVERDUE) {
+                overdueCredits += row.getCount();
+            }
+            totalAmount = totalAmount.add(row.getAmount());
+            remainingAmount = remainingAmount.add(row.getRemainingAmount());
+            groups.add(CreditSummaryDto.Group.builder()
+                    .type(row.getType())
+                    .status(row.getStatus())
+                    .count(row.getCount())
+                    .totalAmount(row.getAmount())
+                    .remainingAmount(row.getRemainingAmount())
+                    .build());
+        }
+
+        return CreditSummaryDto.builder()
+                .customerId(customerId)
+                .totalCredits(totalCredits)
+                .overdueCredits(overdueCredits)
+                .totalAmount(totalAmount)
+                .remainingAmount(remainingAmount)
+                .paidAmount(totalAmount.subtract(remainingAmount))
+                .groups(groups)
+                .build();
     }
 
     @Override
     public Mono<CreditDto> save(CreditDto creditDto) {
-        log.info("Saving new credit: {}", creditDto);
+        log.debug("Saving new credit for customer id: {}", creditDto.getCustomerId());
 
         // Verificar si el cliente existe
-        return customerService.customerExists(creditDto.getCustomerId())
-                .flatMap(exists -> {
-                    if (!exists) {
-                        return Mono.error(new CustomerNotFoundException("Customer not found with id: " + creditDto.getCustomerId()));
-                    }
+        return serviceMetrics.timed("save", customerService.customerExists(creditDto.getCustomerId())
+                .flatMap(exists -> createCredit(creditDto, exists)));
+    }
 
-                    // Validar reglas de negocio según tipo de cliente y crédito
-                    return validateCreditRules(creditDto)
-                            .flatMap(valid -> {
-                                Credit credit = mapToEntity(creditDto);
+    @Override
+    public Flux<CreditBatchResultDto> saveAll(Flux<CreditDto> creditDtos) {
+        log.debug("Saving credits in bulk with chunk size: {}", batchChunkSize);
+        return serviceMetrics.timed("saveAll", creditDtos
+                .index()
+                .buffer(batchChunkSize)
+                .concatMap(this::saveChunk));
+    }
 
-                                // Generar número de crédito
-                                credit.setCreditNumber(generateCreditNumber());
+    /**
+     * Registra un bloque del lote: una consulta de clientes, una consulta de reglas y un insertMany por bloque.
+     * @param chunk Créditos del bloque con su posición en el lote
+     * @return Flux con el resultado de cada crédito, en el orden recibido
+     */
+    private Flux<CreditBatchResultDto> saveChunk(List<Tuple2<Long, CreditDto>> chunk) {
+        List<CreditBatchResultDto> results = new ArrayList<>(chunk.size());
+        List<Tuple2<Long, CreditDto>> valid = new ArrayList<>(chunk.size());
+
+        for (Tuple2<Long, CreditDto> item : chunk) {
+            Set<ConstraintViolation<CreditDto>> violations = validator.validate(item.getT2());
+            if (violations.isEmpty()) {
+                valid.add(item);
+            } else {
+                results.add(rejected(item.getT1(), violations.stream()
+                        .map(ConstraintViolation::getMessage)
+                        .collect(Collectors.joining(", "))));
+            }
+        }
+        if (valid.isEmpty()) {
+            return Flux.fromIterable(results);
+        }
 
-                                // Establecer fechas y montos
-                                credit.setStartDate(LocalDate.now());
-                                credit.setDueDate(LocalDate.now().plusMonths(credit.getTerm()));
-                                credit.setRemainingAmount(credit.getAmount());
-                                credit.setCreatedAt(LocalDateTime.now());
-                                credit.setUpdatedAt(LocalDateTime.now());
+        Set<String> customerIds = valid.stream()
+                .map(item -> item.getT2().getCustomerId())
+                .collect(Collectors.toSet());
+        Set<String> personalCustomerIds = valid.stream()
+                .map(Tuple2::getT2)
+                .filter(this::isPersonalCreditRequest)
+                .map(CreditDto::getCustomerId)
+                .collect(Collectors.toSet());
+        Mono<Set<String>> customersWithPersonalCredit = personalCustomerIds.isEmpty()
+                ? Mono.just(Set.of())
+                : creditRepository.findCustomerIdsWithCreditType(personalCustomerIds, CreditType.PERSONAL)
+                        .collect(Collectors.toSet());
+
+        return Mono.zip(customerService.customersExist(customerIds), customersWithPersonalCredit)
+                .onErrorResume(e -> {
+                    // Sin las consultas no se inserta nada: los créditos válidos del bloque se reportan rechazados
+                    log.error("Bulk credit chunk lookups failed: {}", e.getMessage());
+                    valid.forEach(item -> results.add(rejected(item.getT1(), e.getMessage())));
+                    return Mono.empty();
+                })
+                .flatMap(lookups -> insertValidCredits(valid, lookups.getT1(), new HashSet<>(lookups.getT2()), results))
+                .thenMany(Flux.defer(() -> {
+                    results.sort(Comparator.comparingLong(CreditBatchResultDto::getIndex));
+                    return Flux.fromIterable(results);
+                }));
+    }
 
-                                return creditRepository.save(credit).map(this::mapToDto);
-                            });
+    /**
+     * Inserta los créditos que cumplen las reglas. Un crédito personal de un cliente que ya tiene otro
+     * pendiente en el mismo insertMany espera a que ese se confirme, y se evalúa en la siguiente ronda.
+     */
+    private Mono<Void> insertValidCredits(List<Tuple2<Long, CreditDto>> pending,
+                                          Map<String, Boolean> existingCustomers,
+                                          Set<String> customersWithPersonalCredit,
+                                          List<CreditBatchResultDto> results) {
+        List<Credit> credits = new ArrayList<>(pending.size());
+        List<Long> indexes = new ArrayList<>(pending.size());
+        List<Tuple2<Long, CreditDto>> deferred = new ArrayList<>();
+        Set<String> personalInRound = new HashSet<>();
+
+        for (Tuple2<Long, CreditDto> item : pending) {
+            CreditDto creditDto = item.getT2();
+            if (!existingCustomers.getOrDefault(creditDto.getCustomerId(), false)) {
+                results.add(rejected(item.getT1(), "Customer not found with id: " + creditDto.getCustomerId()));
+                continue;
+            }
+
+            // Las reglas consideran también los créditos ya insertados en rondas anteriores del lote
+            RuntimeException violation = findRuleViolation(creditDto,
+                    customersWithPersonalCredit.contains(creditDto.getCustomerId()));
+            if (violation != null) {
+                results.add(rejected(item.getT1(), violation.getMessage()));
+                continue;
+            }
+            if (isPersonalCreditRequest(creditDto) && !personalInRound.add(creditDto.getCustomerId())) {
+                deferred.add(item);
+                continue;
+            }
+
+            credits.add(buildNewCredit(creditDto));
+            indexes.add(item.getT1());
+        }
+        if (credits.isEmpty()) {
+            return Mono.empty();
+        }
+
+        return creditRepository.insertAllUnordered(credits)
+                .onErrorResume(e -> {
+                    // Los errores por documento llegan en el resultado; cualquier otro deja sin saber qué se escribió
+                    log.error("Bulk credit insert failed, outcome unknown: {}", e.getMessage());
+                    indexes.forEach(index -> results.add(unknown(index, e.getMessage())));
+                    deferred.forEach(item -> results.add(rejected(item.getT1(), e.getMessage())));
+                    return Mono.empty();
+                })
+                .flatMap(failures -> {
+                    List<Credit> created = new ArrayList<>(credits.size());
+                    for (int i = 0; i < credits.size(); i++) {
+                        Credit credit = credits.get(i);
+                        String failure = failures.get(i);
+                        if (failure != null) {
+                            results.add(rejected(indexes.get(i), failure));
+                            continue;
+                        }
+                        created.add(credit);
+                        if (credit.getCustomerType() == CustomerType.PERSONAL && credit.getType() == CreditType.PERSONAL) {
+                            customersWithPersonalCredit.add(credit.getCustomerId());
+                        }
+                        results.add(CreditBatchResultDto.builder()
+                                .index(indexes.get(i))
+                                .status(CreditBatchResultDto.Status.CREATED)
+                                .credit(mapToDto(credit))
+                                .build());
+                    }
+                    created.forEach(creditReadModel::onCreated);
+                    return creditStatsRecorder.recordCreated(created)
+                            .then(deferred.isEmpty()
+                                    ? Mono.empty()
+                                    : insertValidCredits(deferred, existingCustomers, customersWithPersonalCredit, results));
                 });
     }
 
+    private CreditBatchResultDto rejected(long index, String error) {
+        return CreditBatchResultDto.builder()
+                .index(index)
+                .status(CreditBatchResultDto.Status.REJECTED)
+                .error(error)
+                .build();
+    }
+
+    private CreditBatchResultDto unknown(long index, String error) {
+        return CreditBatchResultDto.builder()
+                .index(index)
+                .status(CreditBatchResultDto.Status.UNKNOWN)
+                .error(error)
+                .build();
+    }
+
+    /**
+     * Valida y registra un crédito cuya existencia de cliente ya fue verificada.
+     * @param creditDto DTO con los datos del crédito
+     * @param customerExists resultado de la verificación del cliente
+     * @return Mono de CreditDto
+     */
+    private Mono<CreditDto> createCredit(CreditDto creditDto, boolean customerExists) {
+        if (!customerExists) {
+            return Mono.error(new CustomerNotFoundException("Customer not found with id: " + creditDto.getCustomerId()));
+        }
+
+        // Validar reglas de negocio según tipo de cliente y crédito
+        return validateCreditRules(creditDto)
+                .flatMap(valid -> creditRepository.save(buildNewCredit(creditDto)))
+                .doOnNext(creditReadModel::onCreated)
+                .flatMap(saved -> creditStatsRecorder.record(null, saved).thenReturn(saved))
+                .map(this::mapToDto);
+    }
+
+    /**
+     * Construye la entidad de un crédito nuevo con número, fechas, saldo y estado iniciales.
+     * @param creditDto DTO con los datos del crédito
+     * @return Credit listo para persistir
+     */
+    private Credit buildNewCredit(CreditDto creditDto) {
+        Credit credit = mapToEntity(creditDto);
+
+        // Generar número de crédito
+        credit.setCreditNumber(generateCreditNumber());
+
+        // Establecer fechas y montos
+        credit.setStartDate(LocalDate.now());
+        credit.setDueDate(LocalDate.now().plusMonths(credit.getTerm()));
+        credit.setRemainingAmount(credit.getAmount());
+        credit.setStatus(CreditStatus.ACTIVE);
+        credit.setCreatedAt(LocalDateTime.now());
+        credit.setUpdatedAt(LocalDateTime.now());
+        return credit;
+    }
+
     @Override
     public Mono<CreditDto> update(String id, CreditDto creditDto) {
-        log.info("Updating credit id: {}", id);
-        return creditRepository.findById(id)
+        log.debug("Updating credit id: {}", id);
+        return serviceMetrics.timed("update", optimisticLockRetry.apply("update", creditRepository.findById(id)
                 .switchIfEmpty(Mono.error(new CreditNotFoundException("Credit not found with id: " + id)))
                 .flatMap(existingCredit -> {
+                    Money previousRemaining = existingCredit.getRemainingAmount();
                     // No permitir cambiar campos críticos como cliente o tipo
                     if (creditDto.getCustomerId() != null && !creditDto.getCustomerId().equals(existingCredit.getCustomerId())) {
                         return Mono.error(new IllegalArgumentException("Cannot change credit owner"));
@@ -127,52 +401,209 @@ public class CreditServiceImpl implements CreditService {
 
                     existingCredit.setUpdatedAt(LocalDateTime.now());
 
-                    return creditRepository.save(existingCredit);
-                })
-                .map(this::mapToDto);
+                    // Un cambio de saldo fuera de makePayment queda en el libro como ajuste
+                    return creditRepository.save(existingCredit)
+                            .flatMap(saved -> creditLedger.adjust(saved, previousRemaining).thenReturn(saved));
+                }))
+                // Una lectura inmediata en esta instancia ya ve el cambio, sin esperar el change stream
+                .doOnNext(creditReadModel::onUpdated)
+                .map(this::mapToDto));
     }
 
     @Override
     public Mono<Void> delete(String id) {
-        log.info("Deleting credit id: {}", id);
-        return creditRepository.findById(id)
+        log.debug("Deleting credit id: {}", id);
+        return serviceMetrics.timed("delete", creditRepository.findById(id)
                 .switchIfEmpty(Mono.error(new CreditNotFoundException("Credit not found with id: " + id)))
-                .flatMap(credit -> creditRepository.deleteById(id));
+                .flatMap(credit -> creditRepository.deleteById(id)
+                        .then(Mono.fromRunnable(() -> creditReadModel.onDeleted(id)))
+                        .then(creditStatsRecorder.record(credit, null))));
     }
 
     @Override
     public Mono<CreditBalanceDto> getBalance(String id) {
-        log.info("Getting balance for credit id: {}", id);
-        return creditRepository.findById(id)
+        log.debug("Getting balance for credit id: {}", id);
+        return serviceMetrics.timed("getBalance", creditReadModel.findBalanceById(id)
                 .switchIfEmpty(Mono.error(new CreditNotFoundException("Credit not found with id: " + id)))
                 .map(credit -> CreditBalanceDto.builder()
                         .creditId(credit.getId())
                         .creditNumber(credit.getCreditNumber())
                         .totalAmount(credit.getAmount())
                         .remainingAmount(credit.getRemainingAmount())
-                        .paidAmount(credit.getAmount().subtract(credit.getRemainingAmount()))
-                        .build());
+                        .paidAmount(credit.getAmount().minus(credit.getRemainingAmount()))
+                        .build()));
     }
 
     @Override
     public Mono<CreditDto> makePayment(String id, BigDecimal amount) {
-        log.info("Making payment to credit id: {} with amount: {}", id, amount);
-        return creditRepository.findById(id)
+        log.debug("Making payment to credit id: {} with amount: {}", id, amount);
+        if (amount == null || amount.signum() <= 0) {
+            return serviceMetrics.timed("makePayment",
+                    Mono.error(new IllegalArgumentException("Payment amount must be greater than 0")));
+        }
+        Money payment;
+        try {
+            payment = Money.of(amount);
+        } catch (IllegalArgumentException e) {
+            return serviceMetrics.timed("makePayment", Mono.error(e));
+        }
+
+        // Pago atómico en un solo round trip; solo se consulta de nuevo para explicar un rechazo.
+        // La condición sobre el saldo del documento es la que impide pagar de más con pagos concurrentes;
+        // el libro de pagos solo agrega la entrada, no puede validar el saldo sin una transacción.
+        // Se recibe el crédito previo al pago para registrar en las estadísticas el saldo y el estado anteriores.
+        // El pago, su entrada en el libro y las estadísticas no dependen de quien espera la respuesta:
+        // si el cliente se desconecta después de aplicar el pago, la entrada igual se escribe
+        return serviceMetrics.timed("makePayment", Mono.defer(() -> {
+            Mono<Credit> outcome = creditRepository.applyPayment(id, payment)
+                    .switchIfEmpty(Mono.defer(() -> creditRepository.existsById(id)
+                            .flatMap(exists -> Mono.<Credit>error(exists
+                                    ? new IllegalArgumentException("Payment amount cannot exceed remaining balance")
+                                    : new CreditNotFoundException("Credit not found with id: " + id)))))
+                    .flatMap(before -> {
+                        Credit after = afterPayment(before, payment);
+                        creditReadModel.onUpdated(after);
+                        return Mono.when(creditStatsRecorder.record(before, after), creditLedger.append(after, payment))
+                                .thenReturn(after);
+                    })
+                    .cache();
+            outcome.subscribe(credit -> { }, e -> { });
+            return outcome;
+        }).map(this::mapToDto));
+    }
+
+    @Override
+    public Flux<CreditPaymentDto> getPayments(String id, Long after, Integer limit) {
+        log.debug("Getting payments of credit id: {} after: {} with limit: {}", id, after, limit);
+        if (limit != null && limit <= 0) {
+            return serviceMetrics.timed("getPayments", Flux.error(new IllegalArgumentException("Limit must be greater than 0")));
+        }
+
+        Pageable pageable = limit == null ? Pageable.unpaged() : PageRequest.of(0, limit);
+        Flux<CreditPayment> payments = after == null
+                ? creditPaymentRepository.findByCreditIdOrderBySequenceAsc(id, pageable)
+                : creditPaymentRepository.findByCreditIdAndSequenceGreaterThanOrderBySequenceAsc(id, after, pageable);
+        return serviceMetrics.timed("getPayments", creditRepository.existsById(id)
+                .flatMapMany(exists -> exists
+                        ? payments.map(this::toPaymentDto)
+                        : Flux.error(new CreditNotFoundException("Credit not found with id: " + id))));
+    }
+
+    @Override
+    public Mono<CreditStatsDto> getStats() {
+        log.debug("Getting credit portfolio stats");
+        return serviceMetrics.timed("getStats", creditStatsRepository.findAll()
+                .collectList()
+                .map(this::toStatsDto));
+    }
+
+    @Override
+    public Flux<InstallmentDto> getSchedule(String id, AmortizationScheme scheme) {
+        log.debug("Getting {} amortization schedule for credit id: {}", scheme, id);
+        return serviceMetrics.timed("getSchedule", creditRepository.findById(id)
                 .switchIfEmpty(Mono.error(new CreditNotFoundException("Credit not found with id: " + id)))
-                .flatMap(credit -> {
-                    // Validar que el monto no sea mayor que el saldo pendiente
-                    if (amount.compareTo(credit.getRemainingAmount()) > 0) {
-                        return Mono.error(new IllegalArgumentException("Payment amount cannot exceed remaining balance"));
+                .flatMapMany(credit -> {
+                    if (credit.getTerm() == null || credit.getTerm() <= 0) {
+                        return Flux.error(new IllegalArgumentException("Credit has no term to build a schedule"));
                     }
+                    AmortizationSchedule schedule = amortizationCalculator.schedule(
+                            credit.getAmount(), credit.getInterestRate(), credit.getTerm(), scheme);
+                    LocalDate startDate = credit.getStartDate() != null ? credit.getStartDate() : LocalDate.now();
+                    // Las filas se emiten a medida que se serializan, sin armar la lista completa
+                    return Flux.range(0, schedule.size())
+                            .map(i -> toInstallment(schedule, i, startDate));
+                }));
+    }
 
-                    // Actualizar saldo pendiente
-                    BigDecimal newRemainingAmount = credit.getRemainingAmount().subtract(amount);
-                    credit.setRemainingAmount(newRemainingAmount);
-                    credit.setUpdatedAt(LocalDateTime.now());
+    /**
+     * Convierte una fila del cronograma en centavos a InstallmentDto.
+     * @param schedule Cronograma calculado
+     * @param index Índice de la cuota, desde 0
+     * @param startDate Fecha de inicio del crédito
+     * @return InstallmentDto con montos en la moneda por defecto
+     */
+    private InstallmentDto toInstallment(AmortizationSchedule schedule, int index, LocalDate startDate) {
+        return InstallmentDto.builder()
+                .number(index + 1)
+                .dueDate(startDate.plusMonths(index + 1L))
+                .payment(Money.ofMinor(schedule.paymentCents(index)))
+                .principal(Money.ofMinor(schedule.principalCents(index)))
+                .interest(Money.ofMinor(schedule.interestCents(index)))
+                .remainingBalance(Money.ofMinor(schedule.balanceCents(index)))
+                .build();
+    }
 
-                    return creditRepository.save(credit);
-                })
-                .map(this::mapToDto);
+    /**
+     * Convierte una entrada del libro de pagos a DTO.
+     * @param payment Entrada del libro
+     * @return CreditPaymentDto
+     */
+    private CreditPaymentDto toPaymentDto(CreditPayment payment) {
+        return CreditPaymentDto.builder()
+                .sequence(payment.getSequence())
+                .kind(payment.getKind() == null ? CreditPayment.Kind.PAYMENT : payment.getKind())
+                .amount(payment.getAmount())
+                .remainingAmount(payment.getRemainingAmount())
+                .paidAt(payment.getPaidAt())
+                .build();
+    }
+
+    /**
+     * Reproduce en memoria el resultado de applyPayment sobre el crédito previo al pago.
+     * @param before Crédito antes del pago
+     * @param amount Monto pagado
+     * @return Credit con el saldo, estado y versión que quedaron en la base de datos
+     */
+    private Credit afterPayment(Credit before, Money amount) {
+        Money remaining = before.getRemainingAmount().minus(amount);
+        return before.toBuilder()
+                .remainingAmount(remaining)
+                .status(remaining.signum() == 0 ? CreditStatus.PAID : before.getStatus())
+                .updatedAt(LocalDateTime.now())
+                .version(before.getVersion() == null ? 1L : before.getVersion() + 1)
+                .build();
+    }
+
+    /**
+     * Suma los agregados materializados (uno por combinación de dimensiones) por cada dimensión.
+     * @param stats Agregados de la colección credit_stats
+     * @return CreditStatsDto con los totales
+     */
+    private CreditStatsDto toStatsDto(List<CreditStats> stats) {
+        CreditStatsDto.Totals total = emptyTotals();
+        Map<String, CreditStatsDto.Totals> byCreditType = new TreeMap<>();
+        Map<String, CreditStatsDto.Totals> byCustomerType = new TreeMap<>();
+        Map<String, CreditStatsDto.Totals> byCustomerProfile = new TreeMap<>();
+        Map<String, CreditStatsDto.Totals> byStatus = new TreeMap<>();
+        for (CreditStats row : stats) {
+            addTo(total, row);
+            addTo(byCreditType.computeIfAbsent(dimension(row.getType()), key -> emptyTotals()), row);
+            addTo(byCustomerType.computeIfAbsent(dimension(row.getCustomerType()), key -> emptyTotals()), row);
+            addTo(byCustomerProfile.computeIfAbsent(dimension(row.getCustomerProfile()), key -> emptyTotals()), row);
+            addTo(byStatus.computeIfAbsent(dimension(row.getStatus()), key -> emptyTotals()), row);
+        }
+
+        return CreditStatsDto.builder()
+                .total(total)
+                .byCreditType(byCreditType)
+                .byCustomerType(byCustomerType)
+                .byCustomerProfile(byCustomerProfile)
+                .byStatus(byStatus)
+                .build();
+    }
+
+    private static CreditStatsDto.Totals emptyTotals() {
+        return new CreditStatsDto.Totals(0, BigDecimal.ZERO, BigDecimal.ZERO);
+    }
+
+    private static void addTo(CreditStatsDto.Totals totals, CreditStats row) {
+        totals.setCount(totals.getCount() + row.getCount());
+        totals.setTotalAmount(totals.getTotalAmount().add(row.getTotalAmount()));
+        totals.setRemainingAmount(totals.getRemainingAmount().add(row.getRemainingAmount()));
+    }
+
+    private static String dimension(Enum<?> value) {
+        return value == null ? "UNKNOWN" : value.name();
     }
 
     /**
@@ -180,38 +611,52 @@ public class CreditServiceImpl implements CreditService {
      * @param creditDto DTO con los datos del crédito
      * @return Mono<Boolean> true si es válido, error en caso contrario
      */
-    private Mono<Boolean> validateCreditRules(CreditDto creditDto) {
-        // Validar reglas según tipo de cliente
+    Mono<Boolean> validateCreditRules(CreditDto creditDto) {
+        // Solo la regla de un crédito personal requiere consultar los créditos existentes
+        Mono<Boolean> hasPersonalCredit = isPersonalCreditRequest(creditDto)
+                ? creditRepository.countByCustomerIdAndType(creditDto.getCustomerId(), CreditType.PERSONAL)
+                        .map(count -> count > 0)
+                : Mono.just(false);
+
+        return hasPersonalCredit.flatMap(exists -> {
+            RuntimeException violation = findRuleViolation(creditDto, exists);
+            return violation == null ? Mono.just(true) : Mono.error(violation);
+        });
+    }
+
+    /**
+     * Evalúa las reglas de negocio según tipo de cliente y crédito.
+     * @param creditDto DTO con los datos del crédito
+     * @param hasPersonalCredit si el cliente ya tiene un crédito personal
+     * @return excepción con la regla incumplida, o null si el crédito es válido
+     */
+    private RuntimeException findRuleViolation(CreditDto creditDto, boolean hasPersonalCredit) {
         if (creditDto.getCustomerType() == CustomerType.PERSONAL) {
             // Cliente personal solo puede tener un crédito personal
-            if (creditDto.getType() == CreditType.PERSONAL) {
-                return creditRepository.countByCustomerIdAndType(creditDto.getCustomerId(), CreditType.PERSONAL)
-                        .flatMap(count -> {
-                            if (count > 0) {
-                                return Mono.error(new IllegalArgumentException(
-                                        "Personal customers can only have one personal credit"));
-                            }
-                            return Mono.just(true);
-                        });
+            if (creditDto.getType() == CreditType.PERSONAL && hasPersonalCredit) {
+                return new IllegalArgumentException("Personal customers can only have one personal credit");
             }
 
             // Cliente personal no puede tener créditos empresariales
             if (creditDto.getType() == CreditType.BUSINESS) {
-                return Mono.error(new InvalidCreditTypeException(
-                        "Personal customers cannot have business credits"));
+                return new InvalidCreditTypeException("Personal customers cannot have business credits");
             }
         }
 
         // Cliente empresarial puede tener múltiples créditos empresariales
-        return Mono.just(true);
+        return null;
+    }
+
+    private boolean isPersonalCreditRequest(CreditDto creditDto) {
+        return creditDto.getCustomerType() == CustomerType.PERSONAL && creditDto.getType() == CreditType.PERSONAL;
     }
 
     /**
-     * Genera un número de crédito aleatorio.
+     * Genera un número de crédito único entre réplicas.
      * @return String con el número de crédito
      */
-    private String generateCreditNumber() {
-        return "CR-" + UUID.randomUUID().toString().substring(0, 8).toUpperCase();
+    String generateCreditNumber() {
+        return creditNumberGenerator.next();
     }
 
     /**
@@ -219,15 +664,15 @@ public class CreditServiceImpl implements CreditService {
      * @param credit Entidad a convertir
      * @return CreditDto
      */
-    private CreditDto mapToDto(Credit credit) {
+    CreditDto mapToDto(Credit credit) {
         return CreditDto.builder()
                 .id(credit.getId())
                 .creditNumber(credit.getCreditNumber())
                 .customerId(credit.getCustomerId())
                 .customerType(credit.getCustomerType())
                 .type(credit.getType())
-                .amount(credit.getAmount())
-                .remainingAmount(credit.getRemainingAmount())
+                .amount(credit.getAmount() != null ? credit.getAmount().toBigDecimal() : null)
+                .remainingAmount(credit.getRemainingAmount() != null ? credit.getRemainingAmount().toBigDecimal() : null)
                 .interestRate(credit.getInterestRate())
                 .term(credit.getTerm())
                 .startDate(credit.getStartDate())
@@ -240,12 +685,12 @@ public class CreditServiceImpl implements CreditService {
      * @param creditDto DTO a convertir
      * @return Credit
      */
-    private Credit mapToEntity(CreditDto creditDto) {
+    Credit mapToEntity(CreditDto creditDto) {
         return Credit.builder()
                 .customerId(creditDto.getCustomerId())
                 .customerType(creditDto.getCustomerType())
                 .type(creditDto.getType())
-                .amount(creditDto.getAmount())
+                .amount(Money.of(creditDto.getAmount()))
                 .interestRate(creditDto.getInterestRate())
                 .term(creditDto.getTerm())
                 .build();
@@ -0,0 +1,127 @@
+package com.nttdata.bankapp.mscreditservice.service.support;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.nttdata.bankapp.mscreditservice.model.Money;
+import com.nttdata.bankapp.mscreditservice.model.enums.AmortizationScheme;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.EqualsAndHashCode;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+
+/**
+ * Calcula cronogramas de amortización con aritmética de centavos en long.
+ * La tasa del crédito es anual en porcentaje (12.5 = 12.5% anual) y se aplica mensualmente.
+ * Las tablas se guardan en una caché acotada por (monto, tasa, plazo, sistema),
+ * ya que muchos créditos comparten los mismos parámetros.
+ */
+@Component
+public class AmortizationCalculator {
+
+    private static final int MONTHS_PER_YEAR = 12;
+    private static final BigDecimal PERCENT = BigDecimal.valueOf(100);
+
+    private final Cache<ScheduleKey, AmortizationSchedule> schedules;
+
+    public AmortizationCalculator(@Value("${app.amortization.cache.max-size:1000}") long maxSize,
+                                  MeterRegistry meterRegistry) {
+        this.schedules = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, schedules, "amortization-schedules");
+    }
+
+    /**
+     * Obtiene el cronograma de cuotas, calculándolo solo si no está en caché.
+     * @param amount Monto del crédito
+     * @param annualRate Tasa anual en porcentaje
+     * @param term Plazo en meses
+     * @param scheme Sistema de amortización
+     * @return AmortizationSchedule con una fila por cuota
+     */
+    public AmortizationSchedule schedule(Money amount, BigDecimal annualRate, int term, AmortizationScheme scheme) {
+        if (term <= 0) {
+            throw new IllegalArgumentException("Term must be at least 1 month");
+        }
+        if (amount == null || amount.signum() <= 0) {
+            throw new IllegalArgumentException("Amount must be greater than 0");
+        }
+        if (annualRate == null || annualRate.signum() < 0) {
+            throw new IllegalArgumentException("Interest rate must be non-negative");
+        }
+
+        long principalCents = amount.getMinorUnits();
+        // stripTrailingZeros: 12.5 y 12.50 comparten la misma entrada
+        ScheduleKey key = new ScheduleKey(principalCents, annualRate.stripTrailingZeros(), term, scheme);
+        return schedules.get(key, k -> calculate(principalCents, monthlyRate(annualRate), term, scheme));
+    }
+
+    static AmortizationSchedule calculate(long principalCents, double monthlyRate, int term, AmortizationScheme scheme) {
+        long[] payment = new long[term];
+        long[] principal = new long[term];
+        long[] interest = new long[term];
+        long[] balance = new long[term];
+
+        if (scheme == AmortizationScheme.FLAT) {
+            // Interés fijo sobre el monto original; el resto de la división de capital va en la última cuota
+            long flatInterest = Math.round(principalCents * monthlyRate);
+            long flatPrincipal = principalCents / term;
+            long remaining = principalCents;
+            for (int i = 0; i < term; i++) {
+                long principalPart = i == term - 1 ? remaining : flatPrincipal;
+                remaining -= principalPart;
+                fill(payment, principal, interest, balance, i, principalPart, flatInterest, remaining);
+            }
+        } else {
+            long installment = frenchInstallment(principalCents, monthlyRate, term);
+            long remaining = principalCents;
+            for (int i = 0; i < term; i++) {
+                long interestPart = Math.round(remaining * monthlyRate);
+                // La última cuota cancela el saldo que dejan los redondeos
+                long principalPart = i == term - 1 ? remaining : Math.min(installment - interestPart, remaining);
+                remaining -= principalPart;
+                fill(payment, principal, interest, balance, i, principalPart, interestPart, remaining);
+            }
+        }
+        return new AmortizationSchedule(payment, principal, interest, balance);
+    }
+
+    // Cuota constante: P * r / (1 - (1 + r)^-n), o P / n sin interés
+    private static long frenchInstallment(long principalCents, double monthlyRate, int term) {
+        if (monthlyRate == 0) {
+            return (principalCents + term - 1) / term;
+        }
+        return Math.round(principalCents * monthlyRate / (1 - Math.pow(1 + monthlyRate, -term)));
+    }
+
+    private static void fill(long[] payment, long[] principal, long[] interest, long[] balance,
+                             int i, long principalPart, long interestPart, long remaining) {
+        principal[i] = principalPart;
+        interest[i] = interestPart;
+        payment[i] = principalPart + interestPart;
+        balance[i] = remaining;
+    }
+
+    private static double monthlyRate(BigDecimal annualRate) {
+        return annualRate.divide(PERCENT).doubleValue() / MONTHS_PER_YEAR;
+    }
+
+    @EqualsAndHashCode
+    private static final class ScheduleKey {
+        private final long principalCents;
+        private final BigDecimal annualRate;
+        private final int term;
+        private final AmortizationScheme scheme;
+
+        private ScheduleKey(long principalCents, BigDecimal annualRate, int term, AmortizationScheme scheme) {
+            this.principalCents = principalCents;
+            this.annualRate = annualRate;
+            this.term = term;
+            this.scheme = scheme;
+        }
+    }
+}
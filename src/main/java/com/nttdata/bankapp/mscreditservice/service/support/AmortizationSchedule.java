@@ -0,0 +1,49 @@
+package com.nttdata.bankapp.mscreditservice.service.support;
+
+/**
+ * Tabla de cuotas de un crédito en centavos, sin fechas: depende solo del monto, la tasa,
+ * el plazo y el sistema, por lo que se comparte entre créditos con los mismos parámetros.
+ * Es inmutable; los arreglos no se exponen.
+ */
+public final class AmortizationSchedule {
+
+    private final long[] payment;
+    private final long[] principal;
+    private final long[] interest;
+    private final long[] balance;
+
+    AmortizationSchedule(long[] payment, long[] principal, long[] interest, long[] balance) {
+        this.payment = payment;
+        this.principal = principal;
+        this.interest = interest;
+        this.balance = balance;
+    }
+
+    public int size() {
+        return payment.length;
+    }
+
+    /**
+     * @param installment índice de la cuota, desde 0
+     * @return monto de la cuota en centavos
+     */
+    public long paymentCents(int installment) {
+        return payment[installment];
+    }
+
+    public long principalCents(int installment) {
+        return principal[installment];
+    }
+
+    public long interestCents(int installment) {
+        return interest[installment];
+    }
+
+    /**
+     * @param installment índice de la cuota, desde 0
+     * @return saldo pendiente después de pagar la cuota, en centavos
+     */
+    public long balanceCents(int installment) {
+        return balance[installment];
+    }
+}
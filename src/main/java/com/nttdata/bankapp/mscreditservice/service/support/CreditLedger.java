@@ -0,0 +1,155 @@
+package com.nttdata.bankapp.mscreditservice.service.support;
+
+import com.nttdata.bankapp.mscreditservice.model.Credit;
+import com.nttdata.bankapp.mscreditservice.model.CreditLedgerSnapshot;
+import com.nttdata.bankapp.mscreditservice.model.CreditPayment;
+import com.nttdata.bankapp.mscreditservice.model.Money;
+import com.nttdata.bankapp.mscreditservice.repository.CreditLedgerSnapshotRepository;
+import com.nttdata.bankapp.mscreditservice.repository.CreditPaymentRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+
+/**
+ * Libro de pagos de solo inserción. Cada pago agrega una entrada; el saldo se puede reconstruir
+ * desde el último snapshot sumando los pagos posteriores, y cada cierta cantidad de pagos
+ * se guarda un snapshot nuevo para que ese recorrido quede acotado.
+ * El saldo del documento del crédito sigue siendo la referencia para aceptar o rechazar un pago;
+ * el libro conserva el historial y permite verificar ese saldo.
+ */
+@Component
+@Slf4j
+public class CreditLedger {
+
+    private static final String APPEND_FAILURES_METRIC = "credit.ledger.append.failures";
+
+    private final CreditPaymentRepository creditPaymentRepository;
+    private final CreditLedgerSnapshotRepository snapshotRepository;
+    private final MeterRegistry meterRegistry;
+    private final int snapshotEvery;
+
+    public CreditLedger(CreditPaymentRepository creditPaymentRepository,
+                        CreditLedgerSnapshotRepository snapshotRepository,
+                        MeterRegistry meterRegistry,
+                        @Value("${app.ledger.snapshot-every:100}") int snapshotEvery) {
+        this.creditPaymentRepository = creditPaymentRepository;
+        this.snapshotRepository = snapshotRepository;
+        this.meterRegistry = meterRegistry;
+        this.snapshotEvery = snapshotEvery;
+    }
+
+    /**
+     * Agrega la entrada de un pago ya aplicado al crédito.
+     * Un fallo no revierte el pago: se registra y la reconciliación lo detecta.
+     * @param after Crédito después del pago
+     * @param amount Monto pagado
+     * @return Mono que completa cuando se insertó la entrada
+     */
+    public Mono<Void> append(Credit after, Money amount) {
+        return insert(entry(after, CreditPayment.Kind.PAYMENT, amount));
+    }
+
+    /**
+     * Agrega un ajuste cuando una escritura distinta de un pago cambió el saldo del crédito,
+     * así la reconciliación no lo reporta como diferencia.
+     * @param after Crédito guardado
+     * @param previousRemaining Saldo antes de la escritura
+     * @return Mono que completa cuando se insertó la entrada, o de inmediato si el saldo no cambió
+     */
+    public Mono<Void> adjust(Credit after, Money previousRemaining) {
+        if (previousRemaining == null || previousRemaining.equals(after.getRemainingAmount())) {
+            return Mono.empty();
+        }
+        return insert(entry(after, CreditPayment.Kind.ADJUSTMENT, previousRemaining.minus(after.getRemainingAmount())));
+    }
+
+    private static CreditPayment entry(Credit after, CreditPayment.Kind kind, Money amount) {
+        return CreditPayment.builder()
+                .creditId(after.getId())
+                .sequence(after.getVersion())
+                .kind(kind)
+                .amount(amount)
+                .remainingAmount(after.getRemainingAmount())
+                .paidAt(after.getUpdatedAt())
+                .build();
+    }
+
+    private Mono<Void> insert(CreditPayment entry) {
+        return creditPaymentRepository.insert(entry)
+                .onErrorResume(e -> {
+                    log.warn("Could not append entry {} of credit {} to the ledger: {}",
+                            entry.getSequence(), entry.getCreditId(), e.getMessage());
+                    meterRegistry.counter(APPEND_FAILURES_METRIC).increment();
+                    return Mono.empty();
+                })
+                .then();
+    }
+
+    /**
+     * Calcula el saldo de un crédito desde su libro: snapshot más los pagos posteriores.
+     * Guarda un snapshot nuevo cuando la cola recorrida alcanza app.ledger.snapshot-every pagos.
+     * @param creditId ID del crédito
+     * @return Mono con el saldo, vacío si el crédito no tiene pagos en el libro
+     */
+    public Mono<Money> remainingAmount(String creditId) {
+        return snapshotRepository.findById(creditId)
+                .map(Fold::from)
+                .defaultIfEmpty(Fold.EMPTY)
+                .flatMap(start -> creditPaymentRepository
+                        .findByCreditIdAndSequenceGreaterThanOrderBySequenceAsc(creditId, start.sequence, Pageable.unpaged())
+                        .reduce(start, Fold::apply)
+                        .flatMap(end -> end.payments - start.payments >= snapshotEvery
+                                ? snapshot(creditId, end).thenReturn(end)
+                                : Mono.just(end)))
+                .flatMap(end -> Mono.justOrEmpty(end.remainingAmount));
+    }
+
+    // Dos snapshots concurrentes son ambos correctos: en el peor caso queda el menos avanzado
+    private Mono<Void> snapshot(String creditId, Fold fold) {
+        return snapshotRepository.save(CreditLedgerSnapshot.builder()
+                        .creditId(creditId)
+                        .sequence(fold.sequence)
+                        .remainingAmount(fold.remainingAmount)
+                        .payments(fold.payments)
+                        .takenAt(LocalDateTime.now())
+                        .build())
+                .doOnError(e -> log.warn("Could not save ledger snapshot of credit {}: {}", creditId, e.getMessage()))
+                .onErrorResume(e -> Mono.empty())
+                .then();
+    }
+
+    /**
+     * Estado del recorrido del libro: última entrada, saldo y cantidad de pagos incluidos.
+     */
+    private static final class Fold {
+        // Sin snapshot se recorre todo el libro (las versiones empiezan en 0)
+        private static final Fold EMPTY = new Fold(-1, null, 0);
+
+        private final long sequence;
+        private final Money remainingAmount;
+        private final long payments;
+
+        private Fold(long sequence, Money remainingAmount, long payments) {
+            this.sequence = sequence;
+            this.remainingAmount = remainingAmount;
+            this.payments = payments;
+        }
+
+        private static Fold from(CreditLedgerSnapshot snapshot) {
+            return new Fold(snapshot.getSequence(), snapshot.getRemainingAmount(), snapshot.getPayments());
+        }
+
+        // La primera entrada fija el saldo inicial: los créditos pueden tener pagos anteriores al libro
+        private Fold apply(CreditPayment payment) {
+            Money remaining = remainingAmount == null
+                    ? payment.getRemainingAmount()
+                    : remainingAmount.minus(payment.getAmount());
+            return new Fold(payment.getSequence(), remaining, payments + 1);
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package com.nttdata.bankapp.mscreditservice.service.support;
+
+/**
+ * Estrategia de generación de números de crédito.
+ * Los números generados deben ser únicos entre todas las réplicas del servicio,
+ * ya que creditNumber tiene un índice único en MongoDB.
+ */
+public interface CreditNumberGenerator {
+
+    /**
+     * Genera un nuevo número de crédito.
+     * @return String con el número de crédito
+     */
+    String next();
+}
@@ -0,0 +1,410 @@
+package com.nttdata.bankapp.mscreditservice.service.support;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.mongodb.MongoException;
+import com.mongodb.client.model.changestream.FullDocument;
+import com.mongodb.client.model.changestream.OperationType;
+import com.nttdata.bankapp.mscreditservice.model.Credit;
+import com.nttdata.bankapp.mscreditservice.model.Money;
+import com.nttdata.bankapp.mscreditservice.repository.CreditBalanceView;
+import com.nttdata.bankapp.mscreditservice.repository.CreditRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.BsonValue;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.data.mongodb.core.ChangeStreamEvent;
+import org.springframework.data.mongodb.core.ChangeStreamOptions;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Modelo de lectura en memoria de los créditos, indexado por id, número de crédito y cliente.
+ * Se mantiene al día con un change stream sobre la colección credits, por lo que también refleja
+ * las escrituras de otras réplicas del servicio. Las escrituras de esta instancia se reflejan en el acto
+ * con {@link #onCreated}, {@link #onUpdated} y {@link #onDeleted}, sin esperar el evento.
+ * Hasta que llega el primer evento del change stream, o con app.read-model.enabled=false,
+ * las lecturas van directamente a MongoDB.
+ * Requiere que MongoDB corra como replica set (basta uno de un solo nodo).
+ */
+@Component
+@Slf4j
+public class CreditReadModel {
+
+    private static final String COLLECTION = "credits";
+    private static final String EVENTS_METRIC = "credit.read-model.events";
+    private static final String RESTARTS_METRIC = "credit.read-model.restarts";
+    // ChangeStreamHistoryLost y ChangeStreamFatalError: el resume token ya no sirve
+    private static final Set<Integer> LOST_RESUME_CODES = Set.of(280, 286);
+    // Margen para el reloj del servidor al abrir el change stream sin resume token
+    private static final Duration START_MARGIN = Duration.ofSeconds(5);
+    private static final Duration MIN_RESTART_BACKOFF = Duration.ofSeconds(1);
+    private static final Duration MAX_RESTART_BACKOFF = Duration.ofSeconds(30);
+
+    private final CreditRepository creditRepository;
+    private final ReactiveMongoTemplate mongoTemplate;
+    private final MeterRegistry meterRegistry;
+    private final boolean enabled;
+
+    private final Cache<String, Credit> byId;
+    private final Cache<String, String> idsByCreditNumber;
+    private final Cache<String, List<String>> idsByCustomer;
+    // Créditos eliminados hace poco: una lectura en curso no debe volver a agregarlos
+    private final Cache<String, Boolean> recentlyDeleted;
+    // Cambia con cada alta o baja; una lista de cliente leída mientras cambió no se guarda
+    private final AtomicLong membershipChanges = new AtomicLong();
+
+    private volatile boolean live;
+    private volatile BsonValue resumeToken;
+    // El último evento cerró el stream (INVALIDATE, DROP...): se reabre con startAfter, resumeAfter lo rechaza
+    private volatile boolean resumeAfterInvalidate;
+    private volatile Disposable subscription;
+
+    public CreditReadModel(CreditRepository creditRepository,
+                           ReactiveMongoTemplate mongoTemplate,
+                           MeterRegistry meterRegistry,
+                           @Value("${app.read-model.enabled:false}") boolean enabled,
+                           @Value("${app.read-model.max-size:100000}") long maxSize) {
+        this.creditRepository = creditRepository;
+        this.mongoTemplate = mongoTemplate;
+        this.meterRegistry = meterRegistry;
+        this.enabled = enabled;
+        this.byId = Caffeine.newBuilder().maximumSize(maxSize).recordStats().build();
+        this.idsByCreditNumber = Caffeine.newBuilder().maximumSize(maxSize).build();
+        this.idsByCustomer = Caffeine.newBuilder().maximumSize(maxSize).recordStats().build();
+        this.recentlyDeleted = Caffeine.newBuilder().expireAfterWrite(Duration.ofMinutes(1)).build();
+        CaffeineCacheMetrics.monitor(meterRegistry, byId, "credit-read-model");
+        CaffeineCacheMetrics.monitor(meterRegistry, idsByCustomer, "credit-read-model-customers");
+    }
+
+    /**
+     * Abre el change stream al iniciar la aplicación.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        // Cada resuscripción vuelve a leer el resume token, así continúa donde quedó
+        subscription = Flux.defer(this::changeStream)
+                .doOnSubscribe(s -> {
+                    // Lo que se guardó antes del corte pudo quedar desactualizado: se vuelve a leer de MongoDB.
+                    // El modelo se activa con el primer evento, cuando el stream ya está abierto
+                    live = false;
+                    clear();
+                })
+                .doOnError(this::onStreamError)
+                // INVALIDATE, DROP y RENAME terminan el stream sin error: se reabre con la misma espera que tras un error
+                .doOnComplete(this::onStreamClosed)
+                .repeatWhen(closed -> closed
+                        .index()
+                        .concatMap(restart -> {
+                            meterRegistry.counter(RESTARTS_METRIC).increment();
+                            return Mono.delay(restartBackoff(restart.getT1()));
+                        }))
+                .retryWhen(Retry.backoff(Long.MAX_VALUE, MIN_RESTART_BACKOFF)
+                        .maxBackoff(MAX_RESTART_BACKOFF)
+                        .doBeforeRetry(signal -> meterRegistry.counter(RESTARTS_METRIC).increment()))
+                .subscribe(this::apply);
+        log.info("Credit read model enabled");
+    }
+
+    @PreDestroy
+    public void stop() {
+        live = false;
+        Disposable current = subscription;
+        if (current != null) {
+            current.dispose();
+        }
+    }
+
+    /**
+     * Refleja un crédito que esta instancia acaba de insertar.
+     * @param credit Crédito guardado
+     */
+    public void onCreated(Credit credit) {
+        membershipChanges.incrementAndGet();
+        idsByCustomer.invalidate(credit.getCustomerId());
+        cache(credit);
+    }
+
+    /**
+     * Refleja un crédito que esta instancia acaba de modificar; se guarda si es más reciente que el que había.
+     * @param credit Crédito como quedó en MongoDB, con su versión
+     */
+    public void onUpdated(Credit credit) {
+        cache(credit);
+    }
+
+    /**
+     * Quita un crédito que esta instancia acaba de eliminar; una lectura en curso no lo vuelve a agregar.
+     * @param id ID del crédito eliminado
+     */
+    public void onDeleted(String id) {
+        evict(id);
+    }
+
+    /**
+     * Busca un crédito por id.
+     * @param id ID del crédito
+     * @return Mono con el crédito, vacío si no existe
+     */
+    public Mono<Credit> findById(String id) {
+        if (!live) {
+            return creditRepository.findById(id);
+        }
+        Credit cached = byId.getIfPresent(id);
+        if (cached != null) {
+            return Mono.just(cached);
+        }
+        return creditRepository.findById(id).doOnNext(this::cache);
+    }
+
+    /**
+     * Busca un crédito por su número.
+     * @param creditNumber Número de crédito
+     * @return Mono con el crédito, vacío si no existe
+     */
+    public Mono<Credit> findByCreditNumber(String creditNumber) {
+        if (!live) {
+            return creditRepository.findByCreditNumber(creditNumber);
+        }
+        String id = idsByCreditNumber.getIfPresent(creditNumber);
+        Credit cached = id == null ? null : byId.getIfPresent(id);
+        if (cached != null && creditNumber.equals(cached.getCreditNumber())) {
+            return Mono.just(cached);
+        }
+        return creditRepository.findByCreditNumber(creditNumber).doOnNext(this::cache);
+    }
+
+    /**
+     * Busca los créditos de un cliente. Solo se responde desde memoria si están todos.
+     * @param customerId ID del cliente
+     * @return Flux con los créditos del cliente
+     */
+    public Flux<Credit> findByCustomerId(String customerId) {
+        if (!live) {
+            return creditRepository.findByCustomerId(customerId);
+        }
+        List<String> ids = idsByCustomer.getIfPresent(customerId);
+        if (ids != null) {
+            List<Credit> credits = new ArrayList<>(ids.size());
+            for (String id : ids) {
+                Credit credit = byId.getIfPresent(id);
+                if (credit == null) {
+                    break;
+                }
+                credits.add(credit);
+            }
+            if (credits.size() == ids.size()) {
+                return Flux.fromIterable(credits);
+            }
+        }
+
+        long changesBefore = membershipChanges.get();
+        return creditRepository.findByCustomerId(customerId)
+                .collectList()
+                .doOnNext(credits -> {
+                    credits.forEach(this::cache);
+                    // Un alta o baja durante la consulta puede no estar en la lista: no se guarda
+                    if (membershipChanges.get() == changesBefore) {
+                        List<String> loaded = new ArrayList<>(credits.size());
+                        credits.forEach(credit -> loaded.add(credit.getId()));
+                        idsByCustomer.put(customerId, loaded);
+                    }
+                })
+                .flatMapMany(Flux::fromIterable);
+    }
+
+    /**
+     * Busca el saldo de un crédito. Sin el modelo de lectura activo usa la proyección de saldo.
+     * @param id ID del crédito
+     * @return Mono con el saldo, vacío si el crédito no existe
+     */
+    public Mono<CreditBalanceView> findBalanceById(String id) {
+        if (!live) {
+            return creditRepository.findBalanceById(id);
+        }
+        return findById(id).map(CachedBalance::new);
+    }
+
+    private Flux<ChangeStreamEvent<Credit>> changeStream() {
+        ChangeStreamOptions.ChangeStreamOptionsBuilder options = ChangeStreamOptions.builder()
+                .fullDocumentLookup(FullDocument.UPDATE_LOOKUP);
+        BsonValue token = resumeToken;
+        if (token != null && resumeAfterInvalidate) {
+            options.startAfter(token);
+        } else if (token != null) {
+            options.resumeAfter(token);
+        } else {
+            // Sin token se empieza un poco antes: repetir eventos es inocuo, perderlos no
+            options.resumeAt(Instant.now().minus(START_MARGIN));
+        }
+        return mongoTemplate.changeStream(COLLECTION, options.build(), Credit.class);
+    }
+
+    private void apply(ChangeStreamEvent<Credit> event) {
+        OperationType type = event.getOperationType();
+        meterRegistry.counter(EVENTS_METRIC, "type", type == null ? "UNKNOWN" : type.name()).increment();
+        if (type == null) {
+            return;
+        }
+        boolean invalidated = false;
+        switch (type) {
+            case INSERT:
+            case UPDATE:
+            case REPLACE:
+                Credit credit = event.getBody();
+                // Sin documento, el crédito se eliminó antes de la búsqueda y el DELETE viene después
+                if (credit != null) {
+                    if (type == OperationType.INSERT) {
+                        membershipChanges.incrementAndGet();
+                        idsByCustomer.invalidate(credit.getCustomerId());
+                    }
+                    cache(credit);
+                }
+                break;
+            case DELETE:
+                String id = documentId(event);
+                if (id != null) {
+                    evict(id);
+                }
+                break;
+            default:
+                // INVALIDATE, DROP, RENAME...: el stream termina y se vuelve a abrir después de este evento
+                log.warn("Credit change stream received {}, reads go to MongoDB until it reopens", type);
+                live = false;
+                clear();
+                invalidated = true;
+                break;
+        }
+        Object token = event.getResumeToken();
+        if (token instanceof BsonValue) {
+            resumeToken = (BsonValue) token;
+            resumeAfterInvalidate = invalidated;
+        }
+        if (!invalidated) {
+            live = true;
+        }
+    }
+
+    // Guarda la versión más reciente entre la que había y la nueva
+    private void cache(Credit credit) {
+        String id = credit.getId();
+        if (recentlyDeleted.getIfPresent(id) != null) {
+            return;
+        }
+        byId.asMap().merge(id, credit, (current, incoming) -> version(incoming) >= version(current) ? incoming : current);
+        if (credit.getCreditNumber() != null) {
+            idsByCreditNumber.put(credit.getCreditNumber(), id);
+        }
+    }
+
+    private void evict(String id) {
+        membershipChanges.incrementAndGet();
+        recentlyDeleted.put(id, Boolean.TRUE);
+        Credit removed = byId.asMap().remove(id);
+        if (removed != null) {
+            idsByCustomer.invalidate(removed.getCustomerId());
+            if (removed.getCreditNumber() != null) {
+                idsByCreditNumber.invalidate(removed.getCreditNumber());
+            }
+        } else {
+            // No se sabe a qué cliente pertenecía: se quita de cualquier lista que lo contenga
+            idsByCustomer.asMap().values().removeIf(ids -> ids.contains(id));
+        }
+    }
+
+    private void onStreamError(Throwable e) {
+        live = false;
+        Throwable cause = NestedExceptionUtils.getMostSpecificCause(e);
+        if (cause instanceof MongoException && LOST_RESUME_CODES.contains(((MongoException) cause).getCode())) {
+            log.warn("Credit change stream cannot resume ({}), restarting from now", cause.getMessage());
+            resumeToken = null;
+            resumeAfterInvalidate = false;
+        } else {
+            log.warn("Credit change stream failed, reads go to MongoDB until it resumes: {}", e.getMessage());
+        }
+    }
+
+    private void onStreamClosed() {
+        live = false;
+        log.warn("Credit change stream closed, reads go to MongoDB until it reopens");
+    }
+
+    // Misma espera exponencial que tras un error: 1s, 2s, 4s... hasta MAX_RESTART_BACKOFF
+    private static Duration restartBackoff(long restart) {
+        Duration backoff = MIN_RESTART_BACKOFF.multipliedBy(1L << Math.min(restart, 16));
+        return backoff.compareTo(MAX_RESTART_BACKOFF) > 0 ? MAX_RESTART_BACKOFF : backoff;
+    }
+
+    private void clear() {
+        membershipChanges.incrementAndGet();
+        byId.invalidateAll();
+        idsByCreditNumber.invalidateAll();
+        idsByCustomer.invalidateAll();
+    }
+
+    private static String documentId(ChangeStreamEvent<Credit> event) {
+        if (event.getRaw() == null || event.getRaw().getDocumentKey() == null) {
+            return null;
+        }
+        // Los ids con formato de ObjectId se guardan como ObjectId
+        BsonValue id = event.getRaw().getDocumentKey().get("_id");
+        if (id == null) {
+            return null;
+        }
+        return id.isObjectId() ? id.asObjectId().getValue().toHexString() : id.asString().getValue();
+    }
+
+    private static long version(Credit credit) {
+        return credit.getVersion() == null ? -1 : credit.getVersion();
+    }
+
+    /**
+     * Saldo armado desde un crédito en memoria, con la misma forma que la proyección del repositorio.
+     */
+    private static final class CachedBalance implements CreditBalanceView {
+        private final Credit credit;
+
+        private CachedBalance(Credit credit) {
+            this.credit = credit;
+        }
+
+        @Override
+        public String getId() {
+            return credit.getId();
+        }
+
+        @Override
+        public String getCreditNumber() {
+            return credit.getCreditNumber();
+        }
+
+        @Override
+        public Money getAmount() {
+            return credit.getAmount();
+        }
+
+        @Override
+        public Money getRemainingAmount() {
+            return credit.getRemainingAmount();
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package com.nttdata.bankapp.mscreditservice.service.support;
+
+import com.nttdata.bankapp.mscreditservice.model.Credit;
+import com.nttdata.bankapp.mscreditservice.model.CreditStats;
+import com.nttdata.bankapp.mscreditservice.model.Money;
+import com.nttdata.bankapp.mscreditservice.repository.CreditStatsRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Mantiene el agregado materializado de la cartera a partir de los cambios de cada crédito.
+ * Un fallo al actualizar el agregado no falla la operación del cliente: se registra y
+ * la diferencia se corrige en la siguiente reconstrucción.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class CreditStatsRecorder {
+
+    private static final String FAILURES_METRIC = "credit.stats.update.failures";
+
+    private final CreditStatsRepository creditStatsRepository;
+    private final MeterRegistry meterRegistry;
+
+    /**
+     * Registra el cambio de un crédito: resta su estado anterior y suma el nuevo.
+     * @param before Crédito antes del cambio, null si es nuevo
+     * @param after Crédito después del cambio, null si se eliminó
+     * @return Mono que completa cuando se actualizó el agregado
+     */
+    public Mono<Void> record(Credit before, Credit after) {
+        Map<String, CreditStats> deltas = new LinkedHashMap<>(4);
+        if (before != null) {
+            accumulate(deltas, before, -1);
+        }
+        if (after != null) {
+            accumulate(deltas, after, 1);
+        }
+        return apply(deltas.values());
+    }
+
+    /**
+     * Registra varios créditos nuevos con una sola escritura por lote.
+     * @param created Créditos creados
+     * @return Mono que completa cuando se actualizó el agregado
+     */
+    public Mono<Void> recordCreated(List<Credit> created) {
+        Map<String, CreditStats> deltas = new LinkedHashMap<>();
+        created.forEach(credit -> accumulate(deltas, credit, 1));
+        return apply(deltas.values());
+    }
+
+    private Mono<Void> apply(Collection<CreditStats> deltas) {
+        if (deltas.isEmpty()) {
+            return Mono.empty();
+        }
+        return creditStatsRepository.increment(deltas)
+                .onErrorResume(e -> {
+                    log.warn("Could not update credit stats, they will be fixed by the next rebuild: {}", e.getMessage());
+                    meterRegistry.counter(FAILURES_METRIC).increment();
+                    return Mono.empty();
+                });
+    }
+
+    // Agrupa por clave: un cambio que no mueve el crédito de grupo queda en una sola variación
+    private void accumulate(Map<String, CreditStats> deltas, Credit credit, int sign) {
+        String key = CreditStats.keyOf(credit.getType(), credit.getCustomerType(),
+                credit.getCustomerProfile(), credit.getStatus());
+        CreditStats delta = deltas.computeIfAbsent(key, id -> CreditStats.builder()
+                .id(id)
+                .type(credit.getType())
+                .customerType(credit.getCustomerType())
+                .customerProfile(credit.getCustomerProfile())
+                .status(credit.getStatus())
+                .totalAmount(BigDecimal.ZERO)
+                .remainingAmount(BigDecimal.ZERO)
+                .build());
+        delta.setCount(delta.getCount() + sign);
+        delta.setTotalAmount(delta.getTotalAmount().add(signed(credit.getAmount(), sign)));
+        delta.setRemainingAmount(delta.getRemainingAmount().add(signed(credit.getRemainingAmount(), sign)));
+    }
+
+    private static BigDecimal signed(Money value, int sign) {
+        if (value == null) {
+            return BigDecimal.ZERO;
+        }
+        return (sign < 0 ? value.negate() : value).toBigDecimal();
+    }
+}
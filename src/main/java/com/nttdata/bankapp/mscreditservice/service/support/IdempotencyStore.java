@@ -0,0 +1,194 @@
+package com.nttdata.bankapp.mscreditservice.service.support;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.nttdata.bankapp.mscreditservice.exception.IdempotencyKeyInProgressException;
+import com.nttdata.bankapp.mscreditservice.exception.IdempotencyKeyMismatchException;
+import com.nttdata.bankapp.mscreditservice.model.IdempotencyRecord;
+import com.nttdata.bankapp.mscreditservice.repository.IdempotencyRecordRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.function.Supplier;
+
+/**
+ * Ejecuta operaciones como máximo una vez por Idempotency-Key.
+ * La clave se reserva con un insert en MongoDB (el _id único resuelve la carrera entre réplicas)
+ * y la respuesta se guarda al terminar. Las respuestas recientes se mantienen además en una caché local,
+ * por lo que un reintento sobre la misma instancia no consulta MongoDB ni toca el crédito.
+ * Solo se guardan respuestas exitosas: si la operación falla, la clave se libera y el cliente puede reintentar.
+ * La API /api/credits (com.example.mscreditservice) mantiene una implementación paralela con su propio registro,
+ * excepciones y mensajes en español; el protocolo de reserva y las correcciones deben coincidir en ambas.
+ */
+@Component
+@Slf4j
+public class IdempotencyStore {
+
+    private static final String REQUESTS_METRIC = "idempotency.requests";
+    private static final int MAX_KEY_LENGTH = 255;
+
+    private final IdempotencyRecordRepository repository;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+    private final Duration ttl;
+    private final Duration lease;
+    private final Cache<String, CompletedResponse> recent;
+
+    public IdempotencyStore(IdempotencyRecordRepository repository,
+                            ObjectMapper objectMapper,
+                            MeterRegistry meterRegistry,
+                            @Value("${app.idempotency.ttl:24h}") Duration ttl,
+                            @Value("${app.idempotency.lease:2m}") Duration lease,
+                            @Value("${app.idempotency.cache.max-size:10000}") long cacheMaxSize) {
+        this.repository = repository;
+        this.objectMapper = objectMapper;
+        this.meterRegistry = meterRegistry;
+        this.ttl = ttl;
+        this.lease = lease;
+        this.recent = Caffeine.newBuilder()
+                .maximumSize(cacheMaxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, recent, "idempotency-keys");
+    }
+
+    /**
+     * Ejecuta la operación una sola vez por clave, o devuelve la respuesta guardada si ya se ejecutó.
+     * @param operation Nombre de la operación; junto con la clave forma el ID del registro
+     * @param key Idempotency-Key recibida, o null para ejecutar sin deduplicar
+     * @param fingerprint Identificador de la petición (por ejemplo, crédito y monto)
+     * @param responseType Tipo de la respuesta, para leerla desde MongoDB
+     * @param action Operación a ejecutar
+     * @return Mono con la respuesta de la operación o la respuesta guardada
+     */
+    public <T> Mono<T> execute(String operation, String key, String fingerprint,
+                               Class<T> responseType, Supplier<Mono<T>> action) {
+        if (key == null) {
+            return Mono.defer(action);
+        }
+        if (key.isBlank() || key.length() > MAX_KEY_LENGTH) {
+            return Mono.error(new IllegalArgumentException(
+                    "Idempotency-Key must have between 1 and " + MAX_KEY_LENGTH + " characters"));
+        }
+
+        String id = operation + ":" + key;
+        CompletedResponse cached = recent.getIfPresent(id);
+        if (cached != null) {
+            if (!fingerprint.equals(cached.fingerprint)) {
+                return mismatch(operation);
+            }
+            count(operation, "replayed_cache");
+            return Mono.just(responseType.cast(cached.response));
+        }
+
+        IdempotencyRecord claim = IdempotencyRecord.builder()
+                .id(id)
+                .fingerprint(fingerprint)
+                .status(IdempotencyRecord.Status.IN_PROGRESS)
+                // Reserva corta, del orden de una petición: si la instancia cae a mitad de la operación el índice TTL
+                // la borra y un reintento con la misma clave vuelve a ejecutarla. complete() la extiende al ttl
+                .expireAt(Instant.now().plus(lease))
+                .build();
+
+        return repository.insert(claim)
+                .map(saved -> true)
+                .onErrorResume(DuplicateKeyException.class, e -> Mono.just(false))
+                .flatMap(claimed -> claimed
+                        ? run(operation, claim, action)
+                        : fromStore(operation, id, fingerprint, responseType));
+    }
+
+    private <T> Mono<T> run(String operation, IdempotencyRecord claim, Supplier<Mono<T>> action) {
+        // La operación y el registro de su resultado no dependen de quien espera la respuesta: si el cliente
+        // se desconecta, la cancelación no interrumpe el pago y el reintento encuentra el resultado guardado
+        Mono<T> outcome = Mono.defer(action)
+                .onErrorResume(e -> release(claim).then(Mono.error(e)))
+                .flatMap(response -> complete(claim, response).thenReturn(response))
+                .switchIfEmpty(Mono.defer(() -> release(claim).then(Mono.empty())))
+                .doOnSuccess(response -> count(operation, "executed"))
+                .cache();
+        outcome.subscribe(response -> { }, e -> { });
+        return outcome;
+    }
+
+    private Mono<Void> complete(IdempotencyRecord claim, Object response) {
+        // La caché local se actualiza aunque falle MongoDB: al menos esta instancia no repite la operación
+        recent.put(claim.getId(), new CompletedResponse(claim.getFingerprint(), response));
+        try {
+            claim.setResponse(objectMapper.writeValueAsString(response));
+        } catch (JsonProcessingException e) {
+            log.warn("Could not serialize idempotent response for {}: {}", claim.getId(), e.getMessage());
+            return Mono.empty();
+        }
+        claim.setStatus(IdempotencyRecord.Status.COMPLETED);
+        claim.setExpireAt(Instant.now().plus(ttl));
+        return repository.save(claim)
+                .doOnError(e -> log.warn("Could not store idempotent response for {}: {}", claim.getId(), e.getMessage()))
+                .onErrorResume(e -> Mono.empty())
+                .then();
+    }
+
+    private Mono<Void> release(IdempotencyRecord claim) {
+        return repository.deleteById(claim.getId())
+                .onErrorResume(e -> {
+                    log.warn("Could not release idempotency key {}: {}", claim.getId(), e.getMessage());
+                    return Mono.empty();
+                });
+    }
+
+    private <T> Mono<T> fromStore(String operation, String id, String fingerprint, Class<T> responseType) {
+        return repository.findById(id)
+                // La operación falló y liberó la clave entre el insert y la lectura: se trata como en curso
+                .switchIfEmpty(Mono.defer(() -> inProgress(operation)))
+                .flatMap(existing -> {
+                    if (!fingerprint.equals(existing.getFingerprint())) {
+                        return mismatch(operation);
+                    }
+                    if (existing.getStatus() != IdempotencyRecord.Status.COMPLETED) {
+                        return inProgress(operation);
+                    }
+                    count(operation, "replayed_store");
+                    return Mono.fromCallable(() -> {
+                        T response = objectMapper.readValue(existing.getResponse(), responseType);
+                        recent.put(id, new CompletedResponse(existing.getFingerprint(), response));
+                        return response;
+                    });
+                });
+    }
+
+    private <T> Mono<T> mismatch(String operation) {
+        count(operation, "mismatch");
+        return Mono.error(new IdempotencyKeyMismatchException(
+                "Idempotency-Key was already used with a different request"));
+    }
+
+    private <T> Mono<T> inProgress(String operation) {
+        count(operation, "in_progress");
+        return Mono.error(new IdempotencyKeyInProgressException(
+                "A request with this Idempotency-Key is still being processed"));
+    }
+
+    private void count(String operation, String outcome) {
+        meterRegistry.counter(REQUESTS_METRIC, "operation", operation, "outcome", outcome).increment();
+    }
+
+    private static final class CompletedResponse {
+        private final String fingerprint;
+        private final Object response;
+
+        private CompletedResponse(String fingerprint, Object response) {
+            this.fingerprint = fingerprint;
+            this.response = response;
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package com.nttdata.bankapp.mscreditservice.service.support;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
+import org.springframework.core.env.Profiles;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Genera números de crédito únicos sin coordinación entre réplicas ni reintentos.
+ * Cada número codifica 64 bits: nodo (10 bits), segundos desde 2024-01-01 UTC (32 bits)
+ * y un contador por segundo (22 bits). Se escriben en Base32 de Crockford con un símbolo
+ * de verificación Luhn mod 32 al final, p. ej. CR-03GAGFY3G00001 (nodo 7).
+ * Nunca se emite un número de un segundo que el reloj todavía no alcanzó: si el contador se agota,
+ * next() espera al segundo siguiente; si el reloj del sistema retrocede, se sigue incrementando el
+ * último valor emitido dentro de su segundo.
+ * El ID de nodo se configura con app.credit-number.node-id y es obligatorio fuera del perfil dev.
+ * Al iniciar, la secuencia arranca en el segundo siguiente para no repetir los números que la
+ * instancia anterior del mismo nodo pudo emitir en el segundo actual; el primer número espera
+ * a que empiece ese segundo. Un reinicio mientras el reloj está atrasado respecto de lo ya emitido
+ * sí puede repetir números.
+ */
+@Component
+@Slf4j
+public class SequentialCreditNumberGenerator implements CreditNumberGenerator {
+
+    public static final String PREFIX = "CR-";
+
+    static final int NODE_BITS = 10;
+    static final int COUNTER_BITS = 22;
+    static final int MAX_NODE_ID = (1 << NODE_BITS) - 1;
+    static final long EPOCH_SECONDS = 1_704_067_200L; // 2024-01-01T00:00:00Z
+    static final String DEV_PROFILE = "dev";
+
+    private static final char[] ALPHABET = "0123456789ABCDEFGHJKMNPQRSTVWXYZ".toCharArray();
+    private static final int BASE = ALPHABET.length;
+    private static final int VALUE_SYMBOLS = 13; // ceil(64 / 5)
+    private static final int LENGTH = PREFIX.length() + VALUE_SYMBOLS + 1;
+    private static final long TIME_AND_COUNTER_MASK = (1L << (64 - NODE_BITS)) - 1;
+    private static final long CLOCK_WAIT_NANOS = 1_000_000L;
+
+    private final long nodeBits;
+    private final Clock clock;
+    // Segundos desde EPOCH_SECONDS << COUNTER_BITS | contador; se avanza con CAS
+    private final AtomicLong sequence = new AtomicLong();
+    // Segundo más alto que mostró el reloj: ningún número emitido es de un segundo posterior
+    private final AtomicLong clockHighWater = new AtomicLong();
+
+    @Autowired
+    public SequentialCreditNumberGenerator(@Value("${app.credit-number.node-id:-1}") int nodeId,
+                                           Environment environment) {
+        this(resolveNodeId(nodeId, environment), Clock.systemUTC());
+    }
+
+    public SequentialCreditNumberGenerator(int nodeId) {
+        this(nodeId, Clock.systemUTC());
+    }
+
+    SequentialCreditNumberGenerator(int nodeId, Clock clock) {
+        if (nodeId < 0 || nodeId > MAX_NODE_ID) {
+            throw new IllegalArgumentException("Credit number node id must be between 0 and " + MAX_NODE_ID);
+        }
+        this.nodeBits = (long) nodeId << (64 - NODE_BITS);
+        this.clock = clock;
+        long second = currentSecond();
+        this.clockHighWater.set(second);
+        this.sequence.set(((second + 1) << COUNTER_BITS) - 1);
+    }
+
+    @Override
+    public String next() {
+        long value = nodeBits | (nextSequence() & TIME_AND_COUNTER_MASK);
+
+        char[] chars = new char[LENGTH];
+        PREFIX.getChars(0, PREFIX.length(), chars, 0);
+        for (int i = LENGTH - 2; i >= PREFIX.length(); i--) {
+            chars[i] = ALPHABET[(int) (value & (BASE - 1))];
+            value >>>= 5;
+        }
+        chars[LENGTH - 1] = ALPHABET[checkSymbol(chars)];
+        return new String(chars);
+    }
+
+    /**
+     * Verifica el formato y el símbolo de verificación de un número de crédito.
+     * @param creditNumber número a verificar
+     * @return true si fue generado con este esquema y no tiene errores de transcripción detectables
+     */
+    public static boolean isValid(String creditNumber) {
+        if (creditNumber == null || creditNumber.length() != LENGTH || !creditNumber.startsWith(PREFIX)) {
+            return false;
+        }
+        char[] chars = creditNumber.toCharArray();
+        for (int i = PREFIX.length(); i < LENGTH; i++) {
+            if (indexOf(chars[i]) < 0) {
+                return false;
+            }
+        }
+        return ALPHABET[checkSymbol(chars)] == chars[LENGTH - 1];
+    }
+
+    private long nextSequence() {
+        while (true) {
+            long current = sequence.get();
+            long second = currentSecond();
+            long highWater = clockHighWater.accumulateAndGet(second, Math::max);
+            long now = second << COUNTER_BITS;
+            // Un segundo nuevo reinicia el contador; en otro caso (incluido un reloj que retrocede) se incrementa
+            long next = now > current ? now : current + 1;
+            if (next >>> COUNTER_BITS > highWater) {
+                // Contador agotado (o recién iniciado): se espera al reloj en vez de adelantarse a él
+                LockSupport.parkNanos(CLOCK_WAIT_NANOS);
+                continue;
+            }
+            if (sequence.compareAndSet(current, next)) {
+                return next;
+            }
+        }
+    }
+
+    private long currentSecond() {
+        return clock.millis() / 1000 - EPOCH_SECONDS;
+    }
+
+    // Luhn mod 32 sobre los símbolos del valor (sin prefijo ni símbolo de verificación)
+    private static int checkSymbol(char[] chars) {
+        int factor = 2;
+        int sum = 0;
+        for (int i = LENGTH - 2; i >= PREFIX.length(); i--) {
+            int addend = factor * indexOf(chars[i]);
+            factor = factor == 2 ? 1 : 2;
+            sum += addend / BASE + addend % BASE;
+        }
+        return (BASE - sum % BASE) % BASE;
+    }
+
+    private static int indexOf(char symbol) {
+        if (symbol >= '0' && symbol <= '9') {
+            return symbol - '0';
+        }
+        for (int i = 10; i < BASE; i++) {
+            if (ALPHABET[i] == symbol) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    // Un hash del hostname puede repetirse entre réplicas; solo en dev se acepta un nodo fijo
+    private static int resolveNodeId(int nodeId, Environment environment) {
+        if (nodeId >= 0) {
+            return nodeId;
+        }
+        if (environment.acceptsProfiles(Profiles.of(DEV_PROFILE))) {
+            log.warn("app.credit-number.node-id is not set; using node id 0 in the {} profile", DEV_PROFILE);
+            return 0;
+        }
+        throw new IllegalStateException("app.credit-number.node-id must be set to a value between 0 and "
+                + MAX_NODE_ID + " that is unique for each replica");
+    }
+}
@@ -0,0 +1,70 @@
+package com.nttdata.bankapp.mscreditservice.service.support;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Mide la duración de los métodos del servicio de créditos desde la suscripción hasta que terminan.
+ * Los timers se etiquetan con el método, el resultado (SUCCESS, ERROR, CANCELLED) y la excepción;
+ * percentiles, histogramas y SLOs se configuran en management.metrics.distribution.*.
+ */
+@Component
+public class ServiceMetrics {
+
+    static final String METRIC = "credit.service";
+
+    private static final String SUCCESS = "SUCCESS";
+    private static final String ERROR = "ERROR";
+    private static final String CANCELLED = "CANCELLED";
+    private static final String NO_EXCEPTION = "none";
+
+    private final MeterRegistry meterRegistry;
+
+    public ServiceMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Mide un Mono; cada suscripción se mide por separado.
+     * @param method Nombre del método, usado como tag
+     * @param mono Operación a medir
+     * @return Mono con el mismo resultado
+     */
+    public <T> Mono<T> timed(String method, Mono<T> mono) {
+        return Mono.defer(() -> {
+            Timer.Sample sample = Timer.start(meterRegistry);
+            return mono
+                    .doOnSuccess(value -> stop(sample, method, SUCCESS, NO_EXCEPTION))
+                    .doOnError(e -> stop(sample, method, ERROR, e.getClass().getSimpleName()))
+                    .doOnCancel(() -> stop(sample, method, CANCELLED, NO_EXCEPTION));
+        });
+    }
+
+    /**
+     * Mide un Flux completo, desde la suscripción hasta el último elemento.
+     * @param method Nombre del método, usado como tag
+     * @param flux Operación a medir
+     * @return Flux con los mismos elementos
+     */
+    public <T> Flux<T> timed(String method, Flux<T> flux) {
+        return Flux.defer(() -> {
+            Timer.Sample sample = Timer.start(meterRegistry);
+            return flux
+                    .doOnComplete(() -> stop(sample, method, SUCCESS, NO_EXCEPTION))
+                    .doOnError(e -> stop(sample, method, ERROR, e.getClass().getSimpleName()))
+                    .doOnCancel(() -> stop(sample, method, CANCELLED, NO_EXCEPTION));
+        });
+    }
+
+    private void stop(Timer.Sample sample, String method, String outcome, String exception) {
+        sample.stop(Timer.builder(METRIC)
+                .description("Duration of credit service operations")
+                .tag("method", method)
+                .tag("outcome", outcome)
+                .tag("exception", exception)
+                .register(meterRegistry));
+    }
+}
@@ -0,0 +1,100 @@
+package com.example.mscreditservice.config;
+
+import com.example.mscreditservice.model.Credit;
+import com.example.mscreditservice.repository.CreditRepository;
+import com.example.mscreditservice.service.support.OptimisticLockRetry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.data.mongo.DataMongoTest;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.MongoDBContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.utility.DockerImageName;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Un crédito guardado antes de @Version se puede actualizar después del backfill; sin Docker se omite
+@DataMongoTest(properties = "spring.cloud.config.enabled=false")
+@Testcontainers(disabledWithoutDocker = true)
+class CreditVersionBackfillTest {
+
+    @Container
+    static final MongoDBContainer MONGO = new MongoDBContainer(DockerImageName.parse("mongo:6.0"));
+
+    @DynamicPropertySource
+    static void mongoProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.data.mongodb.host", MONGO::getHost);
+        registry.add("spring.data.mongodb.port", MONGO::getFirstMappedPort);
+    }
+
+    @Autowired
+    private ReactiveMongoTemplate mongoTemplate;
+
+    @Autowired
+    private CreditRepository creditRepository;
+
+    @BeforeEach
+    void setUp() {
+        creditRepository.deleteAll().block();
+        // Documento con el formato anterior: sin campo version
+        Document legacy = new Document("_id", "credit-1")
+                .append("creditType", "PERSONAL")
+                .append("customerId", "customer-1")
+                .append("amount", "1000")
+                .append("outstandingBalance", "1000")
+                .append("status", "ACTIVE")
+                .append("overdue", false);
+        mongoTemplate.getCollection("credits")
+                .flatMap(collection -> Mono.from(collection.insertOne(legacy)))
+                .block();
+    }
+
+    @Test
+    void legacyCreditCanBeSavedAfterBackfill() {
+        assertThat(new CreditVersionBackfill(mongoTemplate).backfill().block()).isEqualTo(1L);
+
+        OptimisticLockRetry retry = new OptimisticLockRetry(new SimpleMeterRegistry(), 1,
+                Duration.ofMillis(1), Duration.ofMillis(1));
+        Credit saved = retry.apply("test", creditRepository.findById("credit-1")
+                        .flatMap(credit -> {
+                            credit.setOutstandingBalance(new BigDecimal("900"));
+                            return creditRepository.save(credit);
+                        }))
+                .block();
+
+        assertThat(saved.getVersion()).isEqualTo(1L);
+        assertThat(creditRepository.findById("credit-1").block().getOutstandingBalance()).isEqualByComparingTo("900");
+        assertThat(creditRepository.count().block()).isEqualTo(1L);
+    }
+
+    @Test
+    void batchedPaymentsMatchACreditWithoutVersion() {
+        Credit credit = creditRepository.findById("credit-1").block();
+        assertThat(credit.getVersion()).isNull();
+        credit.setOutstandingBalance(new BigDecimal("700"));
+
+        creditRepository.applyPayments(credit, 0L, 2).block();
+
+        Credit updated = creditRepository.findById("credit-1").block();
+        assertThat(updated.getVersion()).isEqualTo(2L);
+        assertThat(updated.getOutstandingBalance()).isEqualByComparingTo("700");
+    }
+
+    @Test
+    void backfillIsIdempotent() {
+        CreditVersionBackfill backfill = new CreditVersionBackfill(mongoTemplate);
+        backfill.backfill().block();
+
+        assertThat(backfill.backfill().block()).isZero();
+    }
+}
@@ -0,0 +1,170 @@
+package com.example.mscreditservice.repository;
+
+import com.example.mscreditservice.config.CreditIndexInitializer;
+import com.example.mscreditservice.model.Credit;
+import com.mongodb.event.CommandListener;
+import com.mongodb.event.CommandStartedEvent;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.mongo.MongoClientSettingsBuilderCustomizer;
+import org.springframework.boot.test.autoconfigure.data.mongo.DataMongoTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.index.MongoPersistentEntityIndexResolver;
+import org.springframework.data.mongodb.core.index.ReactiveIndexOperations;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.MongoDBContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.utility.DockerImageName;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Verifica con explain() que las consultas del repositorio usan índices; sin Docker se omite
+@DataMongoTest(properties = "spring.cloud.config.enabled=false")
+@Testcontainers(disabledWithoutDocker = true)
+class CreditRepositoryIndexTest {
+
+    private static final Set<String> INDEX_STAGES = Set.of("IXSCAN", "COUNT_SCAN", "DISTINCT_SCAN", "IDHACK");
+    private static final Set<String> QUERY_COMMANDS = Set.of("find", "count", "aggregate", "distinct");
+
+    @Container
+    static final MongoDBContainer MONGO = new MongoDBContainer(DockerImageName.parse("mongo:6.0"));
+
+    private static final AtomicReference<Document> LAST_QUERY = new AtomicReference<>();
+
+    @DynamicPropertySource
+    static void mongoProperties(DynamicPropertyRegistry registry) {
+        // application.properties define host/port: se sobrescriben en lugar de usar uri, que no puede combinarse con ellos
+        registry.add("spring.data.mongodb.host", MONGO::getHost);
+        registry.add("spring.data.mongodb.port", MONGO::getFirstMappedPort);
+    }
+
+    @TestConfiguration
+    static class QueryCaptureConfig {
+        // Guarda la última consulta enviada a la colección para ejecutar su explain()
+        @Bean
+        MongoClientSettingsBuilderCustomizer queryCapture() {
+            return builder -> builder.addCommandListener(new CommandListener() {
+                @Override
+                public void commandStarted(CommandStartedEvent event) {
+                    if (QUERY_COMMANDS.contains(event.getCommandName())
+                            && "credits".equals(event.getCommand().getString(event.getCommandName()).getValue())) {
+                        LAST_QUERY.set(Document.parse(event.getCommand().toJson()));
+                    }
+                }
+            });
+        }
+    }
+
+    @Autowired
+    private CreditRepository creditRepository;
+
+    @Autowired
+    private ReactiveMongoTemplate mongoTemplate;
+
+    @Autowired
+    private MongoMappingContext mappingContext;
+
+    @BeforeEach
+    void setUp() {
+        creditRepository.deleteAll().block();
+        ReactiveIndexOperations indexOps = mongoTemplate.indexOps(Credit.class);
+        new MongoPersistentEntityIndexResolver(mappingContext).resolveIndexFor(Credit.class)
+                .forEach(index -> indexOps.ensureIndex(index).block());
+        new CreditIndexInitializer(mongoTemplate).ensureIndexes().block();
+
+        List<Credit> credits = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            Credit credit = new Credit(null, i % 2 == 0 ? "PERSONAL" : "EMPRESARIAL", "customer-" + (i % 10),
+                    BigDecimal.valueOf(1000), BigDecimal.valueOf(1000), "ACTIVE");
+            credit.setDueDate(LocalDate.now().minusDays(i - 25));
+            credit.setOverdue(i % 7 == 0);
+            credits.add(credit);
+        }
+        creditRepository.saveAll(credits).blockLast();
+    }
+
+    @Test
+    void findByCustomerIdUsesIndex() {
+        creditRepository.findByCustomerId("customer-1").collectList().block();
+        assertLastQueryUsesIndex();
+    }
+
+    @Test
+    void findByCustomerIdAndCreditTypeAndStatusUsesIndex() {
+        creditRepository.findByCustomerIdAndCreditTypeAndStatus("customer-2", "PERSONAL", "ACTIVE")
+                .collectList().block();
+        assertLastQueryUsesIndex();
+    }
+
+    @Test
+    void findByCustomerIdAndOverdueUsesPartialIndex() {
+        creditRepository.findByCustomerIdAndOverdue("customer-7", true).collectList().block();
+        assertLastQueryUsesIndex();
+    }
+
+    @Test
+    void findByStatusAndDueDateBeforeUsesIndex() {
+        creditRepository.findByStatusAndDueDateBefore("ACTIVE", LocalDate.now()).collectList().block();
+        assertLastQueryUsesIndex();
+    }
+
+    @Test
+    void findOverdueCandidateIdsUsesIndex() {
+        creditRepository.findOverdueCandidateIds(LocalDate.now(), 10).collectList().block();
+        assertLastQueryUsesIndex();
+    }
+
+    private void assertLastQueryUsesIndex() {
+        Document query = LAST_QUERY.get();
+        assertThat(query).as("captured query").isNotNull();
+
+        // Se quitan los campos de sesión y de protocolo que agrega el driver
+        Document command = new Document();
+        query.forEach((key, value) -> {
+            if (!key.startsWith("$") && !"lsid".equals(key)) {
+                command.put(key, value);
+            }
+        });
+        Document explain = mongoTemplate.executeCommand(new Document("explain", command)
+                .append("verbosity", "queryPlanner")).block();
+
+        List<String> stages = new ArrayList<>();
+        collectWinningPlanStages(explain, false, stages);
+        assertThat(stages).as("winning plan stages for %s", command.toJson())
+                .isNotEmpty()
+                .doesNotContain("COLLSCAN")
+                .anyMatch(INDEX_STAGES::contains);
+    }
+
+    private void collectWinningPlanStages(Object node, boolean inWinningPlan, List<String> stages) {
+        if (node instanceof Map) {
+            ((Map<?, ?>) node).forEach((key, value) -> {
+                if ("rejectedPlans".equals(key)) {
+                    return;
+                }
+                boolean winning = inWinningPlan || "winningPlan".equals(key);
+                if (winning && "stage".equals(key)) {
+                    stages.add(String.valueOf(value));
+                }
+                collectWinningPlanStages(value, winning, stages);
+            });
+        } else if (node instanceof List) {
+            ((List<?>) node).forEach(item -> collectWinningPlanStages(item, inWinningPlan, stages));
+        }
+    }
+}
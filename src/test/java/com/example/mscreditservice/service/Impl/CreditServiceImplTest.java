@@ -0,0 +1,211 @@
+package com.example.mscreditservice.service.Impl;
+
+import com.example.mscreditservice.model.Credit;
+import com.example.mscreditservice.model.CreditPayment;
+import com.example.mscreditservice.model.OverdueDebtStatus;
+import com.example.mscreditservice.repository.CreditPaymentRepository;
+import com.example.mscreditservice.repository.CreditRepository;
+import com.example.mscreditservice.service.support.OptimisticLockRetry;
+import com.example.mscreditservice.service.support.OverdueCustomerIndex;
+import com.example.mscreditservice.service.support.PaymentCoalescer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.test.util.ReflectionTestUtils;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Signal;
+import reactor.test.StepVerifier;
+import reactor.util.function.Tuple3;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Pagos agrupados por PaymentCoalescer: una sola escritura por lote sobre un crédito en memoria.
+ * Consulta masiva de deuda vencida con el índice en memoria simulado.
+ */
+class CreditServiceImplTest {
+
+    private static final String CREDIT_ID = "credit-1";
+
+    // Documento del crédito en "MongoDB"; applyPayments lo reemplaza solo si la versión coincide
+    private final AtomicReference<Credit> stored = new AtomicReference<>();
+    private final List<CreditPayment> ledger = new CopyOnWriteArrayList<>();
+    private final List<Long> expectedVersions = new CopyOnWriteArrayList<>();
+    // Escrituras concurrentes a simular antes de las próximas llamadas a applyPayments
+    private final AtomicInteger concurrentWrites = new AtomicInteger();
+    private CreditRepository creditRepository;
+    private OverdueCustomerIndex overdueCustomerIndex;
+    private CreditServiceImpl service;
+
+    @BeforeEach
+    void setUp() {
+        creditRepository = mock(CreditRepository.class);
+        when(creditRepository.findById(anyString())).thenAnswer(invocation ->
+                Mono.fromSupplier(() -> copyOf(stored.get())));
+        when(creditRepository.applyPayments(any(Credit.class), anyLong(), anyInt())).thenAnswer(invocation -> {
+            Credit credit = invocation.getArgument(0);
+            long expectedVersion = invocation.getArgument(1);
+            int payments = invocation.getArgument(2);
+            return Mono.defer(() -> {
+                expectedVersions.add(expectedVersion);
+                if (concurrentWrites.getAndDecrement() > 0) {
+                    // Otra réplica paga 50 entre la lectura y la escritura del lote
+                    Credit current = stored.get();
+                    current.setOutstandingBalance(current.getOutstandingBalance().subtract(BigDecimal.valueOf(50)));
+                    current.setVersion(versionOf(current) + 1);
+                }
+                if (versionOf(stored.get()) != expectedVersion) {
+                    return Mono.error(new OptimisticLockingFailureException("version changed"));
+                }
+                Credit updated = copyOf(credit);
+                updated.setVersion(expectedVersion + payments);
+                stored.set(updated);
+                return Mono.empty();
+            });
+        });
+
+        CreditPaymentRepository creditPaymentRepository = mock(CreditPaymentRepository.class);
+        when(creditPaymentRepository.insert(any(CreditPayment.class))).thenAnswer(invocation -> {
+            CreditPayment payment = invocation.getArgument(0);
+            ledger.add(payment);
+            return Mono.just(payment);
+        });
+
+        overdueCustomerIndex = mock(OverdueCustomerIndex.class);
+        when(overdueCustomerIndex.onPayment(anyString())).thenReturn(Mono.empty());
+
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        service = new CreditServiceImpl(creditRepository, creditPaymentRepository,
+                new OptimisticLockRetry(meterRegistry, 5, Duration.ofMillis(1), Duration.ofMillis(5)),
+                new PaymentCoalescer(meterRegistry, true, Duration.ofMillis(50), 50),
+                overdueCustomerIndex, meterRegistry);
+        ReflectionTestUtils.setField(service, "overdueQueryChunkSize", 2);
+    }
+
+    @Test
+    void batchIsWrittenOnceAndEachPaymentGetsItsOwnVersion() {
+        stored.set(credit(new BigDecimal("1000"), 3L));
+
+        Tuple3<Signal<Credit>, Signal<Credit>, Signal<Credit>> results = payConcurrently("100", "200", "300");
+
+        assertThat(results.getT1().get().getOutstandingBalance()).isEqualByComparingTo("900");
+        assertThat(results.getT1().get().getVersion()).isEqualTo(4L);
+        assertThat(results.getT2().get().getOutstandingBalance()).isEqualByComparingTo("700");
+        assertThat(results.getT2().get().getVersion()).isEqualTo(5L);
+        assertThat(results.getT3().get().getOutstandingBalance()).isEqualByComparingTo("400");
+        assertThat(results.getT3().get().getVersion()).isEqualTo(6L);
+        assertThat(expectedVersions).containsExactly(3L);
+        assertThat(stored.get().getVersion()).isEqualTo(6L);
+        assertThat(sequences()).containsExactly(4L, 5L, 6L);
+    }
+
+    @Test
+    void overpaymentIsRejectedOnlyForItsCaller() {
+        stored.set(credit(new BigDecimal("250"), 7L));
+
+        Tuple3<Signal<Credit>, Signal<Credit>, Signal<Credit>> results = payConcurrently("100", "200", "150");
+
+        assertThat(results.getT1().get().getOutstandingBalance()).isEqualByComparingTo("150");
+        assertThat(results.getT2().getThrowable())
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessage("El pago excede el saldo pendiente.");
+        assertThat(results.getT3().get().getOutstandingBalance()).isEqualByComparingTo("0");
+        assertThat(results.getT3().get().getStatus()).isEqualTo("PAID");
+        // Solo los pagos aceptados avanzan la versión y entran al libro
+        assertThat(stored.get().getVersion()).isEqualTo(9L);
+        assertThat(sequences()).containsExactly(8L, 9L);
+    }
+
+    @Test
+    void conflictRetriesTheWholeBatchAgainstTheNewBalance() {
+        stored.set(credit(new BigDecimal("1000"), 3L));
+        concurrentWrites.set(1);
+
+        Tuple3<Signal<Credit>, Signal<Credit>, Signal<Credit>> results = payConcurrently("100", "200", "300");
+
+        assertThat(expectedVersions).containsExactly(3L, 4L);
+        assertThat(results.getT1().get().getOutstandingBalance()).isEqualByComparingTo("850");
+        assertThat(results.getT3().get().getOutstandingBalance()).isEqualByComparingTo("350");
+        assertThat(stored.get().getOutstandingBalance()).isEqualByComparingTo("350");
+        assertThat(stored.get().getVersion()).isEqualTo(7L);
+        // El reintento no duplica entradas del libro
+        assertThat(sequences()).containsExactly(5L, 6L, 7L);
+    }
+
+    @Test
+    void creditWithoutVersionIsTreatedAsVersionZero() {
+        stored.set(credit(new BigDecimal("1000"), null));
+
+        Tuple3<Signal<Credit>, Signal<Credit>, Signal<Credit>> results = payConcurrently("100", "200", "300");
+
+        assertThat(results.getT3().get().getVersion()).isEqualTo(3L);
+        assertThat(expectedVersions).containsExactly(0L);
+        assertThat(sequences()).containsExactly(1L, 2L, 3L);
+    }
+
+    @Test
+    void overdueQueryOnlyAsksMongoForCandidatesAndReportsInvalidIdsPerItem() {
+        when(overdueCustomerIndex.mightBeOverdue(anyString())).thenAnswer(invocation ->
+                !"customer-3".equals(invocation.getArgument(0)));
+        when(creditRepository.findOverdueCustomerIdsIn(anyCollection())).thenReturn(Flux.just("customer-1"));
+
+        StepVerifier.create(service.hasOverdueDebt(Flux.just("customer-1", " ", "customer-2", "customer-3")))
+                .expectNext(new OverdueDebtStatus("customer-1", true))
+                .expectNext(OverdueDebtStatus.invalid(" ", "El elemento de la consulta debe ser un id de cliente."))
+                .expectNext(new OverdueDebtStatus("customer-2", false))
+                .expectNext(new OverdueDebtStatus("customer-3", false))
+                .verifyComplete();
+        // Un bloque por cada dos ids; el id vacío y el descartado por el índice no se consultan
+        verify(creditRepository).findOverdueCustomerIdsIn(Set.of("customer-1"));
+        verify(creditRepository).findOverdueCustomerIdsIn(Set.of("customer-2"));
+    }
+
+    // Los tres pagos se suscriben juntos, así caen en el mismo lote
+    private Tuple3<Signal<Credit>, Signal<Credit>, Signal<Credit>> payConcurrently(String first, String second,
+                                                                                    String third) {
+        return Mono.zip(
+                        service.payCredit(CREDIT_ID, new BigDecimal(first)).materialize(),
+                        service.payCredit(CREDIT_ID, new BigDecimal(second)).materialize(),
+                        service.payCredit(CREDIT_ID, new BigDecimal(third)).materialize())
+                .block(Duration.ofSeconds(5));
+    }
+
+    private List<Long> sequences() {
+        return ledger.stream().map(CreditPayment::getSequence).sorted().collect(Collectors.toList());
+    }
+
+    private static long versionOf(Credit credit) {
+        return credit.getVersion() == null ? 0L : credit.getVersion();
+    }
+
+    private static Credit credit(BigDecimal outstandingBalance, Long version) {
+        return new Credit(CREDIT_ID, "PERSONAL", "customer-1", new BigDecimal("1000"), outstandingBalance, "ACTIVE",
+                LocalDate.now().plusMonths(1), false, null, null, version);
+    }
+
+    private static Credit copyOf(Credit credit) {
+        return new Credit(credit.getId(), credit.getCreditType(), credit.getCustomerId(), credit.getAmount(),
+                credit.getOutstandingBalance(), credit.getStatus(), credit.getDueDate(), credit.isOverdue(),
+                credit.getLastPaymentBy(), credit.getLastPaymentDate(), credit.getVersion());
+    }
+}
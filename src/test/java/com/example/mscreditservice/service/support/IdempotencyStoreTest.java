@@ -0,0 +1,129 @@
+package com.example.mscreditservice.service.support;
+
+import com.example.mscreditservice.Exception.IdempotencyKeyInProgressException;
+import com.example.mscreditservice.model.Credit;
+import com.example.mscreditservice.model.IdempotencyRecord;
+import com.example.mscreditservice.repository.IdempotencyRecordRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DuplicateKeyException;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class IdempotencyStoreTest {
+
+    private final Map<String, IdempotencyRecord> records = new ConcurrentHashMap<>();
+    private final AtomicInteger executions = new AtomicInteger();
+    private IdempotencyRecordRepository repository;
+
+    @BeforeEach
+    void setUp() {
+        // Repositorio en memoria con la misma semántica de _id único que MongoDB
+        repository = mock(IdempotencyRecordRepository.class);
+        when(repository.insert(any(IdempotencyRecord.class))).thenAnswer(invocation -> {
+            IdempotencyRecord record = invocation.getArgument(0);
+            return records.putIfAbsent(record.getId(), copy(record)) == null
+                    ? Mono.just(record)
+                    : Mono.error(new DuplicateKeyException(record.getId()));
+        });
+        when(repository.save(any(IdempotencyRecord.class))).thenAnswer(invocation -> {
+            IdempotencyRecord record = invocation.getArgument(0);
+            records.put(record.getId(), copy(record));
+            return Mono.just(record);
+        });
+        when(repository.findById(anyString())).thenAnswer(invocation ->
+                Mono.justOrEmpty(records.get(invocation.<String>getArgument(0))));
+        when(repository.deleteById(anyString())).thenAnswer(invocation -> {
+            records.remove(invocation.<String>getArgument(0));
+            return Mono.empty();
+        });
+    }
+
+    @Test
+    void retriesWithTheSameKeyRunTheOperationOnce() {
+        IdempotencyStore store = newStore();
+
+        Credit first = store.execute("payCredit", "key-1", "c1:100", Credit.class, this::pay).block();
+        Credit second = store.execute("payCredit", "key-1", "c1:100", Credit.class, this::pay).block();
+
+        assertThat(executions).hasValue(1);
+        assertThat(second).isEqualTo(first);
+    }
+
+    @Test
+    void clientDisconnectDoesNotLoseTheOutcome() {
+        Sinks.One<Credit> payment = Sinks.one();
+
+        // El cliente se desconecta mientras el pago todavía está en curso
+        newStore().execute("payCredit", "key-1", "c1:100", Credit.class, () -> {
+                    executions.incrementAndGet();
+                    return payment.asMono();
+                })
+                .subscribe()
+                .dispose();
+
+        StepVerifier.create(newStore().execute("payCredit", "key-1", "c1:100", Credit.class, this::pay))
+                .expectError(IdempotencyKeyInProgressException.class)
+                .verify();
+
+        Credit paid = credit(BigDecimal.valueOf(800));
+        payment.tryEmitValue(paid);
+
+        assertThat(records.get("payCredit:key-1").getStatus()).isEqualTo("COMPLETED");
+        assertThat(newStore().execute("payCredit", "key-1", "c1:100", Credit.class, this::pay).block())
+                .isEqualTo(paid);
+        assertThat(executions).hasValue(1);
+    }
+
+    @Test
+    void inProgressClaimLastsTheLeaseAndTheStoredResponseTheTtl() {
+        Sinks.One<Credit> payment = Sinks.one();
+        Instant start = Instant.now();
+
+        newStore().execute("payCredit", "key-1", "c1:100", Credit.class, payment::asMono).subscribe();
+
+        // Si la instancia cae ahora, la clave se libera a los dos minutos y no a las 24 horas
+        assertThat(records.get("payCredit:key-1").getExpireAt())
+                .isBetween(start.plus(Duration.ofMinutes(2)), Instant.now().plus(Duration.ofMinutes(2)));
+
+        payment.tryEmitValue(credit(BigDecimal.valueOf(800)));
+        assertThat(records.get("payCredit:key-1").getExpireAt()).isAfter(start.plus(Duration.ofHours(23)));
+    }
+
+    private Mono<Credit> pay() {
+        return Mono.fromSupplier(() -> credit(BigDecimal.valueOf(900 - 100L * executions.incrementAndGet())));
+    }
+
+    private IdempotencyStore newStore() {
+        return new IdempotencyStore(repository, new ObjectMapper().findAndRegisterModules(), new SimpleMeterRegistry(),
+                Duration.ofHours(24), Duration.ofMinutes(2), 100);
+    }
+
+    private static Credit credit(BigDecimal outstandingBalance) {
+        Credit credit = new Credit();
+        credit.setId("c1");
+        credit.setOutstandingBalance(outstandingBalance);
+        return credit;
+    }
+
+    private static IdempotencyRecord copy(IdempotencyRecord record) {
+        return new IdempotencyRecord(record.getId(), record.getFingerprint(), record.getStatus(),
+                record.getResponse(), record.getExpireAt());
+    }
+}
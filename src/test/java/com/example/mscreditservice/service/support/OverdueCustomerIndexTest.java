@@ -0,0 +1,178 @@
+package com.example.mscreditservice.service.support;
+
+import com.example.mscreditservice.model.Credit;
+import com.example.mscreditservice.repository.CreditRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class OverdueCustomerIndexTest {
+
+    private final Set<String> overdueInMongo = ConcurrentHashMap.newKeySet();
+    // 23:50, diez minutos antes del barrido de medianoche
+    private final MutableClock clock = new MutableClock(Instant.parse("2024-03-10T23:50:00Z"));
+    private CreditRepository repository;
+    private OverdueCustomerIndex index;
+
+    @BeforeEach
+    void setUp() {
+        // Repositorio en memoria: un cliente tiene un crédito vencido si figura en overdueInMongo
+        repository = mock(CreditRepository.class);
+        when(repository.findOverdueCustomerIds()).thenAnswer(invocation -> Flux.fromIterable(new ArrayList<>(overdueInMongo)));
+        when(repository.findByCustomerIdAndOverdue(anyString(), eq(true))).thenAnswer(invocation ->
+                overdueInMongo.contains(invocation.<String>getArgument(0)) ? Flux.just(new Credit()) : Flux.empty());
+        index = new OverdueCustomerIndex(repository, new SimpleMeterRegistry(),
+                "0 0 0 * * *", Duration.ofMinutes(15), clock);
+    }
+
+    @Test
+    void queriesMongoUntilTheFirstRebuild() {
+        overdueInMongo.add("customer-1");
+
+        StepVerifier.create(index.hasOverdueDebt("customer-1")).expectNext(true).verifyComplete();
+        StepVerifier.create(index.hasOverdueDebt("customer-2")).expectNext(false).verifyComplete();
+        verify(repository, times(2)).findByCustomerIdAndOverdue(anyString(), eq(true));
+    }
+
+    @Test
+    void customersOutsideTheIndexAreAnsweredFromMemory() {
+        overdueInMongo.add("customer-1");
+        StepVerifier.create(index.rebuild()).expectNext(1).verifyComplete();
+
+        StepVerifier.create(index.hasOverdueDebt("customer-2")).expectNext(false).verifyComplete();
+        verify(repository, never()).findByCustomerIdAndOverdue(anyString(), eq(true));
+
+        StepVerifier.create(index.hasOverdueDebt("customer-1")).expectNext(true).verifyComplete();
+    }
+
+    @Test
+    void paymentThatClearsTheLastOverdueCreditRemovesTheCustomer() {
+        overdueInMongo.add("customer-1");
+        index.rebuild().block();
+
+        overdueInMongo.remove("customer-1");
+        index.onPayment("customer-1").block();
+
+        StepVerifier.create(index.hasOverdueDebt("customer-1")).expectNext(false).verifyComplete();
+        // Una consulta en onPayment y ninguna más
+        verify(repository, times(1)).findByCustomerIdAndOverdue("customer-1", true);
+    }
+
+    @Test
+    void onlyIndexedCustomersNeedAQueryOnceLoaded() {
+        overdueInMongo.add("customer-1");
+        assertThat(index.mightBeOverdue("customer-2")).isTrue();
+
+        index.rebuild().block();
+        assertThat(index.mightBeOverdue("customer-1")).isTrue();
+        assertThat(index.mightBeOverdue("customer-2")).isFalse();
+    }
+
+    @Test
+    void sweepOnAnotherReplicaIsReadFromMongoUntilTheIndexIsRebuiltAfterIt() {
+        index.rebuild().block();
+        assertThat(index.mightBeOverdue("customer-2")).isFalse();
+
+        // Otra réplica marca el crédito vencido en el barrido de medianoche
+        clock.set(Instant.parse("2024-03-11T00:01:00Z"));
+        overdueInMongo.add("customer-2");
+        assertThat(index.mightBeOverdue("customer-2")).isTrue();
+        StepVerifier.create(index.hasOverdueDebt("customer-2")).expectNext(true).verifyComplete();
+
+        // Una lectura dentro del margen puede no tener el barrido completo
+        clock.set(Instant.parse("2024-03-11T00:05:00Z"));
+        index.rebuild().block();
+        assertThat(index.mightBeOverdue("customer-3")).isTrue();
+
+        clock.set(Instant.parse("2024-03-11T00:20:00Z"));
+        index.rebuild().block();
+        assertThat(index.mightBeOverdue("customer-2")).isTrue();
+        assertThat(index.mightBeOverdue("customer-3")).isFalse();
+    }
+
+    @Test
+    void lookupThatStartedBeforeARebuildDoesNotClearTheNewIndex() {
+        overdueInMongo.add("customer-1");
+        index.rebuild().block();
+
+        // La consulta ve al cliente al día, pero responde después de que volvió a vencer y se reconstruyó el índice
+        Sinks.Empty<Void> slowQuery = Sinks.empty();
+        when(repository.findByCustomerIdAndOverdue("customer-1", true))
+                .thenReturn(Flux.<Credit>empty().delaySubscription(slowQuery.asMono()));
+        AtomicReference<Boolean> answer = new AtomicReference<>();
+        index.hasOverdueDebt("customer-1").subscribe(answer::set);
+
+        index.rebuild().block();
+        slowQuery.tryEmitEmpty();
+
+        assertThat(answer.get()).isFalse();
+        assertThat(index.mightBeOverdue("customer-1")).isTrue();
+    }
+
+    @Test
+    void fingerprintSetContainsExactlyItsValues() {
+        List<String> values = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++) {
+            values.add(UUID.randomUUID().toString());
+        }
+        OverdueCustomerIndex.FingerprintSet set = OverdueCustomerIndex.FingerprintSet.of(values);
+
+        assertThat(set.size()).isEqualTo(values.size());
+        assertThat(values).allMatch(set::contains);
+        for (int i = 0; i < 10_000; i++) {
+            assertThat(set.contains(UUID.randomUUID().toString())).isFalse();
+        }
+        assertThat(OverdueCustomerIndex.FingerprintSet.of(List.of()).contains("customer-1")).isFalse();
+    }
+
+    private static final class MutableClock extends Clock {
+        private volatile Instant instant;
+
+        private MutableClock(Instant instant) {
+            this.instant = instant;
+        }
+
+        void set(Instant instant) {
+            this.instant = instant;
+        }
+
+        @Override
+        public ZoneOffset getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return instant;
+        }
+    }
+}
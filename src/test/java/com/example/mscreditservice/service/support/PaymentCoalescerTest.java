@@ -0,0 +1,74 @@
+package com.example.mscreditservice.service.support;
+
+import com.example.mscreditservice.model.Credit;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PaymentCoalescerTest {
+
+    private final List<Integer> batchSizes = new CopyOnWriteArrayList<>();
+
+    @Test
+    void paymentsWithinTheWindowAreAppliedTogether() {
+        PaymentCoalescer coalescer = newCoalescer(Duration.ofMillis(50), 10);
+
+        Mono<Credit> first = coalescer.submit("credit-1", null, new BigDecimal("10"), this::applyAll);
+        Mono<Credit> second = coalescer.submit("credit-1", "payer-2", new BigDecimal("20"), this::applyAll);
+        Mono<Credit> other = coalescer.submit("credit-2", null, new BigDecimal("30"), this::applyAll);
+
+        StepVerifier.create(first).assertNext(credit -> assertThat(credit.getOutstandingBalance()).isEqualByComparingTo("10")).verifyComplete();
+        StepVerifier.create(second).assertNext(credit -> assertThat(credit.getLastPaymentBy()).isEqualTo("payer-2")).verifyComplete();
+        StepVerifier.create(other).expectNextCount(1).verifyComplete();
+        assertThat(batchSizes).containsExactlyInAnyOrder(2, 1);
+    }
+
+    @Test
+    void fullBatchIsAppliedWithoutWaitingForTheWindow() {
+        PaymentCoalescer coalescer = newCoalescer(Duration.ofMinutes(1), 2);
+
+        Mono<Credit> first = coalescer.submit("credit-1", null, BigDecimal.ONE, this::applyAll);
+        Mono<Credit> second = coalescer.submit("credit-1", null, BigDecimal.TEN, this::applyAll);
+
+        StepVerifier.create(first).expectNextCount(1).expectComplete().verify(Duration.ofSeconds(1));
+        StepVerifier.create(second).expectNextCount(1).expectComplete().verify(Duration.ofSeconds(1));
+        assertThat(batchSizes).containsExactly(2);
+    }
+
+    @Test
+    void batchFailureReachesEveryCaller() {
+        PaymentCoalescer coalescer = newCoalescer(Duration.ofMillis(10), 10);
+
+        Mono<Credit> first = coalescer.submit("credit-1", null, BigDecimal.ONE,
+                (creditId, payments) -> Mono.error(new IllegalArgumentException("not found")));
+        Mono<Credit> second = coalescer.submit("credit-1", null, BigDecimal.TEN,
+                (creditId, payments) -> Mono.error(new IllegalArgumentException("not found")));
+
+        StepVerifier.create(first).expectError(IllegalArgumentException.class).verify(Duration.ofSeconds(1));
+        StepVerifier.create(second).expectError(IllegalArgumentException.class).verify(Duration.ofSeconds(1));
+    }
+
+    private PaymentCoalescer newCoalescer(Duration window, int maxBatchSize) {
+        return new PaymentCoalescer(new SimpleMeterRegistry(), true, window, maxBatchSize);
+    }
+
+    // Completa cada pago con un crédito cuyo saldo es el monto pagado, para identificar el resultado
+    private Mono<Void> applyAll(String creditId, List<PaymentCoalescer.PendingPayment> payments) {
+        batchSizes.add(payments.size());
+        payments.forEach(payment -> {
+            Credit credit = new Credit(creditId, "EMPRESARIAL", "customer-1", BigDecimal.ZERO,
+                    payment.getAmount(), "ACTIVE");
+            credit.setLastPaymentBy(payment.getPayerCustomerId());
+            payment.succeed(credit);
+        });
+        return Mono.empty();
+    }
+}
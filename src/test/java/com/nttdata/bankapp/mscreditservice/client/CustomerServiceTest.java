@@ -0,0 +1,124 @@
+package com.nttdata.bankapp.mscreditservice.client;
+
+import com.nttdata.bankapp.mscreditservice.config.CustomerClientConfig;
+import com.nttdata.bankapp.mscreditservice.exception.CustomerServiceUnavailableException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.codec.DecodingException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeFunction;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.net.ConnectException;
+import java.net.URI;
+import java.time.Duration;
+import java.util.concurrent.TimeoutException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Verifica qué errores del servicio de clientes se reportan como no disponible y cuáles cuentan
+ * como fallo para el circuit breaker.
+ */
+class CustomerServiceTest {
+
+    private final CustomerClientConfig config = new CustomerClientConfig();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final CircuitBreaker circuitBreaker =
+            config.customerServiceCircuitBreaker(50, 20, 10, Duration.ofSeconds(10), meterRegistry);
+
+    @Test
+    void serverErrorIsUnavailableAndRecordedAsFailure() {
+        CustomerService service = service(request -> Mono.just(ClientResponse.create(HttpStatus.BAD_GATEWAY).build()));
+
+        StepVerifier.create(service.getCustomerType("customer-1"))
+                .expectError(CustomerServiceUnavailableException.class)
+                .verify();
+
+        assertThat(circuitBreaker.getMetrics().getNumberOfFailedCalls()).isEqualTo(1);
+    }
+
+    @Test
+    void connectErrorIsUnavailable() {
+        CustomerService service = service(request -> Mono.error(new WebClientRequestException(
+                new ConnectException("Connection refused"), HttpMethod.GET, request.url(), HttpHeaders.EMPTY)));
+
+        StepVerifier.create(service.customerExists("customer-1"))
+                .expectError(CustomerServiceUnavailableException.class)
+                .verify();
+
+        assertThat(circuitBreaker.getMetrics().getNumberOfFailedCalls()).isEqualTo(1);
+    }
+
+    @Test
+    void clientErrorPropagatesAndIsNotRecorded() {
+        CustomerService service = service(request -> Mono.just(ClientResponse.create(HttpStatus.BAD_REQUEST).build()));
+
+        StepVerifier.create(service.getCustomerType("customer-1"))
+                .expectError(WebClientResponseException.BadRequest.class)
+                .verify();
+
+        assertThat(circuitBreaker.getMetrics().getNumberOfFailedCalls()).isZero();
+        assertThat(circuitBreaker.getMetrics().getNumberOfBufferedCalls()).isZero();
+    }
+
+    @Test
+    void malformedResponsePropagatesAndIsNotRecorded() {
+        CustomerService service = service(request -> Mono.just(ClientResponse.create(HttpStatus.OK)
+                .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                .body("{\"id\":\"customer-1\",\"type\":\"UNKNOWN\"}")
+                .build()));
+
+        StepVerifier.create(service.getCustomerType("customer-1"))
+                .expectError(DecodingException.class)
+                .verify();
+
+        assertThat(circuitBreaker.getMetrics().getNumberOfFailedCalls()).isZero();
+    }
+
+    @Test
+    void missingCustomerTypeIsNotReportedAsUnavailable() {
+        CustomerService service = service(request -> Mono.just(ClientResponse.create(HttpStatus.OK)
+                .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                .body("{\"id\":\"customer-1\"}")
+                .build()));
+
+        StepVerifier.create(service.getCustomerType("customer-1"))
+                .expectError(NullPointerException.class)
+                .verify();
+
+        assertThat(circuitBreaker.getMetrics().getNumberOfFailedCalls()).isZero();
+    }
+
+    @Test
+    void classifiesOnlyServiceFailuresAsUnavailable() {
+        URI uri = URI.create("http://customers/customers/1");
+
+        assertThat(CustomerServiceFailures.isUnavailable(new TimeoutException())).isTrue();
+        assertThat(CustomerServiceFailures.isUnavailable(WebClientResponseException.create(
+                503, "Service Unavailable", HttpHeaders.EMPTY, new byte[0], null))).isTrue();
+        assertThat(CustomerServiceFailures.isUnavailable(new WebClientRequestException(
+                new ConnectException(), HttpMethod.GET, uri, HttpHeaders.EMPTY))).isTrue();
+        assertThat(CustomerServiceFailures.isUnavailable(WebClientResponseException.create(
+                422, "Unprocessable Entity", HttpHeaders.EMPTY, new byte[0], null))).isFalse();
+        assertThat(CustomerServiceFailures.isUnavailable(new IllegalStateException())).isFalse();
+    }
+
+    private CustomerService service(ExchangeFunction exchangeFunction) {
+        WebClient webClient = WebClient.builder()
+                .baseUrl("http://customers")
+                .exchangeFunction(exchangeFunction)
+                .build();
+        return new CustomerService(webClient, circuitBreaker, config.customerServiceBulkhead(50, meterRegistry),
+                Duration.ofSeconds(5), "", 8, 100, Duration.ofMinutes(10), Duration.ofSeconds(30), meterRegistry);
+    }
+}
@@ -0,0 +1,135 @@
+package com.nttdata.bankapp.mscreditservice.config;
+
+import com.nttdata.bankapp.mscreditservice.model.Credit;
+import com.nttdata.bankapp.mscreditservice.model.CreditStats;
+import com.nttdata.bankapp.mscreditservice.model.Money;
+import com.nttdata.bankapp.mscreditservice.repository.CreditRepository;
+import com.nttdata.bankapp.mscreditservice.repository.CreditStatsRepository;
+import org.bson.Document;
+import org.bson.types.Decimal128;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.data.mongo.DataMongoTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.MongoDBContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.utility.DockerImageName;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Verifica la migración de créditos guardados con el formato anterior contra un MongoDB real.
+ * Requiere Docker; sin Docker la prueba se omite.
+ */
+@DataMongoTest(properties = "spring.cloud.config.enabled=false")
+@Import(MongoConfig.class)
+@Testcontainers(disabledWithoutDocker = true)
+class CreditDataMigrationTest {
+
+    @Container
+    static final MongoDBContainer MONGO = new MongoDBContainer(DockerImageName.parse("mongo:6.0"));
+
+    @DynamicPropertySource
+    static void mongoProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.data.mongodb.host", MONGO::getHost);
+        registry.add("spring.data.mongodb.port", MONGO::getFirstMappedPort);
+    }
+
+    @Autowired
+    private ReactiveMongoTemplate mongoTemplate;
+
+    @Autowired
+    private CreditRepository creditRepository;
+
+    @Autowired
+    private CreditStatsRepository creditStatsRepository;
+
+    private CreditDataMigration migration;
+
+    @BeforeEach
+    void setUp() {
+        creditRepository.deleteAll().block();
+        creditStatsRepository.deleteAll().block();
+        migration = new CreditDataMigration(mongoTemplate, creditStatsRepository);
+    }
+
+    @Test
+    void stringAmountsAreConvertedAndAcceptPayments() {
+        String id = insertRaw(new Document("amount", "1000.00")
+                .append("remainingAmount", "1000.00")
+                .append("interestRate", "12.5"));
+
+        migration.migrate().block();
+
+        Document stored = mongoTemplate.getCollection("credits")
+                .flatMap(collection -> Mono.from(collection.find(new Document("_id", new ObjectId(id))).first()))
+                .block();
+        assertThat(stored.get("amount")).isEqualTo(Decimal128.parse("1000.00"));
+        assertThat(stored.get("remainingAmount")).isEqualTo(Decimal128.parse("1000.00"));
+        assertThat(stored.get("interestRate")).isEqualTo(Decimal128.parse("12.5"));
+
+        assertThat(creditRepository.applyPayment(id, Money.of(new BigDecimal("100.00"))).block()).isNotNull();
+        assertThat(creditRepository.findById(id).block().getRemainingAmount()).isEqualTo(Money.of(new BigDecimal("900.00")));
+
+        // El agregado se reconstruye con los montos ya convertidos
+        List<CreditStats> stats = creditStatsRepository.findAll().collectList().block();
+        assertThat(stats).hasSize(1);
+        assertThat(stats.get(0).getTotalAmount()).isEqualByComparingTo("1000.00");
+    }
+
+    @Test
+    void migrationIsIdempotent() {
+        insertRaw(new Document("amount", "500").append("remainingAmount", "500").append("interestRate", "10"));
+
+        migration.migrate().block();
+        assertThat(migration.convertStringAmounts().block()).isZero();
+    }
+
+    @Test
+    void creditWithoutVersionCanBeUpdatedAfterBackfill() {
+        String id = insertRaw(new Document("amount", Decimal128.parse("1000"))
+                .append("remainingAmount", Decimal128.parse("1000"))
+                .append("interestRate", Decimal128.parse("10")));
+        mongoTemplate.getCollection("credits")
+                .flatMap(collection -> Mono.from(collection.updateOne(new Document("_id", new ObjectId(id)),
+                        new Document("$unset", new Document("version", "")))))
+                .block();
+
+        migration.migrate().block();
+
+        Credit credit = creditRepository.findById(id).block();
+        assertThat(credit.getVersion()).isZero();
+        credit.setTerm(24);
+        Credit saved = creditRepository.save(credit).block();
+
+        assertThat(saved.getVersion()).isEqualTo(1L);
+        assertThat(creditRepository.findById(id).block().getTerm()).isEqualTo(24);
+        assertThat(creditRepository.count().block()).isEqualTo(1L);
+    }
+
+    private String insertRaw(Document amounts) {
+        ObjectId id = new ObjectId();
+        Document document = new Document("_id", id)
+                .append("creditNumber", "CR-" + id.toHexString())
+                .append("customerId", "customer-1")
+                .append("customerType", "PERSONAL")
+                .append("type", "PERSONAL")
+                .append("status", "ACTIVE")
+                .append("version", 0L);
+        document.putAll(amounts);
+        mongoTemplate.getCollection("credits")
+                .flatMap(collection -> Mono.from(collection.insertOne(document)))
+                .block();
+        return id.toHexString();
+    }
+}
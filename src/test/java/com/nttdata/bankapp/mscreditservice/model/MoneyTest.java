@@ -0,0 +1,60 @@
+package com.nttdata.bankapp.mscreditservice.model;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.bson.types.Decimal128;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class MoneyTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void encodesTheSameDecimal128AsBigDecimal() {
+        for (long minorUnits : new long[]{0, 1, -1, 5, 987_654, -987_654, Long.MAX_VALUE}) {
+            Money money = Money.ofMinor(minorUnits);
+
+            assertThat(money.toDecimal128()).isEqualTo(new Decimal128(money.toBigDecimal()));
+            assertThat(Money.of(money.toDecimal128())).isEqualTo(money);
+        }
+    }
+
+    @Test
+    void readsDecimal128WithOtherScales() {
+        assertThat(Money.of(new Decimal128(new BigDecimal("5000")))).isEqualTo(Money.ofMinor(500_000));
+        assertThat(Money.of(new Decimal128(new BigDecimal("12.5")))).isEqualTo(Money.ofMinor(1_250));
+    }
+
+    @Test
+    void roundsStoredDecimal128WithMoreDecimals() {
+        assertThat(Money.of(new Decimal128(new BigDecimal("9876.545")))).isEqualTo(Money.ofMinor(987_654));
+        assertThat(Money.of(new Decimal128(new BigDecimal("9876.555")))).isEqualTo(Money.ofMinor(987_656));
+        assertThat(Money.of(new Decimal128(new BigDecimal("-0.125")))).isEqualTo(Money.ofMinor(-12));
+    }
+
+    @Test
+    void rejectsMoreDecimalsThanTheCurrencyAllows() {
+        assertThat(Money.of(new BigDecimal("10.500"))).isEqualTo(Money.ofMinor(1_050));
+        assertThatThrownBy(() -> Money.of(new BigDecimal("10.505")))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("decimal places");
+    }
+
+    @Test
+    void formatsAsPlainDecimal() {
+        assertThat(Money.ofMinor(5)).hasToString("0.05");
+        assertThat(Money.ofMinor(-123_405)).hasToString("-1234.05");
+        assertThat(Money.ofMinor(Long.MIN_VALUE)).hasToString(BigDecimal.valueOf(Long.MIN_VALUE, 2).toPlainString());
+    }
+
+    @Test
+    void serializesAsJsonNumber() throws Exception {
+        assertThat(objectMapper.writeValueAsString(Money.ofMinor(987_654))).isEqualTo("9876.54");
+        assertThat(objectMapper.readValue("9876.54", Money.class)).isEqualTo(Money.ofMinor(987_654));
+        assertThat(objectMapper.readValue("\"250\"", Money.class)).isEqualTo(Money.ofMinor(25_000));
+    }
+}
@@ -0,0 +1,212 @@
+package com.nttdata.bankapp.mscreditservice.repository;
+
+import com.mongodb.event.CommandListener;
+import com.mongodb.event.CommandStartedEvent;
+import com.nttdata.bankapp.mscreditservice.config.MongoConfig;
+import com.nttdata.bankapp.mscreditservice.model.Credit;
+import com.nttdata.bankapp.mscreditservice.model.Money;
+import com.nttdata.bankapp.mscreditservice.model.enums.CreditStatus;
+import com.nttdata.bankapp.mscreditservice.model.enums.CreditType;
+import com.nttdata.bankapp.mscreditservice.model.enums.CustomerType;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.mongo.MongoClientSettingsBuilderCustomizer;
+import org.springframework.boot.test.autoconfigure.data.mongo.DataMongoTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.index.MongoPersistentEntityIndexResolver;
+import org.springframework.data.mongodb.core.index.ReactiveIndexOperations;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.MongoDBContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.utility.DockerImageName;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Verifica con explain() que cada consulta del repositorio usa un índice y no recorre la colección.
+ * Requiere Docker; sin Docker la prueba se omite.
+ */
+@DataMongoTest(properties = "spring.cloud.config.enabled=false")
+@Import(MongoConfig.class)
+@Testcontainers(disabledWithoutDocker = true)
+class CreditRepositoryIndexTest {
+
+    private static final Set<String> INDEX_STAGES = Set.of("IXSCAN", "COUNT_SCAN", "DISTINCT_SCAN", "IDHACK");
+    private static final Set<String> QUERY_COMMANDS = Set.of("find", "count", "aggregate", "distinct");
+
+    @Container
+    static final MongoDBContainer MONGO = new MongoDBContainer(DockerImageName.parse("mongo:6.0"));
+
+    private static final AtomicReference<Document> LAST_QUERY = new AtomicReference<>();
+
+    @DynamicPropertySource
+    static void mongoProperties(DynamicPropertyRegistry registry) {
+        // application.properties define host/port: se sobrescriben en lugar de usar uri, que no puede combinarse con ellos
+        registry.add("spring.data.mongodb.host", MONGO::getHost);
+        registry.add("spring.data.mongodb.port", MONGO::getFirstMappedPort);
+    }
+
+    @TestConfiguration
+    static class QueryCaptureConfig {
+        // Guarda la última consulta enviada a la colección para poder ejecutar su explain()
+        @Bean
+        MongoClientSettingsBuilderCustomizer queryCapture() {
+            return builder -> builder.addCommandListener(new CommandListener() {
+                @Override
+                public void commandStarted(CommandStartedEvent event) {
+                    if (QUERY_COMMANDS.contains(event.getCommandName())
+                            && "credits".equals(event.getCommand().getString(event.getCommandName()).getValue())) {
+                        LAST_QUERY.set(Document.parse(event.getCommand().toJson()));
+                    }
+                }
+            });
+        }
+    }
+
+    @Autowired
+    private CreditRepository creditRepository;
+
+    @Autowired
+    private ReactiveMongoTemplate mongoTemplate;
+
+    @Autowired
+    private MongoMappingContext mappingContext;
+
+    @BeforeEach
+    void setUp() {
+        creditRepository.deleteAll().block();
+        ReactiveIndexOperations indexOps = mongoTemplate.indexOps(Credit.class);
+        new MongoPersistentEntityIndexResolver(mappingContext).resolveIndexFor(Credit.class)
+                .forEach(index -> indexOps.ensureIndex(index).block());
+
+        List<Credit> credits = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            credits.add(Credit.builder()
+                    .creditNumber("CR-" + i)
+                    .customerId("customer-" + (i % 10))
+                    .customerType(i % 2 == 0 ? CustomerType.PERSONAL : CustomerType.BUSINESS)
+                    .type(i % 2 == 0 ? CreditType.PERSONAL : CreditType.BUSINESS)
+                    .amount(Money.ofMinor(100_000))
+                    .remainingAmount(Money.ofMinor(100_000))
+                    .interestRate(BigDecimal.TEN)
+                    .term(12)
+                    .status(CreditStatus.ACTIVE)
+                    .build());
+        }
+        creditRepository.saveAll(credits).blockLast();
+    }
+
+    @Test
+    void findByCustomerIdUsesIndex() {
+        creditRepository.findByCustomerId("customer-1").collectList().block();
+        assertLastQueryUsesIndex();
+    }
+
+    @Test
+    void findByCreditNumberUsesIndex() {
+        creditRepository.findByCreditNumber("CR-1").block();
+        assertLastQueryUsesIndex();
+    }
+
+    @Test
+    void findByCustomerIdAndTypeUsesIndex() {
+        creditRepository.findByCustomerIdAndType("customer-2", CreditType.PERSONAL).collectList().block();
+        assertLastQueryUsesIndex();
+    }
+
+    @Test
+    void findByCustomerIdAndCustomerTypeUsesIndex() {
+        creditRepository.findByCustomerIdAndCustomerType("customer-3", CustomerType.BUSINESS).collectList().block();
+        assertLastQueryUsesIndex();
+    }
+
+    @Test
+    void countByCustomerIdAndTypeUsesIndex() {
+        creditRepository.countByCustomerIdAndType("customer-4", CreditType.PERSONAL).block();
+        assertLastQueryUsesIndex();
+    }
+
+    @Test
+    void findBalanceByIdUsesIdLookup() {
+        String id = creditRepository.findByCreditNumber("CR-5").map(Credit::getId).block();
+        CreditBalanceView balance = creditRepository.findBalanceById(id).block();
+
+        assertThat(balance).isNotNull();
+        assertThat(balance.getCreditNumber()).isEqualTo("CR-5");
+        assertThat(balance.getRemainingAmount()).isEqualTo(Money.ofMinor(100_000));
+        assertThat(LAST_QUERY.get().get("projection", Document.class).keySet())
+                .containsExactlyInAnyOrder("_id", "creditNumber", "amount", "remainingAmount");
+        assertLastQueryUsesIndex();
+    }
+
+    @Test
+    void summarizeByCustomerUsesIndex() {
+        List<CreditSummaryRow> rows = creditRepository.summarizeByCustomer("customer-2").collectList().block();
+
+        assertThat(rows).hasSize(1);
+        assertThat(rows.get(0).getCount()).isEqualTo(5);
+        assertThat(rows.get(0).getAmount()).isEqualByComparingTo("5000");
+        assertLastQueryUsesIndex();
+    }
+
+    @Test
+    void findCustomerIdsWithCreditTypeUsesIndex() {
+        creditRepository.findCustomerIdsWithCreditType(List.of("customer-1", "customer-2"), CreditType.PERSONAL)
+                .collectList().block();
+        assertLastQueryUsesIndex();
+    }
+
+    private void assertLastQueryUsesIndex() {
+        Document query = LAST_QUERY.get();
+        assertThat(query).as("captured query").isNotNull();
+
+        // Se quitan los campos de sesión y de protocolo agregados por el driver
+        Document command = new Document();
+        query.forEach((key, value) -> {
+            if (!key.startsWith("$") && !"lsid".equals(key)) {
+                command.put(key, value);
+            }
+        });
+        Document explain = mongoTemplate.executeCommand(new Document("explain", command)
+                .append("verbosity", "queryPlanner")).block();
+
+        List<String> stages = new ArrayList<>();
+        collectWinningPlanStages(explain, false, stages);
+        assertThat(stages).as("winning plan stages for %s", command.toJson())
+                .isNotEmpty()
+                .doesNotContain("COLLSCAN")
+                .anyMatch(INDEX_STAGES::contains);
+    }
+
+    private void collectWinningPlanStages(Object node, boolean inWinningPlan, List<String> stages) {
+        if (node instanceof Map) {
+            ((Map<?, ?>) node).forEach((key, value) -> {
+                if ("rejectedPlans".equals(key)) {
+                    return;
+                }
+                boolean winning = inWinningPlan || "winningPlan".equals(key);
+                if (winning && "stage".equals(key)) {
+                    stages.add(String.valueOf(value));
+                }
+                collectWinningPlanStages(value, winning, stages);
+            });
+        } else if (node instanceof List) {
+            ((List<?>) node).forEach(item -> collectWinningPlanStages(item, inWinningPlan, stages));
+        }
+    }
+}
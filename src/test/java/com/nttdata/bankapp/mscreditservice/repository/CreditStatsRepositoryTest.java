@@ -0,0 +1,158 @@
+package com.nttdata.bankapp.mscreditservice.repository;
+
+import com.nttdata.bankapp.mscreditservice.config.MongoConfig;
+import com.nttdata.bankapp.mscreditservice.model.Credit;
+import com.nttdata.bankapp.mscreditservice.model.CreditStats;
+import com.nttdata.bankapp.mscreditservice.model.Money;
+import com.nttdata.bankapp.mscreditservice.model.enums.CreditStatus;
+import com.nttdata.bankapp.mscreditservice.model.enums.CreditType;
+import com.nttdata.bankapp.mscreditservice.model.enums.CustomerProfile;
+import com.nttdata.bankapp.mscreditservice.model.enums.CustomerType;
+import com.nttdata.bankapp.mscreditservice.service.support.CreditStatsRecorder;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.data.mongo.DataMongoTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.MongoDBContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.utility.DockerImageName;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Verifica que la reconstrucción genera las mismas claves que CreditStats.keyOf, de modo que los incrementos
+ * posteriores actualizan esos documentos en lugar de crear otros, y que corrige los desvíos con $inc.
+ * Requiere Docker; sin Docker la prueba se omite.
+ */
+@DataMongoTest(properties = "spring.cloud.config.enabled=false")
+@Import(MongoConfig.class)
+@Testcontainers(disabledWithoutDocker = true)
+class CreditStatsRepositoryTest {
+
+    @Container
+    static final MongoDBContainer MONGO = new MongoDBContainer(DockerImageName.parse("mongo:6.0"));
+
+    @DynamicPropertySource
+    static void mongoProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.data.mongodb.host", MONGO::getHost);
+        registry.add("spring.data.mongodb.port", MONGO::getFirstMappedPort);
+    }
+
+    @Autowired
+    private CreditRepository creditRepository;
+
+    @Autowired
+    private CreditStatsRepository creditStatsRepository;
+
+    private CreditStatsRecorder recorder;
+
+    @BeforeEach
+    void setUp() {
+        creditRepository.deleteAll().block();
+        creditStatsRepository.deleteAll().block();
+        recorder = new CreditStatsRecorder(creditStatsRepository, new SimpleMeterRegistry());
+    }
+
+    @Test
+    void rebuildUsesTheSameKeysAsIncrements() {
+        Credit active = creditRepository.save(credit("CR-1", CustomerProfile.VIP, CreditStatus.ACTIVE, 100_000)).block();
+        creditRepository.save(credit("CR-2", CustomerProfile.VIP, CreditStatus.ACTIVE, 50_000)).block();
+        // Sin perfil de cliente: la dimensión se guarda como "-"
+        creditRepository.save(credit("CR-3", null, CreditStatus.ACTIVE, 30_000)).block();
+
+        creditStatsRepository.rebuild().block();
+
+        String activeKey = CreditStats.keyOf(CreditType.PERSONAL, CustomerType.PERSONAL, CustomerProfile.VIP,
+                CreditStatus.ACTIVE);
+        String noProfileKey = CreditStats.keyOf(CreditType.PERSONAL, CustomerType.PERSONAL, null, CreditStatus.ACTIVE);
+        Map<String, CreditStats> rebuilt = stats();
+        assertThat(rebuilt).containsOnlyKeys(activeKey, noProfileKey);
+        assertThat(noProfileKey).isEqualTo("PERSONAL|PERSONAL|-|ACTIVE");
+        assertThat(rebuilt.get(activeKey).getCount()).isEqualTo(2);
+        assertThat(rebuilt.get(activeKey).getTotalAmount()).isEqualByComparingTo("1500.00");
+        assertThat(rebuilt.get(activeKey).getCustomerProfile()).isEqualTo(CustomerProfile.VIP);
+        assertThat(rebuilt.get(noProfileKey).getCustomerProfile()).isNull();
+
+        // Pago total de un crédito y alta de otro sin perfil, después de la reconstrucción
+        Credit paid = active.toBuilder().remainingAmount(Money.zero()).status(CreditStatus.PAID).build();
+        recorder.record(active, paid).block();
+        recorder.record(null, credit("CR-4", null, CreditStatus.ACTIVE, 20_000)).block();
+
+        String paidKey = CreditStats.keyOf(CreditType.PERSONAL, CustomerType.PERSONAL, CustomerProfile.VIP,
+                CreditStatus.PAID);
+        Map<String, CreditStats> updated = stats();
+        assertThat(updated).containsOnlyKeys(activeKey, noProfileKey, paidKey);
+        assertThat(updated.get(activeKey).getCount()).isEqualTo(1);
+        assertThat(updated.get(activeKey).getRemainingAmount()).isEqualByComparingTo("500.00");
+        assertThat(updated.get(paidKey).getCount()).isEqualTo(1);
+        assertThat(updated.get(paidKey).getTotalAmount()).isEqualByComparingTo("1000.00");
+        assertThat(updated.get(paidKey).getStatus()).isEqualTo(CreditStatus.PAID);
+        assertThat(updated.get(noProfileKey).getCount()).isEqualTo(2);
+        assertThat(updated.get(noProfileKey).getRemainingAmount()).isEqualByComparingTo("500.00");
+    }
+
+    @Test
+    void rebuildCorrectsDriftWithoutDroppingTheCollection() {
+        creditRepository.save(credit("CR-1", CustomerProfile.VIP, CreditStatus.ACTIVE, 100_000)).block();
+        String activeKey = CreditStats.keyOf(CreditType.PERSONAL, CustomerType.PERSONAL, CustomerProfile.VIP,
+                CreditStatus.ACTIVE);
+        String staleKey = CreditStats.keyOf(CreditType.PERSONAL, CustomerType.PERSONAL, CustomerProfile.VIP,
+                CreditStatus.PAID);
+        // Desvíos: el alta de CR-1 no se registró y hay una clave sin créditos
+        creditStatsRepository.increment(List.of(delta(staleKey, CreditStatus.PAID, 1, "300.00"))).block();
+
+        creditStatsRepository.rebuild().block();
+        creditStatsRepository.rebuild().block();
+
+        Map<String, CreditStats> rebuilt = stats();
+        assertThat(rebuilt).containsOnlyKeys(activeKey);
+        assertThat(rebuilt.get(activeKey).getCount()).isEqualTo(1);
+        assertThat(rebuilt.get(activeKey).getTotalAmount()).isEqualByComparingTo("1000.00");
+        assertThat(rebuilt.get(activeKey).getRemainingAmount()).isEqualByComparingTo("1000.00");
+    }
+
+    private static CreditStats delta(String key, CreditStatus status, long count, String amount) {
+        return CreditStats.builder()
+                .id(key)
+                .type(CreditType.PERSONAL)
+                .customerType(CustomerType.PERSONAL)
+                .customerProfile(CustomerProfile.VIP)
+                .status(status)
+                .count(count)
+                .totalAmount(new BigDecimal(amount))
+                .remainingAmount(new BigDecimal(amount))
+                .build();
+    }
+
+    private Map<String, CreditStats> stats() {
+        return creditStatsRepository.findAll()
+                .collect(Collectors.toMap(CreditStats::getId, Function.identity()))
+                .block();
+    }
+
+    private static Credit credit(String creditNumber, CustomerProfile profile, CreditStatus status, long amountMinor) {
+        return Credit.builder()
+                .creditNumber(creditNumber)
+                .customerId("customer-" + creditNumber)
+                .customerType(CustomerType.PERSONAL)
+                .customerProfile(profile)
+                .type(CreditType.PERSONAL)
+                .amount(Money.ofMinor(amountMinor))
+                .remainingAmount(Money.ofMinor(amountMinor))
+                .interestRate(BigDecimal.TEN)
+                .term(12)
+                .status(status)
+                .build();
+    }
+}
@@ -0,0 +1,58 @@
+package com.nttdata.bankapp.mscreditservice.scheduler;
+
+import com.nttdata.bankapp.mscreditservice.repository.CreditStatsRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class CreditStatsRebuildSchedulerTest {
+
+    private CreditStatsRepository creditStatsRepository;
+    private SchedulerLock schedulerLock;
+    private CreditStatsRebuildScheduler scheduler;
+
+    @BeforeEach
+    void setUp() {
+        creditStatsRepository = mock(CreditStatsRepository.class);
+        schedulerLock = mock(SchedulerLock.class);
+        when(schedulerLock.release(CreditStatsRebuildScheduler.LOCK_NAME)).thenReturn(Mono.empty());
+        scheduler = new CreditStatsRebuildScheduler(creditStatsRepository, schedulerLock,
+                new SimpleMeterRegistry(), Duration.ofMinutes(10));
+    }
+
+    @Test
+    void skipsTheRebuildWhileAnotherInstanceHoldsTheLock() {
+        when(schedulerLock.tryAcquire(eq(CreditStatsRebuildScheduler.LOCK_NAME), any())).thenReturn(Mono.just(false));
+
+        scheduler.rebuild();
+
+        verify(creditStatsRepository, never()).rebuild();
+        verify(schedulerLock, never()).release(any());
+    }
+
+    @Test
+    void releasesTheLockWhenTheRebuildFails() {
+        when(schedulerLock.tryAcquire(eq(CreditStatsRebuildScheduler.LOCK_NAME), any())).thenReturn(Mono.just(true));
+        when(creditStatsRepository.rebuild()).thenReturn(Mono.error(new IllegalStateException("snapshot too old")));
+
+        scheduler.rebuild();
+
+        verify(schedulerLock).release(CreditStatsRebuildScheduler.LOCK_NAME);
+
+        // El fallo no deja la instancia marcada como ocupada
+        when(creditStatsRepository.rebuild()).thenReturn(Mono.empty());
+        scheduler.rebuild();
+        verify(creditStatsRepository, times(2)).rebuild();
+    }
+}
@@ -0,0 +1,321 @@
+package com.nttdata.bankapp.mscreditservice.service.impl;
+
+import com.nttdata.bankapp.mscreditservice.client.CustomerService;
+import com.nttdata.bankapp.mscreditservice.dto.CreditBatchResultDto;
+import com.nttdata.bankapp.mscreditservice.dto.CreditDto;
+import com.nttdata.bankapp.mscreditservice.dto.CreditStatsDto;
+import com.nttdata.bankapp.mscreditservice.model.Credit;
+import com.nttdata.bankapp.mscreditservice.model.CreditStats;
+import com.nttdata.bankapp.mscreditservice.model.Money;
+import com.nttdata.bankapp.mscreditservice.model.enums.CreditStatus;
+import com.nttdata.bankapp.mscreditservice.model.enums.CreditType;
+import com.nttdata.bankapp.mscreditservice.model.enums.CustomerProfile;
+import com.nttdata.bankapp.mscreditservice.model.enums.CustomerType;
+import com.nttdata.bankapp.mscreditservice.repository.CreditPaymentRepository;
+import com.nttdata.bankapp.mscreditservice.repository.CreditRepository;
+import com.nttdata.bankapp.mscreditservice.repository.CreditStatsRepository;
+import com.nttdata.bankapp.mscreditservice.service.support.AmortizationCalculator;
+import com.nttdata.bankapp.mscreditservice.service.support.CreditLedger;
+import com.nttdata.bankapp.mscreditservice.service.support.CreditNumberGenerator;
+import com.nttdata.bankapp.mscreditservice.service.support.CreditReadModel;
+import com.nttdata.bankapp.mscreditservice.service.support.CreditStatsRecorder;
+import com.nttdata.bankapp.mscreditservice.service.support.OptimisticLockRetry;
+import com.nttdata.bankapp.mscreditservice.service.support.ServiceMetrics;
+import com.mongodb.client.model.changestream.OperationType;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.mongodb.core.ChangeStreamEvent;
+import org.springframework.data.mongodb.core.ChangeStreamOptions;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import javax.validation.Validator;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Estadísticas de la cartera desde el servicio: variaciones registradas por un pago y totales por dimensión.
+ * Lecturas después de escribir y resultados por elemento de la creación masiva.
+ */
+class CreditServiceImplTest {
+
+    private final List<CreditStats> increments = new ArrayList<>();
+    private CreditRepository creditRepository;
+    private CreditStatsRepository creditStatsRepository;
+    private CreditLedger creditLedger;
+    private CustomerService customerService;
+    private Validator validator;
+    private SimpleMeterRegistry meterRegistry;
+    private CreditServiceImpl service;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        creditRepository = mock(CreditRepository.class);
+        creditStatsRepository = mock(CreditStatsRepository.class);
+        when(creditStatsRepository.increment(anyCollection())).thenAnswer(invocation -> {
+            increments.addAll(invocation.<Collection<CreditStats>>getArgument(0));
+            return Mono.empty();
+        });
+        creditLedger = mock(CreditLedger.class);
+        when(creditLedger.append(any(Credit.class), any(Money.class))).thenReturn(Mono.empty());
+        when(creditLedger.adjust(any(Credit.class), any(Money.class))).thenReturn(Mono.empty());
+        customerService = mock(CustomerService.class);
+        validator = mock(Validator.class);
+        when(validator.validate(any(CreditDto.class))).thenReturn(Set.of());
+
+        service = service(new CreditReadModel(creditRepository, null, meterRegistry, false, 1000));
+        ReflectionTestUtils.setField(service, "batchChunkSize", 500);
+    }
+
+    private CreditServiceImpl service(CreditReadModel creditReadModel) {
+        return new CreditServiceImpl(
+                creditRepository,
+                creditReadModel,
+                creditStatsRepository,
+                new CreditStatsRecorder(creditStatsRepository, meterRegistry),
+                mock(CreditPaymentRepository.class),
+                creditLedger,
+                customerService,
+                new OptimisticLockRetry(meterRegistry, 5, Duration.ofMillis(1), Duration.ofMillis(5)),
+                mock(CreditNumberGenerator.class),
+                new ServiceMetrics(meterRegistry),
+                new AmortizationCalculator(100, meterRegistry),
+                validator);
+    }
+
+    @Test
+    void payingOffRecordsTheCreditBeforeAndAfterThePayment() {
+        Credit before = credit(CustomerProfile.REGULAR, CreditStatus.ACTIVE, 100_000, 25_000).toBuilder()
+                .id("credit-1")
+                .version(4L)
+                .build();
+        when(creditRepository.applyPayment("credit-1", Money.ofMinor(25_000))).thenReturn(Mono.just(before));
+
+        assertThat(service.makePayment("credit-1", new BigDecimal("250")).block().getRemainingAmount())
+                .isEqualByComparingTo("0");
+
+        Map<String, CreditStats> deltas = increments.stream()
+                .collect(Collectors.toMap(CreditStats::getId, Function.identity()));
+        CreditStats active = deltas.get("PERSONAL|PERSONAL|REGULAR|ACTIVE");
+        CreditStats paid = deltas.get("PERSONAL|PERSONAL|REGULAR|PAID");
+        assertThat(deltas).hasSize(2);
+        assertThat(active.getCount()).isEqualTo(-1);
+        assertThat(active.getRemainingAmount()).isEqualByComparingTo("-250");
+        assertThat(paid.getCount()).isEqualTo(1);
+        assertThat(paid.getTotalAmount()).isEqualByComparingTo("1000");
+        assertThat(paid.getRemainingAmount()).isEqualByComparingTo("0");
+
+        // El libro recibe el crédito como quedó en MongoDB: saldo, estado y versión siguiente
+        ArgumentCaptor<Credit> after = ArgumentCaptor.forClass(Credit.class);
+        verify(creditLedger).append(after.capture(), eq(Money.ofMinor(25_000)));
+        assertThat(after.getValue().getStatus()).isEqualTo(CreditStatus.PAID);
+        assertThat(after.getValue().getRemainingAmount()).isEqualTo(Money.zero());
+        assertThat(after.getValue().getVersion()).isEqualTo(5L);
+    }
+
+    @Test
+    void clientDisconnectDoesNotLoseTheLedgerEntry() {
+        Credit before = credit(CustomerProfile.REGULAR, CreditStatus.ACTIVE, 100_000, 60_000).toBuilder()
+                .id("credit-1")
+                .version(4L)
+                .build();
+        Sinks.One<Credit> applied = Sinks.one();
+        when(creditRepository.applyPayment("credit-1", Money.ofMinor(25_000))).thenReturn(applied.asMono());
+
+        // El cliente se desconecta mientras MongoDB aplica el pago
+        service.makePayment("credit-1", new BigDecimal("250")).subscribe().dispose();
+        applied.tryEmitValue(before);
+
+        verify(creditLedger).append(any(Credit.class), eq(Money.ofMinor(25_000)));
+        assertThat(increments).isNotEmpty();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void balanceReadRightAfterAPaymentSeesThePayment() {
+        // Modelo de lectura activo: el change stream ya entregó un evento y no vuelve a entregar nada
+        ChangeStreamEvent<Credit> event = mock(ChangeStreamEvent.class);
+        when(event.getOperationType()).thenReturn(OperationType.UPDATE);
+        ReactiveMongoTemplate mongoTemplate = mock(ReactiveMongoTemplate.class);
+        when(mongoTemplate.changeStream(eq("credits"), any(ChangeStreamOptions.class), eq(Credit.class)))
+                .thenReturn(Flux.just(event).concatWith(Flux.never()));
+        CreditReadModel readModel = new CreditReadModel(creditRepository, mongoTemplate, meterRegistry, true, 1000);
+        readModel.start();
+        CreditServiceImpl liveService = service(readModel);
+
+        Credit before = credit(CustomerProfile.REGULAR, CreditStatus.ACTIVE, 100_000, 60_000).toBuilder()
+                .id("credit-1")
+                .version(4L)
+                .build();
+        when(creditRepository.findById("credit-1")).thenReturn(Mono.just(before));
+        when(creditRepository.applyPayment("credit-1", Money.ofMinor(25_000))).thenReturn(Mono.just(before));
+        try {
+            // La primera lectura deja el crédito en memoria
+            assertThat(liveService.getBalance("credit-1").block().getRemainingAmount()).isEqualTo(Money.ofMinor(60_000));
+
+            liveService.makePayment("credit-1", new BigDecimal("250")).block();
+
+            assertThat(liveService.getBalance("credit-1").block().getRemainingAmount()).isEqualTo(Money.ofMinor(35_000));
+            assertThat(liveService.findById("credit-1").block().getRemainingAmount()).isEqualByComparingTo("350");
+            verify(creditRepository, times(1)).findById("credit-1");
+        } finally {
+            readModel.stop();
+        }
+    }
+
+    @Test
+    void secondPersonalCreditOfTheBatchIsCreatedWhenTheFirstInsertFails() {
+        when(customerService.customersExist(anyCollection())).thenReturn(Mono.just(Map.of("customer-1", true)));
+        when(creditRepository.findCustomerIdsWithCreditType(anyCollection(), eq(CreditType.PERSONAL)))
+                .thenReturn(Flux.empty());
+        List<Integer> insertSizes = new ArrayList<>();
+        when(creditRepository.insertAllUnordered(anyList())).thenAnswer(invocation -> {
+            List<Credit> credits = invocation.getArgument(0);
+            credits.forEach(credit -> credit.setId("credit-" + insertSizes.size()));
+            insertSizes.add(credits.size());
+            // El primer insert falla por documento; el segundo se confirma
+            return Mono.just(insertSizes.size() == 1 ? Map.of(0, "E11000 duplicate key") : Map.of());
+        });
+
+        List<CreditBatchResultDto> results = service.saveAll(Flux.just(personalDto(), personalDto(), personalDto()))
+                .collectList()
+                .block();
+
+        assertThat(results).extracting(CreditBatchResultDto::getStatus).containsExactly(
+                CreditBatchResultDto.Status.REJECTED,
+                CreditBatchResultDto.Status.CREATED,
+                CreditBatchResultDto.Status.REJECTED);
+        assertThat(results.get(2).getError()).isEqualTo("Personal customers can only have one personal credit");
+        // Un crédito personal del cliente por insert, hasta que uno se confirma
+        assertThat(insertSizes).containsExactly(1, 1);
+    }
+
+    @Test
+    void insertFailureWithoutPerDocumentErrorsLeavesTheOutcomeUnknown() {
+        when(customerService.customersExist(anyCollection())).thenReturn(Mono.just(Map.of("customer-1", true)));
+        when(creditRepository.findCustomerIdsWithCreditType(anyCollection(), eq(CreditType.PERSONAL)))
+                .thenReturn(Flux.empty());
+        when(creditRepository.insertAllUnordered(anyList()))
+                .thenReturn(Mono.error(new IllegalStateException("Timed out waiting for the write")));
+        CreditDto business = personalDto();
+        business.setCustomerType(CustomerType.BUSINESS);
+        business.setType(CreditType.BUSINESS);
+
+        List<CreditBatchResultDto> results = service.saveAll(Flux.just(business, personalDto(), personalDto()))
+                .collectList()
+                .block();
+
+        // Los enviados pueden haberse escrito; el que esperaba su turno seguro no
+        assertThat(results).extracting(CreditBatchResultDto::getStatus).containsExactly(
+                CreditBatchResultDto.Status.UNKNOWN,
+                CreditBatchResultDto.Status.UNKNOWN,
+                CreditBatchResultDto.Status.REJECTED);
+        assertThat(results).extracting(CreditBatchResultDto::getIndex).containsExactly(0L, 1L, 2L);
+    }
+
+    @Test
+    void statsAreSummedPerDimension() {
+        when(creditStatsRepository.findAll()).thenReturn(Flux.just(
+                stats(CreditType.PERSONAL, CustomerType.PERSONAL, CustomerProfile.VIP, CreditStatus.ACTIVE, 2, "3000", "2000"),
+                stats(CreditType.PERSONAL, CustomerType.PERSONAL, null, CreditStatus.PAID, 1, "1000", "0"),
+                stats(CreditType.BUSINESS, CustomerType.BUSINESS, CustomerProfile.PYME, CreditStatus.ACTIVE, 3, "9000", "4500")));
+
+        CreditStatsDto dto = service.getStats().block();
+
+        assertTotals(dto.getTotal(), 6, "13000", "6500");
+        assertThat(dto.getByCreditType()).containsOnlyKeys("PERSONAL", "BUSINESS");
+        assertTotals(dto.getByCreditType().get("PERSONAL"), 3, "4000", "2000");
+        assertTotals(dto.getByStatus().get("ACTIVE"), 5, "12000", "6500");
+        assertTotals(dto.getByStatus().get("PAID"), 1, "1000", "0");
+        // Sin perfil de cliente se agrupa en UNKNOWN
+        assertThat(dto.getByCustomerProfile()).containsOnlyKeys("VIP", "PYME", "UNKNOWN");
+        assertTotals(dto.getByCustomerProfile().get("UNKNOWN"), 1, "1000", "0");
+        assertTotals(dto.getByCustomerType().get("BUSINESS"), 3, "9000", "4500");
+    }
+
+    @Test
+    void emptyPortfolioHasZeroTotals() {
+        when(creditStatsRepository.findAll()).thenReturn(Flux.empty());
+
+        CreditStatsDto dto = service.getStats().block();
+
+        assertTotals(dto.getTotal(), 0, "0", "0");
+        assertThat(dto.getByStatus()).isEmpty();
+    }
+
+    @Test
+    void findAllRejectsACursorThatIsNotAnObjectId() {
+        assertThatThrownBy(() -> service.findAll("CR-1", 10).blockLast())
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("CR-1");
+        verify(creditRepository, never()).findByIdGreaterThanOrderByIdAsc(any(), any());
+    }
+
+    private static void assertTotals(CreditStatsDto.Totals totals, long count, String totalAmount, String remainingAmount) {
+        assertThat(totals.getCount()).isEqualTo(count);
+        assertThat(totals.getTotalAmount()).isEqualByComparingTo(totalAmount);
+        assertThat(totals.getRemainingAmount()).isEqualByComparingTo(remainingAmount);
+    }
+
+    private static CreditStats stats(CreditType type, CustomerType customerType, CustomerProfile profile,
+                                     CreditStatus status, long count, String totalAmount, String remainingAmount) {
+        return CreditStats.builder()
+                .id(CreditStats.keyOf(type, customerType, profile, status))
+                .type(type)
+                .customerType(customerType)
+                .customerProfile(profile)
+                .status(status)
+                .count(count)
+                .totalAmount(new BigDecimal(totalAmount))
+                .remainingAmount(new BigDecimal(remainingAmount))
+                .build();
+    }
+
+    private static CreditDto personalDto() {
+        return CreditDto.builder()
+                .customerId("customer-1")
+                .customerType(CustomerType.PERSONAL)
+                .type(CreditType.PERSONAL)
+                .amount(new BigDecimal("1000"))
+                .interestRate(new BigDecimal("0.12"))
+                .term(12)
+                .build();
+    }
+
+    private static Credit credit(CustomerProfile profile, CreditStatus status, long amountMinor, long remainingMinor) {
+        return Credit.builder()
+                .customerId("customer-1")
+                .customerType(CustomerType.PERSONAL)
+                .customerProfile(profile)
+                .type(CreditType.PERSONAL)
+                .amount(Money.ofMinor(amountMinor))
+                .remainingAmount(Money.ofMinor(remainingMinor))
+                .status(status)
+                .build();
+    }
+}
@@ -0,0 +1,72 @@
+package com.nttdata.bankapp.mscreditservice.service.support;
+
+import com.nttdata.bankapp.mscreditservice.model.Money;
+import com.nttdata.bankapp.mscreditservice.model.enums.AmortizationScheme;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class AmortizationCalculatorTest {
+
+    private final AmortizationCalculator calculator = new AmortizationCalculator(100, new SimpleMeterRegistry());
+
+    @Test
+    void frenchScheduleHasConstantInstallmentAndClosesTheBalance() {
+        AmortizationSchedule schedule = calculator.schedule(
+                Money.ofMinor(1_000_000), new BigDecimal("12"), 12, AmortizationScheme.FRENCH);
+
+        assertThat(schedule.size()).isEqualTo(12);
+        assertThat(schedule.paymentCents(0)).isEqualTo(88_849);
+        assertThat(schedule.interestCents(0)).isEqualTo(10_000);
+        IntStream.range(0, 11).forEach(i -> assertThat(schedule.paymentCents(i)).isEqualTo(88_849));
+        assertThat(schedule.balanceCents(11)).isZero();
+        assertThat(principalSum(schedule)).isEqualTo(1_000_000);
+    }
+
+    @Test
+    void flatScheduleChargesInterestOnTheOriginalAmount() {
+        AmortizationSchedule schedule = calculator.schedule(
+                Money.ofMinor(100_000), new BigDecimal("12"), 3, AmortizationScheme.FLAT);
+
+        IntStream.range(0, 3).forEach(i -> assertThat(schedule.interestCents(i)).isEqualTo(1_000));
+        assertThat(schedule.principalCents(0)).isEqualTo(33_333);
+        assertThat(schedule.principalCents(2)).isEqualTo(33_334);
+        assertThat(schedule.balanceCents(2)).isZero();
+    }
+
+    @Test
+    void zeroRateSplitsThePrincipal() {
+        AmortizationSchedule schedule = calculator.schedule(
+                Money.ofMinor(10_000), BigDecimal.ZERO, 3, AmortizationScheme.FRENCH);
+
+        assertThat(principalSum(schedule)).isEqualTo(10_000);
+        IntStream.range(0, 3).forEach(i -> assertThat(schedule.interestCents(i)).isZero());
+        assertThat(schedule.balanceCents(2)).isZero();
+    }
+
+    @Test
+    void equivalentRatesShareTheCachedTable() {
+        AmortizationSchedule first = calculator.schedule(
+                Money.ofMinor(500_000), new BigDecimal("12.5"), 24, AmortizationScheme.FRENCH);
+        AmortizationSchedule second = calculator.schedule(
+                Money.ofMinor(500_000), new BigDecimal("12.50"), 24, AmortizationScheme.FRENCH);
+
+        assertThat(second).isSameAs(first);
+    }
+
+    @Test
+    void rejectsInvalidTerm() {
+        assertThatThrownBy(() -> calculator.schedule(
+                Money.ofMinor(500_000), new BigDecimal("12"), 0, AmortizationScheme.FRENCH))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static long principalSum(AmortizationSchedule schedule) {
+        return IntStream.range(0, schedule.size()).mapToLong(schedule::principalCents).sum();
+    }
+}
@@ -0,0 +1,153 @@
+package com.nttdata.bankapp.mscreditservice.service.support;
+
+import com.nttdata.bankapp.mscreditservice.model.Credit;
+import com.nttdata.bankapp.mscreditservice.model.CreditLedgerSnapshot;
+import com.nttdata.bankapp.mscreditservice.model.CreditPayment;
+import com.nttdata.bankapp.mscreditservice.model.Money;
+import com.nttdata.bankapp.mscreditservice.repository.CreditLedgerSnapshotRepository;
+import com.nttdata.bankapp.mscreditservice.repository.CreditPaymentRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.data.domain.Pageable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class CreditLedgerTest {
+
+    private static final String CREDIT_ID = "credit-1";
+
+    private final List<CreditPayment> payments = new CopyOnWriteArrayList<>();
+    private final Map<String, CreditLedgerSnapshot> snapshots = new ConcurrentHashMap<>();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private CreditPaymentRepository paymentRepository;
+    private CreditLedger ledger;
+
+    @BeforeEach
+    void setUp() {
+        paymentRepository = mock(CreditPaymentRepository.class);
+        when(paymentRepository.insert(any(CreditPayment.class))).thenAnswer(invocation -> {
+            CreditPayment payment = invocation.getArgument(0);
+            payments.add(payment);
+            return Mono.just(payment);
+        });
+        when(paymentRepository.findByCreditIdAndSequenceGreaterThanOrderBySequenceAsc(anyString(), anyLong(), any(Pageable.class)))
+                .thenAnswer(invocation -> Flux.fromIterable(payments.stream()
+                        .filter(p -> p.getCreditId().equals(invocation.getArgument(0)))
+                        .filter(p -> p.getSequence() > invocation.<Long>getArgument(1))
+                        .collect(Collectors.toList())));
+
+        CreditLedgerSnapshotRepository snapshotRepository = mock(CreditLedgerSnapshotRepository.class);
+        when(snapshotRepository.findById(anyString())).thenAnswer(invocation ->
+                Mono.justOrEmpty(snapshots.get(invocation.<String>getArgument(0))));
+        when(snapshotRepository.save(any(CreditLedgerSnapshot.class))).thenAnswer(invocation -> {
+            CreditLedgerSnapshot snapshot = invocation.getArgument(0);
+            snapshots.put(snapshot.getCreditId(), snapshot);
+            return Mono.just(snapshot);
+        });
+
+        ledger = new CreditLedger(paymentRepository, snapshotRepository, meterRegistry, 3);
+    }
+
+    @Test
+    void remainingAmountFoldsPaymentsFromTheFirstEntry() {
+        // El crédito ya tenía pagos antes del libro: la primera entrada fija el saldo
+        pay(1, "100.00", "700.00");
+        pay(2, "200.00", "500.00");
+
+        StepVerifier.create(ledger.remainingAmount(CREDIT_ID))
+                .expectNext(money("500.00"))
+                .verifyComplete();
+        assertThat(snapshots).isEmpty();
+    }
+
+    @Test
+    void snapshotBoundsTheNextFold() {
+        pay(0, "100.00", "900.00");
+        pay(1, "100.00", "800.00");
+        pay(2, "100.00", "700.00");
+
+        StepVerifier.create(ledger.remainingAmount(CREDIT_ID))
+                .expectNext(money("700.00"))
+                .verifyComplete();
+        assertThat(snapshots.get(CREDIT_ID).getSequence()).isEqualTo(2);
+        assertThat(snapshots.get(CREDIT_ID).getPayments()).isEqualTo(3);
+
+        // Desde el snapshot solo se suman los pagos nuevos
+        pay(3, "50.00", "650.00");
+        StepVerifier.create(ledger.remainingAmount(CREDIT_ID))
+                .expectNext(money("650.00"))
+                .verifyComplete();
+    }
+
+    @Test
+    void adjustmentKeepsTheFoldInLineWithTheCredit() {
+        pay(1, "100.00", "900.00");
+        // Una escritura que no es un pago sube el saldo a 950
+        ledger.adjust(credit(2, "950.00"), money("900.00")).block();
+        pay(3, "200.00", "750.00");
+
+        StepVerifier.create(ledger.remainingAmount(CREDIT_ID))
+                .expectNext(money("750.00"))
+                .verifyComplete();
+        assertThat(payments.get(1).getKind()).isEqualTo(CreditPayment.Kind.ADJUSTMENT);
+        assertThat(payments.get(1).getAmount()).isEqualTo(money("-50.00"));
+    }
+
+    @Test
+    void writeThatKeepsTheBalanceAddsNoEntry() {
+        ledger.adjust(credit(2, "900.00"), money("900.00")).block();
+
+        assertThat(payments).isEmpty();
+    }
+
+    @Test
+    void remainingAmountIsEmptyWithoutPayments() {
+        StepVerifier.create(ledger.remainingAmount(CREDIT_ID))
+                .verifyComplete();
+    }
+
+    @Test
+    void appendFailureIsCountedAndSwallowed() {
+        when(paymentRepository.insert(any(CreditPayment.class)))
+                .thenReturn(Mono.error(new DataAccessResourceFailureException("down")));
+
+        StepVerifier.create(ledger.append(credit(1, "900.00"), money("100.00")))
+                .verifyComplete();
+        assertThat(meterRegistry.counter("credit.ledger.append.failures").count()).isEqualTo(1.0);
+    }
+
+    private void pay(long version, String amount, String remaining) {
+        ledger.append(credit(version, remaining), money(amount)).block();
+    }
+
+    private static Credit credit(long version, String remaining) {
+        Credit credit = new Credit();
+        credit.setId(CREDIT_ID);
+        credit.setVersion(version);
+        credit.setRemainingAmount(money(remaining));
+        credit.setUpdatedAt(LocalDateTime.now());
+        return credit;
+    }
+
+    private static Money money(String amount) {
+        return Money.of(new BigDecimal(amount));
+    }
+}
@@ -0,0 +1,147 @@
+package com.nttdata.bankapp.mscreditservice.service.support;
+
+import com.nttdata.bankapp.mscreditservice.config.MongoConfig;
+import com.nttdata.bankapp.mscreditservice.model.Credit;
+import com.nttdata.bankapp.mscreditservice.model.Money;
+import com.nttdata.bankapp.mscreditservice.model.enums.CreditStatus;
+import com.nttdata.bankapp.mscreditservice.model.enums.CreditType;
+import com.nttdata.bankapp.mscreditservice.model.enums.CustomerType;
+import com.nttdata.bankapp.mscreditservice.repository.CreditRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.data.mongo.DataMongoTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.MongoDBContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.utility.DockerImageName;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Verifica que el modelo de lectura refleja escrituras hechas por fuera del servicio (como las de otra réplica).
+ * MongoDBContainer levanta un replica set de un nodo, necesario para el change stream.
+ * Requiere Docker; sin Docker la prueba se omite.
+ */
+@DataMongoTest(properties = "spring.cloud.config.enabled=false")
+@Import(MongoConfig.class)
+@Testcontainers(disabledWithoutDocker = true)
+class CreditReadModelTest {
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(10);
+
+    @Container
+    static final MongoDBContainer MONGO = new MongoDBContainer(DockerImageName.parse("mongo:6.0"));
+
+    @DynamicPropertySource
+    static void mongoProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.data.mongodb.host", MONGO::getHost);
+        registry.add("spring.data.mongodb.port", MONGO::getFirstMappedPort);
+    }
+
+    @Autowired
+    private CreditRepository creditRepository;
+
+    @Autowired
+    private ReactiveMongoTemplate mongoTemplate;
+
+    private CreditReadModel readModel;
+
+    @BeforeEach
+    void setUp() {
+        creditRepository.deleteAll().block();
+        readModel = new CreditReadModel(creditRepository, mongoTemplate, new SimpleMeterRegistry(), true, 1000);
+        readModel.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        readModel.stop();
+    }
+
+    @Test
+    void cachedCreditFollowsExternalUpdates() {
+        Credit credit = creditRepository.save(credit("CR-1", "customer-1")).block();
+        assertThat(readModel.findById(credit.getId()).block()).isNotNull();
+
+        mongoTemplate.updateFirst(Query.query(Criteria.where("id").is(credit.getId())),
+                new Update().set("remainingAmount", Money.ofMinor(40_000)).inc("version", 1), Credit.class).block();
+
+        Credit updated = await(() -> readModel.findById(credit.getId()),
+                found -> Money.ofMinor(40_000).equals(found.getRemainingAmount()));
+        assertThat(readModel.findByCreditNumber("CR-1").block().getRemainingAmount()).isEqualTo(Money.ofMinor(40_000));
+        assertThat(readModel.findBalanceById(credit.getId()).block().getRemainingAmount())
+                .isEqualTo(updated.getRemainingAmount());
+    }
+
+    @Test
+    void customerListFollowsInsertsAndDeletes() {
+        Credit first = creditRepository.save(credit("CR-1", "customer-1")).block();
+        assertThat(readModel.findByCustomerId("customer-1").collectList().block()).hasSize(1);
+
+        Credit second = creditRepository.save(credit("CR-2", "customer-1")).block();
+        await(() -> readModel.findByCustomerId("customer-1").collectList(), credits -> credits.size() == 2);
+
+        creditRepository.deleteById(first.getId()).block();
+        await(() -> readModel.findByCustomerId("customer-1").collectList(),
+                credits -> credits.size() == 1 && credits.get(0).getId().equals(second.getId()));
+        assertThat(readModel.findById(first.getId()).block()).isNull();
+    }
+
+    @Test
+    void reopensTheChangeStreamAfterTheCollectionIsDropped() throws InterruptedException {
+        Credit dropped = creditRepository.save(credit("CR-1", "customer-1")).block();
+        assertThat(readModel.findById(dropped.getId()).block()).isNotNull();
+
+        // DROP e INVALIDATE cierran el change stream sin error
+        mongoTemplate.dropCollection(Credit.class).block();
+        Credit credit = creditRepository.save(credit("CR-2", "customer-2")).block();
+        await(() -> readModel.findById(dropped.getId()).hasElement(), found -> !found);
+
+        // Antes y después de que el stream se vuelva a abrir, cada escritura externa se ve en la lectura siguiente
+        for (int i = 1; i <= 8; i++) {
+            Money remaining = Money.ofMinor(100_000 - i * 1_000L);
+            mongoTemplate.updateFirst(Query.query(Criteria.where("id").is(credit.getId())),
+                    new Update().set("remainingAmount", remaining).inc("version", 1), Credit.class).block();
+            await(() -> readModel.findById(credit.getId()), found -> remaining.equals(found.getRemainingAmount()));
+            Thread.sleep(1_000);
+        }
+    }
+
+    // Repite la lectura hasta que cumple la condición: el evento llega de forma asíncrona
+    private static <T> T await(Supplier<Mono<T>> read, Predicate<T> condition) {
+        return Mono.defer(read)
+                .filter(condition)
+                .repeatWhenEmpty(attempts -> attempts.delayElements(Duration.ofMillis(50)))
+                .block(TIMEOUT);
+    }
+
+    private static Credit credit(String creditNumber, String customerId) {
+        return Credit.builder()
+                .creditNumber(creditNumber)
+                .customerId(customerId)
+                .customerType(CustomerType.PERSONAL)
+                .type(CreditType.PERSONAL)
+                .amount(Money.ofMinor(100_000))
+                .remainingAmount(Money.ofMinor(100_000))
+                .interestRate(BigDecimal.TEN)
+                .term(12)
+                .status(CreditStatus.ACTIVE)
+                .build();
+    }
+}
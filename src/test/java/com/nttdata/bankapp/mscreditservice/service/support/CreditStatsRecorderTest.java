@@ -0,0 +1,142 @@
+package com.nttdata.bankapp.mscreditservice.service.support;
+
+import com.nttdata.bankapp.mscreditservice.model.Credit;
+import com.nttdata.bankapp.mscreditservice.model.CreditStats;
+import com.nttdata.bankapp.mscreditservice.model.Money;
+import com.nttdata.bankapp.mscreditservice.model.enums.CreditStatus;
+import com.nttdata.bankapp.mscreditservice.model.enums.CreditType;
+import com.nttdata.bankapp.mscreditservice.model.enums.CustomerProfile;
+import com.nttdata.bankapp.mscreditservice.model.enums.CustomerType;
+import com.nttdata.bankapp.mscreditservice.repository.CreditStatsRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class CreditStatsRecorderTest {
+
+    private static final String ACTIVE_KEY = "PERSONAL|PERSONAL|REGULAR|ACTIVE";
+    private static final String PAID_KEY = "PERSONAL|PERSONAL|REGULAR|PAID";
+
+    // Variaciones de cada llamada a increment, en orden
+    private final List<List<CreditStats>> increments = new CopyOnWriteArrayList<>();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private CreditStatsRepository repository;
+    private CreditStatsRecorder recorder;
+
+    @BeforeEach
+    void setUp() {
+        repository = mock(CreditStatsRepository.class);
+        when(repository.increment(anyCollection())).thenAnswer(invocation -> {
+            increments.add(new ArrayList<>(invocation.<Collection<CreditStats>>getArgument(0)));
+            return Mono.empty();
+        });
+        recorder = new CreditStatsRecorder(repository, meterRegistry);
+    }
+
+    @Test
+    void payingOffMovesCountAndBalanceToThePaidKey() {
+        Credit before = credit(CreditType.PERSONAL, CustomerProfile.REGULAR, CreditStatus.ACTIVE, 100_000, 10_000);
+        Credit after = before.toBuilder().remainingAmount(Money.zero()).status(CreditStatus.PAID).build();
+
+        StepVerifier.create(recorder.record(before, after)).verifyComplete();
+
+        assertThat(increments).hasSize(1);
+        Map<String, CreditStats> deltas = byKey(increments.get(0));
+        assertThat(deltas).containsOnlyKeys(ACTIVE_KEY, PAID_KEY);
+        assertDelta(deltas.get(ACTIVE_KEY), -1, "-1000.00", "-100.00");
+        assertDelta(deltas.get(PAID_KEY), 1, "1000.00", "0.00");
+        assertThat(deltas.get(PAID_KEY).getStatus()).isEqualTo(CreditStatus.PAID);
+    }
+
+    @Test
+    void paymentWithinTheSameKeyIsASingleIncrement() {
+        Credit before = credit(CreditType.PERSONAL, CustomerProfile.REGULAR, CreditStatus.ACTIVE, 100_000, 100_000);
+        Credit after = before.toBuilder().remainingAmount(Money.ofMinor(90_000)).build();
+
+        StepVerifier.create(recorder.record(before, after)).verifyComplete();
+
+        assertThat(increments).hasSize(1);
+        assertThat(increments.get(0)).hasSize(1);
+        assertDelta(increments.get(0).get(0), 0, "0.00", "-100.00");
+    }
+
+    @Test
+    void deleteRemovesTheCreditTotals() {
+        Credit deleted = credit(CreditType.PERSONAL, CustomerProfile.REGULAR, CreditStatus.ACTIVE, 100_000, 40_000);
+
+        StepVerifier.create(recorder.record(deleted, null)).verifyComplete();
+
+        assertThat(increments).hasSize(1);
+        assertThat(increments.get(0)).hasSize(1);
+        CreditStats delta = increments.get(0).get(0);
+        assertThat(delta.getId()).isEqualTo(ACTIVE_KEY);
+        assertDelta(delta, -1, "-1000.00", "-400.00");
+    }
+
+    @Test
+    void bulkCreationAddsOneDeltaPerKey() {
+        List<Credit> created = List.of(
+                credit(CreditType.PERSONAL, CustomerProfile.REGULAR, CreditStatus.ACTIVE, 100_000, 100_000),
+                credit(CreditType.BUSINESS, null, CreditStatus.ACTIVE, 500_000, 500_000),
+                credit(CreditType.PERSONAL, CustomerProfile.REGULAR, CreditStatus.ACTIVE, 20_000, 20_000));
+
+        StepVerifier.create(recorder.recordCreated(created)).verifyComplete();
+
+        assertThat(increments).hasSize(1);
+        Map<String, CreditStats> deltas = byKey(increments.get(0));
+        // Sin perfil de cliente la dimensión se guarda como "-"
+        assertThat(deltas).containsOnlyKeys(ACTIVE_KEY, "BUSINESS|PERSONAL|-|ACTIVE");
+        assertDelta(deltas.get(ACTIVE_KEY), 2, "1200.00", "1200.00");
+        assertDelta(deltas.get("BUSINESS|PERSONAL|-|ACTIVE"), 1, "5000.00", "5000.00");
+    }
+
+    @Test
+    void repositoryFailureDoesNotFailTheOperation() {
+        when(repository.increment(anyCollection())).thenReturn(Mono.error(new IllegalStateException("down")));
+
+        StepVerifier.create(recorder.record(null,
+                        credit(CreditType.PERSONAL, CustomerProfile.REGULAR, CreditStatus.ACTIVE, 100_000, 100_000)))
+                .verifyComplete();
+
+        assertThat(meterRegistry.counter("credit.stats.update.failures").count()).isEqualTo(1);
+    }
+
+    private static Map<String, CreditStats> byKey(List<CreditStats> deltas) {
+        return deltas.stream().collect(Collectors.toMap(CreditStats::getId, Function.identity()));
+    }
+
+    private static void assertDelta(CreditStats delta, long count, String totalAmount, String remainingAmount) {
+        assertThat(delta.getCount()).isEqualTo(count);
+        assertThat(delta.getTotalAmount()).isEqualByComparingTo(new BigDecimal(totalAmount));
+        assertThat(delta.getRemainingAmount()).isEqualByComparingTo(new BigDecimal(remainingAmount));
+    }
+
+    private static Credit credit(CreditType type, CustomerProfile profile, CreditStatus status,
+                                 long amountMinor, long remainingMinor) {
+        return Credit.builder()
+                .id("credit-" + type + "-" + amountMinor)
+                .customerType(CustomerType.PERSONAL)
+                .customerProfile(profile)
+                .type(type)
+                .amount(Money.ofMinor(amountMinor))
+                .remainingAmount(Money.ofMinor(remainingMinor))
+                .status(status)
+                .build();
+    }
+}
@@ -0,0 +1,175 @@
+package com.nttdata.bankapp.mscreditservice.service.support;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nttdata.bankapp.mscreditservice.dto.CreditDto;
+import com.nttdata.bankapp.mscreditservice.exception.IdempotencyKeyInProgressException;
+import com.nttdata.bankapp.mscreditservice.exception.IdempotencyKeyMismatchException;
+import com.nttdata.bankapp.mscreditservice.model.IdempotencyRecord;
+import com.nttdata.bankapp.mscreditservice.repository.IdempotencyRecordRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DuplicateKeyException;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class IdempotencyStoreTest {
+
+    private final Map<String, IdempotencyRecord> records = new ConcurrentHashMap<>();
+    private final AtomicInteger executions = new AtomicInteger();
+    private IdempotencyRecordRepository repository;
+
+    @BeforeEach
+    void setUp() {
+        // Repositorio en memoria con la misma semántica de _id único que MongoDB
+        repository = mock(IdempotencyRecordRepository.class);
+        when(repository.insert(any(IdempotencyRecord.class))).thenAnswer(invocation -> {
+            IdempotencyRecord record = invocation.getArgument(0);
+            return records.putIfAbsent(record.getId(), copy(record)) == null
+                    ? Mono.just(record)
+                    : Mono.error(new DuplicateKeyException(record.getId()));
+        });
+        when(repository.save(any(IdempotencyRecord.class))).thenAnswer(invocation -> {
+            IdempotencyRecord record = invocation.getArgument(0);
+            records.put(record.getId(), copy(record));
+            return Mono.just(record);
+        });
+        when(repository.findById(anyString())).thenAnswer(invocation ->
+                Mono.justOrEmpty(records.get(invocation.<String>getArgument(0))));
+        when(repository.deleteById(anyString())).thenAnswer(invocation -> {
+            records.remove(invocation.<String>getArgument(0));
+            return Mono.empty();
+        });
+    }
+
+    @Test
+    void retriesWithTheSameKeyRunTheOperationOnce() {
+        IdempotencyStore store = newStore();
+
+        CreditDto first = store.execute("makePayment", "key-1", "c1:100", CreditDto.class, this::pay).block();
+        CreditDto second = store.execute("makePayment", "key-1", "c1:100", CreditDto.class, this::pay).block();
+
+        assertThat(executions).hasValue(1);
+        assertThat(second).isEqualTo(first);
+        assertThat(records.get("makePayment:key-1").getStatus()).isEqualTo(IdempotencyRecord.Status.COMPLETED);
+    }
+
+    @Test
+    void anotherInstanceReplaysTheStoredResponse() {
+        CreditDto first = newStore().execute("makePayment", "key-1", "c1:100", CreditDto.class, this::pay).block();
+        CreditDto replayed = newStore().execute("makePayment", "key-1", "c1:100", CreditDto.class, this::pay).block();
+
+        assertThat(executions).hasValue(1);
+        assertThat(replayed).isEqualTo(first);
+    }
+
+    @Test
+    void rejectsTheKeyForADifferentRequest() {
+        IdempotencyStore store = newStore();
+        store.execute("makePayment", "key-1", "c1:100", CreditDto.class, this::pay).block();
+
+        StepVerifier.create(store.execute("makePayment", "key-1", "c1:200", CreditDto.class, this::pay))
+                .expectError(IdempotencyKeyMismatchException.class)
+                .verify();
+    }
+
+    @Test
+    void reportsKeysStillInProgress() {
+        records.put("makePayment:key-1", IdempotencyRecord.builder()
+                .id("makePayment:key-1")
+                .fingerprint("c1:100")
+                .status(IdempotencyRecord.Status.IN_PROGRESS)
+                .build());
+
+        StepVerifier.create(newStore().execute("makePayment", "key-1", "c1:100", CreditDto.class, this::pay))
+                .expectError(IdempotencyKeyInProgressException.class)
+                .verify();
+        assertThat(executions).hasValue(0);
+    }
+
+    @Test
+    void failedOperationsReleaseTheKey() {
+        IdempotencyStore store = newStore();
+
+        StepVerifier.create(store.execute("makePayment", "key-1", "c1:100", CreditDto.class,
+                        () -> Mono.error(new IllegalArgumentException("Payment amount cannot exceed remaining balance"))))
+                .expectError(IllegalArgumentException.class)
+                .verify();
+
+        assertThat(records).doesNotContainKey("makePayment:key-1");
+        assertThat(store.execute("makePayment", "key-1", "c1:100", CreditDto.class, this::pay).block()).isNotNull();
+    }
+
+    @Test
+    void clientDisconnectDoesNotLoseTheOutcome() {
+        IdempotencyStore store = newStore();
+        Sinks.One<CreditDto> payment = Sinks.one();
+
+        // El cliente se desconecta mientras el pago todavía está en curso
+        store.execute("makePayment", "key-1", "c1:100", CreditDto.class, () -> {
+                    executions.incrementAndGet();
+                    return payment.asMono();
+                })
+                .subscribe()
+                .dispose();
+
+        IdempotencyRecord claim = records.get("makePayment:key-1");
+        assertThat(claim.getStatus()).isEqualTo(IdempotencyRecord.Status.IN_PROGRESS);
+        StepVerifier.create(newStore().execute("makePayment", "key-1", "c1:100", CreditDto.class, this::pay))
+                .expectError(IdempotencyKeyInProgressException.class)
+                .verify();
+
+        CreditDto paid = CreditDto.builder().id("c1").remainingAmount(BigDecimal.valueOf(800)).build();
+        payment.tryEmitValue(paid);
+
+        assertThat(records.get("makePayment:key-1").getStatus()).isEqualTo(IdempotencyRecord.Status.COMPLETED);
+        assertThat(newStore().execute("makePayment", "key-1", "c1:100", CreditDto.class, this::pay).block())
+                .isEqualTo(paid);
+        assertThat(executions).hasValue(1);
+    }
+
+    @Test
+    void inProgressClaimLastsTheLeaseAndTheStoredResponseTheTtl() {
+        Sinks.One<CreditDto> payment = Sinks.one();
+        Instant start = Instant.now();
+
+        newStore().execute("makePayment", "key-1", "c1:100", CreditDto.class, payment::asMono).subscribe();
+
+        // Si la instancia cae ahora, la clave se libera a los dos minutos y no a las 24 horas
+        assertThat(records.get("makePayment:key-1").getExpireAt())
+                .isBetween(start.plus(Duration.ofMinutes(2)), Instant.now().plus(Duration.ofMinutes(2)));
+
+        payment.tryEmitValue(CreditDto.builder().id("c1").build());
+        assertThat(records.get("makePayment:key-1").getExpireAt()).isAfter(start.plus(Duration.ofHours(23)));
+    }
+
+    private Mono<CreditDto> pay() {
+        return Mono.fromSupplier(() -> CreditDto.builder()
+                .id("c1")
+                .remainingAmount(BigDecimal.valueOf(900 - 100L * executions.incrementAndGet()))
+                .build());
+    }
+
+    private IdempotencyStore newStore() {
+        return new IdempotencyStore(repository, new ObjectMapper().findAndRegisterModules(), new SimpleMeterRegistry(),
+                Duration.ofHours(24), Duration.ofMinutes(2), 100);
+    }
+
+    private static IdempotencyRecord copy(IdempotencyRecord record) {
+        return record.toBuilder().build();
+    }
+}
@@ -0,0 +1,55 @@
+package com.nttdata.bankapp.mscreditservice.service.support;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.OptimisticLockingFailureException;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class OptimisticLockRetryTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final OptimisticLockRetry retry =
+            new OptimisticLockRetry(meterRegistry, 3, Duration.ofMillis(1), Duration.ofMillis(5));
+
+    @Test
+    void maxAttemptsIncludesTheFirstAttempt() {
+        AtomicInteger attempts = new AtomicInteger();
+        Mono<String> alwaysConflicts = Mono.defer(() -> {
+            attempts.incrementAndGet();
+            return Mono.error(new OptimisticLockingFailureException("version changed"));
+        });
+
+        StepVerifier.create(retry.apply("update", alwaysConflicts))
+                .verifyError(OptimisticLockingFailureException.class);
+
+        assertThat(attempts).hasValue(3);
+        assertThat(meterRegistry.counter("credit.optimistic-lock.retries", "operation", "update").count()).isEqualTo(2);
+        assertThat(meterRegistry.counter("credit.optimistic-lock.exhausted", "operation", "update").count()).isEqualTo(1);
+    }
+
+    @Test
+    void otherErrorsAreNotRetried() {
+        AtomicInteger attempts = new AtomicInteger();
+        Mono<String> fails = Mono.defer(() -> {
+            attempts.incrementAndGet();
+            return Mono.error(new IllegalStateException("boom"));
+        });
+
+        StepVerifier.create(retry.apply("update", fails)).verifyError(IllegalStateException.class);
+
+        assertThat(attempts).hasValue(1);
+    }
+
+    @Test
+    void requiresAtLeastOneAttempt() {
+        assertThatThrownBy(() -> new OptimisticLockRetry(meterRegistry, 0, Duration.ofMillis(1), Duration.ofMillis(5)))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
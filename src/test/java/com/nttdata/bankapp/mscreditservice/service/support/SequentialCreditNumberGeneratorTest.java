@@ -0,0 +1,175 @@
+package com.nttdata.bankapp.mscreditservice.service.support;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SequentialCreditNumberGeneratorTest {
+
+    private static final Instant NOON = Instant.parse("2025-06-01T12:00:00Z");
+
+    @Test
+    void generatesPrefixedNumbersWithValidCheckSymbol() {
+        String creditNumber = new SequentialCreditNumberGenerator(7, ticking()).next();
+
+        assertThat(creditNumber).startsWith("CR-").hasSize(17).matches("CR-[0-9A-HJKMNP-TV-Z]{14}");
+        assertThat(SequentialCreditNumberGenerator.isValid(creditNumber)).isTrue();
+    }
+
+    @Test
+    void detectsSingleSymbolChanges() {
+        String creditNumber = new SequentialCreditNumberGenerator(7, ticking()).next();
+        char[] chars = creditNumber.toCharArray();
+        chars[10] = chars[10] == '0' ? '1' : '0';
+
+        assertThat(SequentialCreditNumberGenerator.isValid(new String(chars))).isFalse();
+        assertThat(SequentialCreditNumberGenerator.isValid("CR-1A2B3C4D")).isFalse();
+    }
+
+    @Test
+    void concurrentCallsInTheSameSecondNeverCollide() {
+        MutableClock clock = new MutableClock(NOON);
+        SequentialCreditNumberGenerator generator = new SequentialCreditNumberGenerator(7, clock);
+        clock.instant = NOON.plusSeconds(1);
+        Set<String> numbers = ConcurrentHashMap.newKeySet();
+
+        IntStream.range(0, 200_000).parallel().forEach(i -> numbers.add(generator.next()));
+
+        assertThat(numbers).hasSize(200_000);
+    }
+
+    @Test
+    void differentNodesNeverCollide() {
+        SequentialCreditNumberGenerator first = new SequentialCreditNumberGenerator(1, ticking());
+        SequentialCreditNumberGenerator second = new SequentialCreditNumberGenerator(2, ticking());
+
+        for (int i = 0; i < 1_000; i++) {
+            assertThat(first.next()).isNotEqualTo(second.next());
+        }
+    }
+
+    @Test
+    void keepsIncreasingWhenTheClockGoesBackwards() {
+        MutableClock clock = new MutableClock(NOON);
+        SequentialCreditNumberGenerator generator = new SequentialCreditNumberGenerator(3, clock);
+        clock.instant = NOON.plusSeconds(1);
+        String beforeRollback = generator.next();
+
+        clock.instant = Instant.parse("2025-06-01T11:59:00Z");
+
+        // Mismo nodo y prefijo: el orden lexicográfico sigue el valor codificado
+        assertThat(generator.next()).isGreaterThan(beforeRollback);
+    }
+
+    @Test
+    void restartInTheSameSecondDoesNotRepeatNumbers() {
+        MutableClock clock = new MutableClock(Instant.parse("2025-06-01T11:00:00Z"));
+        SequentialCreditNumberGenerator beforeRestart = new SequentialCreditNumberGenerator(5, clock);
+        clock.instant = Instant.parse("2025-06-01T12:00:00Z");
+        List<String> issued = IntStream.range(0, 1_000)
+                .mapToObj(i -> beforeRestart.next())
+                .collect(Collectors.toList());
+
+        // La nueva instancia espera al segundo siguiente para emitir
+        clock.tick = Duration.ofMillis(100);
+        String afterRestart = new SequentialCreditNumberGenerator(5, clock).next();
+
+        assertThat(issued).allSatisfy(number -> assertThat(afterRestart).isGreaterThan(number));
+    }
+
+    @Test
+    void exhaustedCounterWaitsForTheClockSoARestartDoesNotRepeatNumbers() throws Exception {
+        MutableClock clock = new MutableClock(NOON);
+        SequentialCreditNumberGenerator beforeRestart = new SequentialCreditNumberGenerator(5, clock);
+        clock.instant = NOON.plusSeconds(1);
+        String last = null;
+        for (int i = 0; i < 1 << SequentialCreditNumberGenerator.COUNTER_BITS; i++) {
+            last = beforeRestart.next();
+        }
+
+        // Con el contador del segundo agotado no se adelanta al segundo siguiente
+        CompletableFuture<String> waiting = CompletableFuture.supplyAsync(beforeRestart::next);
+        Thread.sleep(100);
+        assertThat(waiting).isNotDone();
+
+        // Un reinicio en el mismo segundo arranca en el siguiente, que nadie usó todavía
+        SequentialCreditNumberGenerator afterRestart = new SequentialCreditNumberGenerator(5, clock);
+        clock.instant = NOON.plusSeconds(2);
+        assertThat(afterRestart.next()).isGreaterThan(last);
+        assertThat(waiting.get(5, TimeUnit.SECONDS)).isGreaterThan(last);
+    }
+
+    @Test
+    void requiresNodeIdOutsideDevProfile() {
+        MockEnvironment environment = new MockEnvironment();
+        environment.setActiveProfiles("docker");
+
+        assertThatThrownBy(() -> new SequentialCreditNumberGenerator(-1, environment))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("app.credit-number.node-id");
+    }
+
+    @Test
+    void devProfileDoesNotRequireNodeId() {
+        MockEnvironment environment = new MockEnvironment();
+        environment.setActiveProfiles(SequentialCreditNumberGenerator.DEV_PROFILE);
+
+        String creditNumber = new SequentialCreditNumberGenerator(-1, environment).next();
+
+        assertThat(SequentialCreditNumberGenerator.isValid(creditNumber)).isTrue();
+    }
+
+    @Test
+    void rejectsNodeIdsOutOfRange() {
+        assertThatThrownBy(() -> new SequentialCreditNumberGenerator(1024, ticking()))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    // Avanza 100 ms por lectura: las esperas al segundo siguiente terminan enseguida
+    private static MutableClock ticking() {
+        MutableClock clock = new MutableClock(NOON);
+        clock.tick = Duration.ofMillis(100);
+        return clock;
+    }
+
+    private static final class MutableClock extends Clock {
+        private volatile Instant instant;
+        private volatile Duration tick = Duration.ZERO;
+
+        private MutableClock(Instant instant) {
+            this.instant = instant;
+        }
+
+        @Override
+        public ZoneOffset getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public synchronized Instant instant() {
+            Instant current = instant;
+            instant = current.plus(tick);
+            return current;
+        }
+    }
+}